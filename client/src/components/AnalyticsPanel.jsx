@@ -77,7 +77,7 @@ export default function AnalyticsPanel({ postId, days = 7, showAttendance = fals
                         <StatNumber>
                             {new Intl.NumberFormat(undefined, {
                                 style: 'currency',
-                                currency: 'USD'
+                                currency: data.currency || 'USD'
                             }).format(data.revenue)}
                         </StatNumber>
                     </Stat>
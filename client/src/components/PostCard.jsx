@@ -27,7 +27,7 @@ function fmtPrice(p, cur) {
 
 export default function PostCard({
                                      userName, userImage, description, postImage, postId, userId,
-                                     title, location, startAt, endAt, capacity, paid, price, currency,
+                                     title, location, startAt, endAt, capacity, available, paid, price, currency,
                                      salesStartAt, salesEndAt, status
                                  }) {
     const { user } = useContext(AuthContext)
@@ -120,6 +120,13 @@ export default function PostCard({
                                 <Badge variant="outline">{capacity} seats</Badge>
                             </Tooltip>
                         )}
+                        {capacity != null && available != null && (
+                            <Tooltip label="Available seats">
+                                <Badge colorScheme={available === 0 ? 'red' : 'green'}>
+                                    {available} available
+                                </Badge>
+                            </Tooltip>
+                        )}
                     </HStack>
 
                     {description && <Text>{description}</Text>}
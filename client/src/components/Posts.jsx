@@ -1,10 +1,30 @@
 import { Center, VStack } from '@chakra-ui/react'
-import React from 'react'
+import React, { useEffect, useMemo, useState } from 'react'
 import PostCard from './PostCard'
 import {api} from "../api/api";
+import TicketService from '../services/TicketService'
+
+const BULK_LIMIT = 100 // app.availability.maxBulk on the server
 
 export default function Posts({ posts }) {
     const imageBase = `${api.defaults.baseURL}postimages/download/`
+    const ticketService = useMemo(() => new TicketService(), [])
+    const [availability, setAvailability] = useState({})
+
+    // one request per page of events with a capacity, instead of one per card
+    useEffect(() => {
+        const ids = posts.filter(p => p.capacity != null).map(p => p.id)
+        if (ids.length === 0) return
+        let cancelled = false
+        const chunks = []
+        for (let i = 0; i < ids.length; i += BULK_LIMIT) chunks.push(ids.slice(i, i + BULK_LIMIT))
+        Promise.all(chunks.map(c => ticketService.getAvailabilityBulk(c)))
+            .then(results => {
+                if (!cancelled) setAvailability(Object.assign({}, ...results.map(r => r.data)))
+            })
+            .catch(e => console.log(e))
+        return () => { cancelled = true }
+    }, [posts, ticketService])
 
     return (
         <Center>
@@ -27,6 +47,7 @@ export default function Posts({ posts }) {
                         startAt={post.startAt}
                         endAt={post.endAt}
                         capacity={post.capacity}
+                        available={availability[post.id]?.available ?? null}
                         paid={post.paid}
                         price={post.price}
                         currency={post.currency}
@@ -15,6 +15,7 @@ const MESSAGES = {
     TICKET_NOT_FOUND: 'Ticket not found',
     TICKET_FOR_ANOTHER_EVENT: 'Ticket belongs to another event',
     TICKET_NOT_ACTIVE: 'Ticket is not active',
+    TICKET_SIGNATURE_INVALID: 'QR code is forged or damaged',
 };
 
 const human = (msg) => MESSAGES[msg] || msg || 'An error occurred';
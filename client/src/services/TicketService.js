@@ -25,6 +25,11 @@ export default class TicketService {
         return api.get(`tickets/availability/${postId}`);
     }
 
+    // one request for a whole list page: { [postId]: { seats, available, held } }
+    getAvailabilityBulk(postIds) {
+        return api.get('tickets/availability', { params: { ids: postIds.join(',') } });
+    }
+
     getMyPdf(postId) {
         return api.get(`tickets/my/${postId}/pdf`, { responseType: 'blob' });
     }
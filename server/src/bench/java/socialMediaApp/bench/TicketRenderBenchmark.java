@@ -0,0 +1,154 @@
+package socialMediaApp.bench;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.User;
+import socialMediaApp.services.TicketPdfRenderer;
+import socialMediaApp.services.TicketQrEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tickets rendered per second (inline QR PNG + PDF, i.e. the artwork of one ticket email).
+ *
+ * {@code legacy} is the previous MailService code path, kept here verbatim as the baseline;
+ * {@code current} is TicketQrEncoder + TicketPdfRenderer. Run with:
+ * <pre>mvn -Pbench test-compile exec:exec</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketRenderBenchmark {
+
+    private static final int EVENT_SIZE = 1000;
+
+    private Ticket[] tickets;
+    private int next;
+
+    private TicketQrEncoder qrEncoder;
+    private TicketPdfRenderer pdfRenderer;
+
+    @Setup
+    public void setup() {
+        Post post = new Post();
+        post.setId(42);
+        post.setTitle("Spring Open Air 2030");
+        tickets = new Ticket[EVENT_SIZE];
+        for (int i = 0; i < EVENT_SIZE; i++) {
+            User u = new User();
+            u.setName("Guest" + i);
+            u.setLastName("Doe");
+            Ticket t = new Ticket();
+            t.setId(i + 1);
+            t.setPost(post);
+            t.setUser(u);
+            t.setCode(String.format("%016X", 0x5DEECE66DL * (i + 1)));
+            t.setCreatedAt(LocalDateTime.of(2030, 5, 1, 12, 0));
+            tickets[i] = t;
+        }
+        qrEncoder = new TicketQrEncoder();
+        pdfRenderer = new TicketPdfRenderer();
+    }
+
+    private Ticket nextTicket() {
+        Ticket t = tickets[next];
+        next = (next + 1) % EVENT_SIZE;
+        return t;
+    }
+
+    private static String payload(Ticket t) {
+        return "TICKET:" + t.getPost().getId() + ":" + t.getCode();
+    }
+
+    @Benchmark
+    public void current(Blackhole bh) {
+        Ticket t = nextTicket();
+        ByteMatrix modules = qrEncoder.modules(payload(t));
+        bh.consume(qrEncoder.png(modules, 280));
+        bh.consume(pdfRenderer.render(t, modules));
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) throws Exception {
+        Ticket t = nextTicket();
+        byte[] qr = legacyQrPng(payload(t));
+        bh.consume(qr);
+        bh.consume(legacyPdf(t, qr));
+    }
+
+    // ---------- Previous implementation (baseline) ----------
+
+    private static byte[] legacyQrPng(String text) throws Exception {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.MARGIN, 1);
+        BitMatrix matrix = new MultiFormatWriter().encode(text, BarcodeFormat.QR_CODE, 280, 280, hints);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] legacyPdf(Ticket t, byte[] qrPng) throws Exception {
+        try (PDDocument doc = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage(PDRectangle.A6);
+            doc.addPage(page);
+            float w = page.getMediaBox().getWidth();
+            float h = page.getMediaBox().getHeight();
+            float margin = 18f;
+            float qrSize = 140f;
+            PDImageXObject qrImg = PDImageXObject.createFromByteArray(doc, qrPng, "qr.png");
+
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.setLineWidth(1.2f);
+                cs.addRect(margin / 2, margin / 2, w - margin, h - margin);
+                cs.stroke();
+                legacyText(cs, PDType1Font.HELVETICA_BOLD, 16, margin, h - margin - 14, "TICKET");
+                legacyText(cs, PDType1Font.HELVETICA_BOLD, 12, margin, h - margin - 40, t.getPost().getTitle());
+                legacyText(cs, PDType1Font.HELVETICA, 11, margin, h - margin - 62, "Code: " + t.getCode());
+                legacyText(cs, PDType1Font.HELVETICA, 11, margin, h - margin - 80,
+                        "Owner: " + t.getUser().getName() + " " + t.getUser().getLastName());
+                legacyText(cs, PDType1Font.HELVETICA, 10, margin, h - margin - 98,
+                        "Issued: " + t.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+                cs.drawImage(qrImg, (w - qrSize) / 2f, margin + 26f, qrSize, qrSize);
+                legacyText(cs, PDType1Font.HELVETICA_OBLIQUE, 8.5f, margin, margin + 10,
+                        "Present this ticket at entry. If scanning fails, type the code manually.");
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void legacyText(PDPageContentStream cs, PDType1Font font, float size, float x, float y, String s)
+            throws Exception {
+        cs.beginText();
+        cs.setFont(font, size);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s);
+        cs.endText();
+    }
+}
@@ -0,0 +1,23 @@
+package socialMediaApp.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import socialMediaApp.responses.admin.MailMetricsResponse;
+import socialMediaApp.services.TicketEmailDispatcher;
+
+@RestController
+@RequestMapping("/api/admin/mail")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminMailController {
+
+    private final TicketEmailDispatcher dispatcher;
+
+    @GetMapping("/metrics")
+    public MailMetricsResponse metrics() {
+        return dispatcher.metrics();
+    }
+}
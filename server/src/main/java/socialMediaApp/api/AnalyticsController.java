@@ -1,11 +1,23 @@
 package socialMediaApp.api;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.responses.analitics.PortfolioAnalyticsResponse;
 import socialMediaApp.responses.analitics.PostAnalyticsResponse;
+import socialMediaApp.responses.analitics.SalesVelocityResponse;
 
 import socialMediaApp.services.AnalyticsService;
+import socialMediaApp.services.AttendanceService;
+import socialMediaApp.services.CurrentUserService;
+import socialMediaApp.services.SalesVelocityService;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -13,6 +25,9 @@ import socialMediaApp.services.AnalyticsService;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AttendanceService attendanceService;
+    private final SalesVelocityService salesVelocityService;
+    private final CurrentUserService current;
 
     @GetMapping("/post/{postId}")
     public ResponseEntity<PostAnalyticsResponse> getForPost(
@@ -23,4 +38,34 @@ public class AnalyticsController {
         return ResponseEntity.ok(res);
     }
 
+    @GetMapping("/post/{postId}/hourly")
+    public ResponseEntity<List<PostAnalyticsResponse.HourlyStat>> getHourlyForPost(
+            @PathVariable int postId,
+            @RequestParam(defaultValue = "48") int hours
+    ) {
+        return ResponseEntity.ok(analyticsService.getPostHourly(postId, hours));
+    }
+
+    // tickets/minute, acceleration and projected sell-out, served from memory (owner only)
+    @GetMapping("/post/{postId}/velocity")
+    public ResponseEntity<SalesVelocityResponse> getVelocity(@PathVariable int postId, Authentication auth) {
+        return ResponseEntity.ok(salesVelocityService.velocity(postId, current.requireUserId(auth)));
+    }
+
+    // every event of the caller in one call; from/to are ISO dates, default the last 30 days
+    @GetMapping("/portfolio")
+    public ResponseEntity<PortfolioAnalyticsResponse> getPortfolio(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication auth
+    ) {
+        return ResponseEntity.ok(analyticsService.getPortfolio(current.requireUserId(auth), from, to));
+    }
+
+    // live door counters; send the JWT header (fetch-based EventSource), pushes at most once per second
+    @GetMapping(value = "/post/{postId}/attendance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter attendanceStream(@PathVariable int postId, Authentication auth) {
+        return attendanceService.subscribe(postId, current.requireUserId(auth));
+    }
+
 }
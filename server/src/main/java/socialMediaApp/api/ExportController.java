@@ -0,0 +1,39 @@
+package socialMediaApp.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import socialMediaApp.services.CurrentUserService;
+import socialMediaApp.services.TicketExportService;
+import socialMediaApp.services.TicketExportService.Dataset;
+import socialMediaApp.services.TicketExportService.Format;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final TicketExportService exportService;
+    private final CurrentUserService current;
+
+    // GET /api/export/post/{postId}/{tickets|attendees|daily}?format=csv|ndjson, written as it is read
+    @GetMapping("/post/{postId}/{dataset}")
+    public void export(@PathVariable int postId,
+                       @PathVariable String dataset,
+                       @RequestParam(defaultValue = "csv") String format,
+                       Authentication auth,
+                       HttpServletResponse response) throws IOException {
+        Dataset d = TicketExportService.dataset(dataset);
+        Format f = TicketExportService.format(format);
+        exportService.requireOwner(postId, current.requireUserId(auth));
+
+        response.setContentType(f.contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + exportService.fileName(postId, d, f) + "\"");
+        exportService.write(postId, d, f, response.getOutputStream());
+    }
+}
@@ -0,0 +1,30 @@
+package socialMediaApp.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import socialMediaApp.responses.queue.QueueStatusResponse;
+import socialMediaApp.services.AdmissionQueueService;
+
+@RestController
+@RequestMapping("/api/queue")
+@RequiredArgsConstructor
+public class QueueController {
+
+    public static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+
+    private final AdmissionQueueService admissionQueueService;
+
+    @PostMapping("/{postId}/join")
+    public ResponseEntity<QueueStatusResponse> join(@PathVariable int postId, Authentication auth) {
+        return ResponseEntity.ok(admissionQueueService.join(postId, auth.getName()));
+    }
+
+    // public + skipped by JwtAuthFilter: the signed queue token is the credential
+    @GetMapping("/{postId}/status")
+    public ResponseEntity<QueueStatusResponse> status(@PathVariable int postId,
+                                                      @RequestHeader(QUEUE_TOKEN_HEADER) String token) {
+        return ResponseEntity.ok(admissionQueueService.status(postId, token));
+    }
+}
@@ -1,14 +1,23 @@
 package socialMediaApp.api;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.requests.TicketBatchScanRequest;
+import socialMediaApp.requests.TicketGroupRegisterRequest;
 import socialMediaApp.requests.TicketVerifyRequest;
+import socialMediaApp.responses.ticket.CheckInManifestResponse;
 import socialMediaApp.responses.ticket.TicketVerifyResponse;
 import socialMediaApp.responses.ticket.TicketResponse;
 
+import socialMediaApp.services.AdmissionQueueService;
+import socialMediaApp.services.CheckInManifestService;
 import socialMediaApp.services.CurrentUserService;
+import socialMediaApp.services.IdempotencyService;
+import socialMediaApp.services.TicketAvailabilityService;
 import socialMediaApp.services.TicketService;
 import socialMediaApp.services.UserService;
 
@@ -22,14 +31,51 @@ public class TicketsController {
 
     private final TicketService ticketService;
     private final CurrentUserService current;
+    private final AdmissionQueueService admissionQueueService;
+    private final CheckInManifestService checkInManifestService;
+    private final TicketAvailabilityService availabilityService;
+    private final IdempotencyService idempotencyService;
+
     @GetMapping("/availability/{postId}")
     public ResponseEntity<Map<String, Object>> availability(@PathVariable int postId) {
         return ResponseEntity.ok(ticketService.availability(postId));
     }
 
+    // GET /api/tickets/availability?ids=1,2,3 -> { "1": {seats, available, held}, ... }
+    @GetMapping("/availability")
+    public ResponseEntity<Map<Integer, Map<String, Object>>> availabilityBulk(@RequestParam List<Integer> ids) {
+        return ResponseEntity.ok(availabilityService.getAll(ids));
+    }
+
+    // same payload as /availability, pushed only when it changes (instead of polling)
+    @GetMapping(value = "/availability/{postId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter availabilityStream(@PathVariable int postId) {
+        return availabilityService.subscribe(postId);
+    }
+
+    // a retry with the same Idempotency-Key gets the first response back without registering again
     @PostMapping("/register/{postId}")
-    public ResponseEntity<TicketResponse> register(@PathVariable int postId, Authentication auth) {
-        return ResponseEntity.ok(ticketService.register(postId, current.requireUserId(auth)));
+    public ResponseEntity<?> register(@PathVariable int postId,
+                                      @RequestHeader(value = QueueController.QUEUE_TOKEN_HEADER, required = false) String queueToken,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                      Authentication auth) {
+        return idempotencyService.execute(auth.getName(), idempotencyKey, "POST /api/tickets/register/" + postId, () -> {
+            admissionQueueService.requireAdmitted(postId, auth.getName(), queueToken);
+            return ResponseEntity.ok(ticketService.register(postId, current.requireUserId(auth)));
+        });
+    }
+
+    @PostMapping("/register/{postId}/group")
+    public ResponseEntity<?> registerGroup(@PathVariable int postId,
+                                           @RequestBody TicketGroupRegisterRequest req,
+                                           @RequestHeader(value = QueueController.QUEUE_TOKEN_HEADER, required = false) String queueToken,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                           Authentication auth) {
+        String fingerprint = "POST /api/tickets/register/" + postId + "/group?quantity=" + req.getQuantity();
+        return idempotencyService.execute(auth.getName(), idempotencyKey, fingerprint, () -> {
+            admissionQueueService.requireAdmitted(postId, auth.getName(), queueToken);
+            return ResponseEntity.ok(ticketService.registerGroup(postId, current.requireUserId(auth), req.getQuantity()));
+        });
     }
 
     @GetMapping("/mine")
@@ -56,6 +102,25 @@ public class TicketsController {
         return ResponseEntity.ok(out);
     }
 
+    @PostMapping("/verify/consume/batch")
+    public ResponseEntity<List<TicketVerifyResponse>> verifyConsumeBatch(@RequestBody TicketBatchScanRequest req,
+                                                                         Authentication auth) {
+        var out = ticketService.consumeBatch(req.getPostId(), req.getScans(), current.requireUserId(auth));
+        return ResponseEntity.ok(out);
+    }
+
+    @GetMapping("/checkin/{postId}/manifest")
+    public ResponseEntity<CheckInManifestResponse> checkInManifest(@PathVariable int postId, Authentication auth) {
+        return ResponseEntity.ok(checkInManifestService.manifest(postId, current.requireUserId(auth)));
+    }
+
+    @GetMapping("/checkin/{postId}/delta")
+    public ResponseEntity<CheckInManifestResponse> checkInDelta(@PathVariable int postId,
+                                                                @RequestParam long since,
+                                                                Authentication auth) {
+        return ResponseEntity.ok(checkInManifestService.delta(postId, since, current.requireUserId(auth)));
+    }
+
     @PostMapping("/verify/{postId}")
     public ResponseEntity<TicketResponse> verify(@PathVariable int postId,
                                                  @RequestBody Map<String,String> body,
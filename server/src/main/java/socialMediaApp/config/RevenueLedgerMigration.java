@@ -0,0 +1,25 @@
+package socialMediaApp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import socialMediaApp.services.RevenueLedgerService;
+
+/** Fills the revenue ledger from existing PAID tickets the first time it starts up empty. */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevenueLedgerMigration implements CommandLineRunner {
+
+    private final RevenueLedgerService revenueLedgerService;
+
+    @Override
+    public void run(String... args) {
+        try {
+            revenueLedgerService.backfillIfEmpty();
+        } catch (Exception e) {
+            log.warn("Could not backfill the revenue ledger: {}", e.getMessage());
+        }
+    }
+}
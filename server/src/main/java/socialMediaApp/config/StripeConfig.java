@@ -11,8 +11,23 @@ public class StripeConfig {
     @Value("${stripe.secretKey}")
     private String secretKey;
 
+    // e.g. http://localhost:12111 for stripe-mock in tests and local runs; empty = api.stripe.com
+    @Value("${stripe.apiBase:}")
+    private String apiBase;
+
+    @Value("${stripe.connectTimeoutMillis:5000}")
+    private int connectTimeoutMillis;
+
+    @Value("${stripe.readTimeoutMillis:8000}")
+    private int readTimeoutMillis;
+
     @PostConstruct
     void init() {
         Stripe.apiKey = secretKey;
+        Stripe.setConnectTimeout(connectTimeoutMillis);
+        Stripe.setReadTimeout(readTimeoutMillis);
+        if (apiBase != null && !apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+        }
     }
 }
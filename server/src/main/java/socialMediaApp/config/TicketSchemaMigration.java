@@ -0,0 +1,39 @@
+package socialMediaApp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * ddl-auto=update adds the new (post_id, user_id, seat_no) key but never drops the old
+ * one-ticket-per-user (post_id, user_id) key, which would block group purchases.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketSchemaMigration implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            List<String> legacy = jdbcTemplate.queryForList("""
+                SELECT index_name FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'tickets' AND non_unique = 0
+                GROUP BY index_name
+                HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'post_id,user_id'
+            """, String.class);
+            for (String index : legacy) {
+                jdbcTemplate.execute("ALTER TABLE tickets DROP INDEX `" + index + "`");
+                log.info("Dropped legacy unique index tickets.{} (post_id, user_id)", index);
+            }
+        } catch (Exception e) {
+            log.warn("Could not check legacy tickets unique index: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-event seat counter. One row per post with a capacity; {@code sold} is
+ * moved only by conditional UPDATEs so concurrent buyers can never oversell.
+ * When {@code shards > 1} the seats live in {@link EventInventoryShard} rows instead.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "event_inventory")
+public class EventInventory {
+
+    @Id
+    @Column(name = "post_id")
+    private int postId;
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;
+
+    @Column(name = "sold", nullable = false)
+    private int sold;
+
+    @Column(name = "shards", nullable = false)
+    private int shards;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
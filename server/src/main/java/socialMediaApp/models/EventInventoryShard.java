@@ -0,0 +1,34 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * One counter slot of a sharded {@link EventInventory}. The event's remaining seats
+ * are always the exact sum of {@code capacity - sold} over its slots.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "event_inventory_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "slot"}))
+public class EventInventoryShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "post_id", nullable = false)
+    private int postId;
+
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;
+
+    @Column(name = "sold", nullable = false)
+    private int sold;
+}
@@ -0,0 +1,49 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import socialMediaApp.models.enums.IdempotencyStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * First response to a request carrying an {@code Idempotency-Key}, replayed for retries until
+ * {@code expires_at}. The id is a hash of the caller and the key, so keys never clash across users.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "idempotency_keys",
+        indexes = {
+                @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+        }
+)
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    // method + path of the first request; the same key on another endpoint is rejected
+    @Column(name = "fingerprint", nullable = false)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private IdempotencyStatus status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Lob
+    @Column(name = "response_body", columnDefinition = "LONGTEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,60 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One paid ticket and what was charged for it, at the price of the moment it was sold.
+ * Append-only: rows are inserted next to the ticket and never changed, so a later price change
+ * does not rewrite history. {@code ticket_id} is unique, which makes recording a sale idempotent.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(
+        name = "revenue_ledger",
+        uniqueConstraints = @UniqueConstraint(name = "uk_revenue_ledger_ticket", columnNames = "ticket_id"),
+        indexes = {
+                @Index(name = "idx_revenue_ledger_post_created", columnList = "post_id, created_at"),
+                @Index(name = "idx_revenue_ledger_organizer", columnList = "organizer_id")
+        }
+)
+public class RevenueLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_id", nullable = false)
+    private int ticketId;
+
+    @Column(name = "post_id", nullable = false)
+    private int postId;
+
+    @Column(name = "organizer_id", nullable = false)
+    private int organizerId;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "payment_intent_id")
+    private String paymentIntentId;
+
+    @Column(name = "checkout_session_id")
+    private String checkoutSessionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,44 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import socialMediaApp.models.enums.RevenueScope;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running revenue total per event or organizer and currency, kept in step with
+ * {@link RevenueLedgerEntry} inside the transaction that records the sale.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "revenue_summary",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"scope", "scope_id", "currency"}))
+public class RevenueSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 16)
+    private RevenueScope scope;
+
+    @Column(name = "scope_id", nullable = false)
+    private int scopeId;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "tickets", nullable = false)
+    private long tickets;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
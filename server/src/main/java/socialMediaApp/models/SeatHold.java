@@ -0,0 +1,78 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import socialMediaApp.models.enums.SeatHoldStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Seats reserved for a buyer while they are in Stripe checkout.
+ * An ACTIVE hold already counts against the event's inventory.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "seat_holds",
+        indexes = {
+                @Index(name = "idx_seat_holds_status_expires", columnList = "status, expires_at"),
+                @Index(name = "idx_seat_holds_post_status", columnList = "post_id, status"),
+                @Index(name = "idx_seat_holds_sweep", columnList = "sweep_id")
+        }
+)
+public class SeatHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "post_id")
+    private Post post;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private SeatHoldStatus status;
+
+    @Column(name = "checkout_session_id", unique = true)
+    private String checkoutSessionId;
+
+    // what the attached session charges and until when it is open, so a repeated "Buy" can reuse it
+    @Column(name = "checkout_url", length = 2048)
+    private String checkoutUrl;
+
+    @Column(name = "checkout_unit_amount")
+    private Long checkoutUnitAmount;
+
+    @Column(name = "checkout_currency", length = 3)
+    private String checkoutCurrency;
+
+    @Column(name = "checkout_expires_at")
+    private LocalDateTime checkoutExpiresAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // marks the rows one sweeper pass expired, so it can release exactly those seats
+    @Column(name = "sweep_id", length = 36)
+    private String sweepId;
+
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) status = SeatHoldStatus.ACTIVE;
+        if (quantity == 0) quantity = 1;
+    }
+}
@@ -0,0 +1,60 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import socialMediaApp.models.enums.WebhookInboxStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A verified Stripe event waiting to be (or already) processed, keyed by the Stripe event id
+ * so redeliveries are dropped on insert.
+ * {@code next_attempt_at} is when a worker may pick the row up: the retry time while PENDING,
+ * the lease end while PROCESSING (a crashed worker's row becomes due again).
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "stripe_webhook_inbox",
+        indexes = {
+                @Index(name = "idx_webhook_inbox_status_next", columnList = "status, next_attempt_at")
+        }
+)
+public class StripeWebhookEvent {
+
+    @Id
+    @Column(name = "event_id", length = 255)
+    private String eventId;
+
+    @Column(name = "type", nullable = false, length = 100)
+    private String type;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGTEXT")
+    private String payload;
+
+    // the original Stripe-Signature header; the worker re-verifies the stored payload with it
+    @Column(name = "signature", nullable = false, length = 1000)
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private WebhookInboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
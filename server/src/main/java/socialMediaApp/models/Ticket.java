@@ -13,7 +13,13 @@ import java.time.LocalDateTime;
 @Entity
 @Table(
         name = "tickets",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "user_id"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "user_id", "seat_no"}),
+        indexes = {
+                @Index(name = "idx_tickets_post_updated", columnList = "post_id, updated_at"),
+                // analytics reconciliation scans recent issues / check-ins across all events
+                @Index(name = "idx_tickets_created", columnList = "created_at"),
+                @Index(name = "idx_tickets_used", columnList = "used_at")
+        }
 )
 public class Ticket {
 
@@ -32,6 +38,10 @@ public class Ticket {
     @JoinColumn(name = "user_id")
     private User user;
 
+    // 0 = the buyer's own ticket; group purchases add seats 1..N-1 for the same buyer
+    @Column(name = "seat_no", nullable = false)
+    private int seatNo;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private TicketStatus status;
@@ -41,6 +51,10 @@ public class Ticket {
 
     private LocalDateTime usedAt;
 
+    // bumped on issue and on every status change; scanner apps sync deltas by it
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
 
     @Column(name = "payment_intent_id", unique = true)
     private String paymentIntentId;
@@ -54,8 +68,14 @@ public class Ticket {
     @PrePersist
     void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
         if (status == null) status = TicketStatus.ACTIVE;
         if (paymentStatus == null) paymentStatus = "FREE";
     }
 
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
 }
@@ -0,0 +1,25 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * High-water mark of a ticket code node: codes were only ever issued for seconds up to
+ * {@code reservedUntil} (seconds since the code epoch), so a restarted node resumes above it
+ * even when the clock went backwards meanwhile.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "ticket_code_nodes")
+public class TicketCodeNode {
+
+    @Id
+    @Column(name = "node_id")
+    private int nodeId;
+
+    @Column(name = "reserved_until", nullable = false)
+    private long reservedUntil;
+}
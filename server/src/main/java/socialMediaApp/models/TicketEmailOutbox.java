@@ -0,0 +1,58 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import socialMediaApp.models.enums.EmailOutboxStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A ticket email to send, written in the same transaction that issued the ticket(s).
+ * With {@code ticket_id} set it is a single-ticket email; without it, one message with
+ * every ticket the user holds for the event (group booking).
+ * {@code next_attempt_at} is the retry time while PENDING and the lease end while SENDING.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "ticket_email_outbox",
+        indexes = {
+                @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+        }
+)
+public class TicketEmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "post_id", nullable = false)
+    private int postId;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "ticket_id")
+    private Integer ticketId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private EmailOutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
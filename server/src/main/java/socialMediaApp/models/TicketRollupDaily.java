@@ -0,0 +1,36 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Daily sums of {@link TicketRollupHourly}; what the organizer dashboard reads. */
+@Getter
+@Setter
+@Entity
+@Table(name = "ticket_rollup_daily",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "day"}))
+public class TicketRollupDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "post_id", nullable = false)
+    private int postId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "sold", nullable = false)
+    private long sold;
+
+    @Column(name = "used", nullable = false)
+    private long used;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,40 @@
+package socialMediaApp.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Tickets sold / used and paid revenue per event per clock hour. Kept current by
+ * {@code TicketRollupService} (buffered increments) and corrected by its reconciliation pass.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "ticket_rollup_hourly",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "bucket_start"}),
+        indexes = @Index(name = "idx_rollup_hourly_bucket", columnList = "bucket_start"))
+public class TicketRollupHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "post_id", nullable = false)
+    private int postId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sold", nullable = false)
+    private long sold;
+
+    @Column(name = "used", nullable = false)
+    private long used;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
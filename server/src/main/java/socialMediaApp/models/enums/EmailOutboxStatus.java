@@ -0,0 +1,8 @@
+package socialMediaApp.models.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
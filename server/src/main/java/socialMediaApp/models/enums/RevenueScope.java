@@ -0,0 +1,6 @@
+package socialMediaApp.models.enums;
+
+public enum RevenueScope {
+    EVENT,
+    ORGANIZER
+}
@@ -0,0 +1,8 @@
+package socialMediaApp.models.enums;
+
+public enum SeatHoldStatus {
+    ACTIVE,
+    CONVERTED,
+    EXPIRED,
+    RELEASED
+}
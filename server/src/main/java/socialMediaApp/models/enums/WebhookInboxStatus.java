@@ -0,0 +1,8 @@
+package socialMediaApp.models.enums;
+
+public enum WebhookInboxStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED
+}
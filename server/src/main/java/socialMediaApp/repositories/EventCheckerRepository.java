@@ -2,6 +2,8 @@ package socialMediaApp.repositories;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import socialMediaApp.models.EventChecker;
 
 import java.util.List;
@@ -18,4 +20,7 @@ public interface EventCheckerRepository extends JpaRepository<EventChecker, Inte
 
     @EntityGraph(attributePaths = {"user"})
     List<EventChecker> findAllByPost_IdOrderByCreatedAtDesc(int postId);
+
+    @Query("select ec.user.id from EventChecker ec where ec.post.id = :postId")
+    List<Integer> findUserIdsByPostId(@Param("postId") int postId);
 }
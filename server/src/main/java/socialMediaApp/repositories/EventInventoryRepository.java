@@ -0,0 +1,55 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.EventInventory;
+
+import java.time.LocalDateTime;
+
+public interface EventInventoryRepository extends JpaRepository<EventInventory, Integer> {
+
+    // single conditional UPDATE: row lock + check + increment in one statement
+    @Modifying
+    @Query("""
+        update EventInventory i
+        set i.sold = i.sold + :qty, i.capacity = :capacity, i.updatedAt = :now
+        where i.postId = :postId and i.sold + :qty <= :capacity
+    """)
+    int tryReserve(@Param("postId") int postId,
+                   @Param("qty") int qty,
+                   @Param("capacity") int capacity,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+        update EventInventory i
+        set i.sold = i.sold - :qty, i.updatedAt = :now
+        where i.postId = :postId and i.sold >= :qty
+    """)
+    int release(@Param("postId") int postId,
+                @Param("qty") int qty,
+                @Param("now") LocalDateTime now);
+
+    // lazily seeds the counter for events that were selling before inventory rows existed
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO event_inventory (post_id, capacity, sold, shards, updated_at)
+        SELECT :postId, :capacity, COUNT(*), 1, NOW() FROM tickets WHERE post_id = :postId
+    """, nativeQuery = true)
+    int initIfAbsent(@Param("postId") int postId, @Param("capacity") int capacity);
+
+    // header row of a sharded event; seats themselves are seeded into event_inventory_shards
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO event_inventory (post_id, capacity, sold, shards, updated_at)
+        VALUES (:postId, :capacity, 0, :shards, NOW())
+    """, nativeQuery = true)
+    int initShardedIfAbsent(@Param("postId") int postId,
+                            @Param("capacity") int capacity,
+                            @Param("shards") int shards);
+
+    @Query(value = "SELECT COUNT(*) FROM tickets WHERE post_id = :postId", nativeQuery = true)
+    int countIssued(@Param("postId") int postId);
+}
@@ -0,0 +1,41 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.EventInventoryShard;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventInventoryShardRepository extends JpaRepository<EventInventoryShard, Long> {
+
+    @Modifying
+    @Query("""
+        update EventInventoryShard s
+        set s.sold = s.sold + :qty
+        where s.postId = :postId and s.slot = :slot and s.sold + :qty <= s.capacity
+    """)
+    int tryReserve(@Param("postId") int postId, @Param("slot") int slot, @Param("qty") int qty);
+
+    @Modifying
+    @Query("""
+        update EventInventoryShard s
+        set s.sold = s.sold - :qty
+        where s.postId = :postId and s.slot = :slot and s.sold >= :qty
+    """)
+    int release(@Param("postId") int postId, @Param("slot") int slot, @Param("qty") int qty);
+
+    // locks every slot of the event; only used when a slot drains and capacity must move
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<EventInventoryShard> findAllByPostIdOrderBySlotAsc(int postId);
+
+    @Query("select coalesce(sum(s.capacity - s.sold), 0) from EventInventoryShard s where s.postId = :postId")
+    long sumRemaining(@Param("postId") int postId);
+
+    @Query("select s.postId, sum(s.capacity - s.sold) from EventInventoryShard s where s.postId in :postIds group by s.postId")
+    List<Object[]> sumRemainingByPostIds(@Param("postIds") Collection<Integer> postIds);
+}
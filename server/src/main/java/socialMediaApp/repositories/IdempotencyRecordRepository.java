@@ -0,0 +1,43 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // 1 = this request owns the key, 0 = someone used it before (or is using it right now)
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO idempotency_keys (id, fingerprint, status, created_at, expires_at)
+        VALUES (:id, :fingerprint, 'IN_PROGRESS', :now, :expiresAt)
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("fingerprint") String fingerprint,
+                       @Param("now") LocalDateTime now,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("""
+        update IdempotencyRecord r
+        set r.status = socialMediaApp.models.enums.IdempotencyStatus.DONE,
+            r.responseStatus = :status, r.responseBody = :body, r.expiresAt = :expiresAt
+        where r.id = :id
+    """)
+    int complete(@Param("id") String id,
+                 @Param("status") int status,
+                 @Param("body") String body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.expiresAt < :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
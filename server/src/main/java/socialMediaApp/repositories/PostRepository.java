@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import socialMediaApp.models.Post;
 import socialMediaApp.models.enums.EventStatus;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PostRepository extends JpaRepository<Post, Integer> {
@@ -23,6 +24,13 @@ public interface PostRepository extends JpaRepository<Post, Integer> {
 
     List<Post> findAllByStatusIn(List<EventStatus> statuses, Sort sort);
 
+    /** Events whose door check-in window ([startAt - openBefore, endAt + closeAfter]) may be open. */
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.status = :status AND p.startAt <= :opensBy " +
+            "AND COALESCE(p.endAt, p.startAt) >= :closedAfter")
+    List<Post> findCheckInCandidates(@Param("status") EventStatus status,
+                                     @Param("opensBy") LocalDateTime opensBy,
+                                     @Param("closedAfter") LocalDateTime closedAfter);
+
     List<Post> findAllByUserIdInAndStatusIn(
             List<Integer> userIds,
             List<EventStatus> statuses,
@@ -0,0 +1,64 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.RevenueLedgerEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevenueLedgerRepository extends JpaRepository<RevenueLedgerEntry, Long> {
+
+    // one entry per PAID ticket the buyer holds for the event; seat 0 also carries :firstSeatExtra
+    // (what an even split could not place). Tickets already in the ledger are skipped, and the
+    // return value counts only the new entries
+    @Modifying
+    @Query(value = """
+        INSERT INTO revenue_ledger (ticket_id, post_id, organizer_id, user_id, amount, currency,
+                                    payment_intent_id, checkout_session_id, created_at)
+        SELECT t.id, t.post_id, :organizerId, t.user_id,
+               :amount + CASE WHEN t.seat_no = 0 THEN :firstSeatExtra ELSE 0 END,
+               :currency, :paymentIntentId, :sessionId, :now
+        FROM tickets t
+        WHERE t.post_id = :postId AND t.user_id = :userId AND t.payment_status = 'PAID'
+        ON DUPLICATE KEY UPDATE revenue_ledger.id = revenue_ledger.id
+    """, nativeQuery = true)
+    int appendForBuyer(@Param("postId") int postId,
+                       @Param("userId") int userId,
+                       @Param("organizerId") int organizerId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("firstSeatExtra") BigDecimal firstSeatExtra,
+                       @Param("currency") String currency,
+                       @Param("paymentIntentId") String paymentIntentId,
+                       @Param("sessionId") String sessionId,
+                       @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT COUNT(*) FROM tickets WHERE post_id = :postId AND user_id = :userId AND payment_status = 'PAID'",
+            nativeQuery = true)
+    int countPaidTickets(@Param("postId") int postId, @Param("userId") int userId);
+
+    // PAID tickets sold before the ledger existed, at the event's current price
+    @Modifying
+    @Query(value = """
+        INSERT INTO revenue_ledger (ticket_id, post_id, organizer_id, user_id, amount, currency,
+                                    payment_intent_id, checkout_session_id, created_at)
+        SELECT t.id, t.post_id, p.user_id, t.user_id, p.price, UPPER(COALESCE(p.currency, :defaultCurrency)),
+               t.payment_intent_id, t.checkout_session_id, t.created_at
+        FROM tickets t JOIN posts p ON p.id = t.post_id
+        WHERE t.payment_status = 'PAID' AND p.price IS NOT NULL
+        ON DUPLICATE KEY UPDATE revenue_ledger.id = revenue_ledger.id
+    """, nativeQuery = true)
+    int backfillFromTickets(@Param("defaultCurrency") String defaultCurrency);
+
+    // [post_id, "yyyy-MM-dd HH:00:00", amount] for the rollup reconciliation
+    @Query(value = """
+        SELECT l.post_id, DATE_FORMAT(l.created_at, '%Y-%m-%d %H:00:00') AS bucket, SUM(l.amount)
+        FROM revenue_ledger l
+        WHERE l.created_at >= :from
+        GROUP BY l.post_id, bucket
+    """, nativeQuery = true)
+    List<Object[]> revenueByHourSince(@Param("from") LocalDateTime from);
+}
@@ -0,0 +1,47 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.RevenueSummary;
+import socialMediaApp.models.enums.RevenueScope;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevenueSummaryRepository extends JpaRepository<RevenueSummary, Long> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO revenue_summary (scope, scope_id, currency, amount, tickets, updated_at)
+        VALUES (:scope, :scopeId, :currency, :amount, :tickets, :now)
+        ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), tickets = tickets + VALUES(tickets),
+                                updated_at = VALUES(updated_at)
+    """, nativeQuery = true)
+    int add(@Param("scope") String scope,
+            @Param("scopeId") int scopeId,
+            @Param("currency") String currency,
+            @Param("amount") BigDecimal amount,
+            @Param("tickets") long tickets,
+            @Param("now") LocalDateTime now);
+
+    List<RevenueSummary> findAllByScopeAndScopeIdOrderByCurrencyAsc(RevenueScope scope, int scopeId);
+
+    // rebuilds every summary from the ledger (after a backfill)
+    @Modifying
+    @Query(value = """
+        INSERT INTO revenue_summary (scope, scope_id, currency, amount, tickets, updated_at)
+        SELECT s.scope, s.scope_id, s.currency, s.amount, s.tickets, :now
+        FROM (
+            SELECT 'EVENT' AS scope, l.post_id AS scope_id, l.currency, SUM(l.amount) AS amount, COUNT(*) AS tickets
+            FROM revenue_ledger l GROUP BY l.post_id, l.currency
+            UNION ALL
+            SELECT 'ORGANIZER', l.organizer_id, l.currency, SUM(l.amount), COUNT(*)
+            FROM revenue_ledger l GROUP BY l.organizer_id, l.currency
+        ) s
+        ON DUPLICATE KEY UPDATE amount = VALUES(amount), tickets = VALUES(tickets), updated_at = VALUES(updated_at)
+    """, nativeQuery = true)
+    int rebuildFromLedger(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,72 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.SeatHold;
+import socialMediaApp.models.enums.SeatHoldStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
+
+    Optional<SeatHold> findFirstByPost_IdAndUser_IdAndStatusOrderByIdDesc(int postId, int userId, SeatHoldStatus status);
+
+    Optional<SeatHold> findByCheckoutSessionId(String checkoutSessionId);
+
+    @Query("""
+        select coalesce(sum(h.quantity), 0) from SeatHold h
+        where h.post.id = :postId and h.status = socialMediaApp.models.enums.SeatHoldStatus.ACTIVE
+    """)
+    long sumActiveQuantity(@Param("postId") int postId);
+
+    @Modifying
+    @Query("""
+        update SeatHold h
+        set h.checkoutSessionId = :sessionId, h.checkoutUrl = :url,
+            h.checkoutUnitAmount = :unitAmount, h.checkoutCurrency = :currency,
+            h.checkoutExpiresAt = :expiresAt
+        where h.id = :id
+    """)
+    int attachSession(@Param("id") long id,
+                      @Param("sessionId") String sessionId,
+                      @Param("url") String url,
+                      @Param("unitAmount") long unitAmount,
+                      @Param("currency") String currency,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+
+    // ACTIVE -> target; the affected-row count tells whether this caller won the transition
+    @Modifying
+    @Query("update SeatHold h set h.status = :target where h.id = :id and h.status = socialMediaApp.models.enums.SeatHoldStatus.ACTIVE")
+    int transitionFromActive(@Param("id") long id, @Param("target") SeatHoldStatus target);
+
+    // walks idx_seat_holds_status_expires
+    @Query("""
+        select h.id from SeatHold h
+        where h.status = socialMediaApp.models.enums.SeatHoldStatus.ACTIVE and h.expiresAt < :cutoff
+        order by h.expiresAt
+    """)
+    List<Long> findExpiredIds(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Query("""
+        update SeatHold h set h.status = socialMediaApp.models.enums.SeatHoldStatus.EXPIRED, h.sweepId = :sweepId
+        where h.id in :ids and h.status = socialMediaApp.models.enums.SeatHoldStatus.ACTIVE
+    """)
+    int expire(@Param("ids") Collection<Long> ids, @Param("sweepId") String sweepId);
+
+    @Query("select h.post.id, sum(h.quantity) from SeatHold h where h.sweepId = :sweepId group by h.post.id")
+    List<Object[]> sumQuantityBySweep(@Param("sweepId") String sweepId);
+
+    @Query("""
+        select h.post.id, sum(h.quantity) from SeatHold h
+        where h.post.id in :postIds and h.status = socialMediaApp.models.enums.SeatHoldStatus.ACTIVE
+        group by h.post.id
+    """)
+    List<Object[]> sumActiveQuantityByPostIds(@Param("postIds") Collection<Integer> postIds);
+}
@@ -0,0 +1,73 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.StripeWebhookEvent;
+import socialMediaApp.models.enums.WebhookInboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, String> {
+
+    // 1 = new event, 0 = Stripe redelivered one we already have
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO stripe_webhook_inbox
+            (event_id, type, payload, signature, status, attempts, next_attempt_at, received_at)
+        VALUES (:eventId, :type, :payload, :signature, 'PENDING', 0, :now, :now)
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("type") String type,
+                       @Param("payload") String payload,
+                       @Param("signature") String signature,
+                       @Param("now") LocalDateTime now);
+
+    // a worker owns the row until leaseUntil; only one claimant can match
+    @Modifying
+    @Query("""
+        update StripeWebhookEvent e
+        set e.status = socialMediaApp.models.enums.WebhookInboxStatus.PROCESSING,
+            e.attempts = e.attempts + 1,
+            e.nextAttemptAt = :leaseUntil
+        where e.eventId = :eventId
+          and e.status in (socialMediaApp.models.enums.WebhookInboxStatus.PENDING,
+                           socialMediaApp.models.enums.WebhookInboxStatus.PROCESSING)
+          and e.nextAttemptAt <= :now
+    """)
+    int claim(@Param("eventId") String eventId,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+        update StripeWebhookEvent e
+        set e.status = socialMediaApp.models.enums.WebhookInboxStatus.DONE,
+            e.processedAt = :now, e.lastError = null
+        where e.eventId = :eventId
+    """)
+    int markDone(@Param("eventId") String eventId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+        update StripeWebhookEvent e
+        set e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error
+        where e.eventId = :eventId
+    """)
+    int markFailedAttempt(@Param("eventId") String eventId,
+                          @Param("status") WebhookInboxStatus status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("error") String error);
+
+    @Query("""
+        select e.eventId from StripeWebhookEvent e
+        where e.status in (socialMediaApp.models.enums.WebhookInboxStatus.PENDING,
+                           socialMediaApp.models.enums.WebhookInboxStatus.PROCESSING)
+          and e.nextAttemptAt <= :now
+        order by e.nextAttemptAt
+    """)
+    List<String> findDueIds(@Param("now") LocalDateTime now, Pageable page);
+}
@@ -0,0 +1,18 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.TicketCodeNode;
+
+public interface TicketCodeNodeRepository extends JpaRepository<TicketCodeNode, Integer> {
+
+    // only ever moves forward
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_code_nodes (node_id, reserved_until) VALUES (:nodeId, :until)
+        ON DUPLICATE KEY UPDATE reserved_until = GREATEST(reserved_until, VALUES(reserved_until))
+    """, nativeQuery = true)
+    int reserve(@Param("nodeId") int nodeId, @Param("until") long until);
+}
@@ -0,0 +1,63 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.TicketEmailOutbox;
+import socialMediaApp.models.enums.EmailOutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TicketEmailOutboxRepository extends JpaRepository<TicketEmailOutbox, Long> {
+
+    // a dispatcher thread owns the row until leaseUntil; only one claimant can match
+    @Modifying
+    @Query("""
+        update TicketEmailOutbox m
+        set m.status = socialMediaApp.models.enums.EmailOutboxStatus.SENDING,
+            m.attempts = m.attempts + 1,
+            m.nextAttemptAt = :leaseUntil
+        where m.id = :id
+          and m.status in (socialMediaApp.models.enums.EmailOutboxStatus.PENDING,
+                           socialMediaApp.models.enums.EmailOutboxStatus.SENDING)
+          and m.nextAttemptAt <= :now
+    """)
+    int claim(@Param("id") long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+        update TicketEmailOutbox m
+        set m.status = socialMediaApp.models.enums.EmailOutboxStatus.SENT,
+            m.sentAt = :now, m.lastError = null
+        where m.id = :id
+    """)
+    int markSent(@Param("id") long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+        update TicketEmailOutbox m
+        set m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error
+        where m.id = :id
+    """)
+    int markFailedAttempt(@Param("id") long id,
+                          @Param("status") EmailOutboxStatus status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("error") String error);
+
+    @Query("""
+        select m.id from TicketEmailOutbox m
+        where m.status in (socialMediaApp.models.enums.EmailOutboxStatus.PENDING,
+                           socialMediaApp.models.enums.EmailOutboxStatus.SENDING)
+          and m.nextAttemptAt <= :now
+        order by m.nextAttemptAt
+    """)
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable page);
+
+    long countByStatusIn(Collection<EmailOutboxStatus> statuses);
+}
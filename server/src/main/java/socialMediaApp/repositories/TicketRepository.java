@@ -1,7 +1,9 @@
 
 package socialMediaApp.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import socialMediaApp.models.Ticket;
@@ -12,10 +14,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface TicketRepository extends JpaRepository<Ticket, Integer> {
+public interface TicketRepository extends JpaRepository<Ticket, Integer>, TicketRepositoryCustom {
     boolean existsByPost_IdAndUser_Id(int postId, int userId);
 
-    Optional<Ticket> findByPost_IdAndUser_Id(int postId, int userId);
+    // the buyer's own seat; group purchases hold further seats under the same user
+    @Query("select t from Ticket t where t.post.id = :postId and t.user.id = :userId and t.seatNo = 0")
+    Optional<Ticket> findByPost_IdAndUser_Id(@Param("postId") int postId, @Param("userId") int userId);
+
+    @EntityGraph(attributePaths = {"post", "user"})
+    List<Ticket> findAllByPost_IdAndUser_IdOrderBySeatNoAsc(int postId, int userId);
 
     long countByPost_Id(int postId);
 
@@ -26,33 +33,43 @@ public interface TicketRepository extends JpaRepository<Ticket, Integer> {
 
     Optional<Ticket> findByCode(String code);
 
-    // daily sold per date (createdAt) since :from
+    @EntityGraph(attributePaths = {"post", "user"})
+    List<Ticket> findAllByCodeIn(Collection<String> codes);
+
+    // the affected-row count decides who wins when two gates scan the same code
+    @Modifying
     @Query("""
-        select function('date', t.createdAt) as day, count(t) as cnt
-        from Ticket t
-        where t.post.id = :postId and t.createdAt >= :from
-        group by function('date', t.createdAt)
-        order by function('date', t.createdAt)
+        update Ticket t
+        set t.status = socialMediaApp.models.enums.TicketStatus.USED, t.usedAt = :now, t.updatedAt = :now
+        where t.code = :code and t.post.id = :postId
+          and t.status = socialMediaApp.models.enums.TicketStatus.ACTIVE
     """)
-    List<Object[]> countDailyByPost(int postId, LocalDateTime from);
+    int markUsed(@Param("code") String code, @Param("postId") int postId, @Param("now") LocalDateTime now);
 
+    long countByPost_IdAndStatus(int postId, TicketStatus status);
 
+    long countByPost_IdAndStatusAndUsedAtBefore(int postId, TicketStatus status, LocalDateTime before);
 
-    long countByPost_IdAndStatus(int postId, TicketStatus status);
+    long countByPost_IdAndStatusInAndCreatedAtBefore(int postId, Collection<TicketStatus> statuses, LocalDateTime before);
 
     @Query("""
-        SELECT DATE(t.usedAt), COUNT(t)
-        FROM Ticket t
-        WHERE t.post.id = :postId
-          AND t.status = 'USED'
-          AND t.usedAt >= :from
-        GROUP BY DATE(t.usedAt)
-        ORDER BY DATE(t.usedAt)
+        select t.usedAt from Ticket t
+        where t.post.id = :postId and t.status = 'USED' and t.usedAt >= :from and t.usedAt < :until
     """)
-    List<Object[]> countDailyAttendance(
-            @Param("postId") int postId,
-            @Param("from") LocalDateTime from
-    );
+    List<LocalDateTime> findUsedAtBetween(@Param("postId") int postId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("until") LocalDateTime until);
+
+    // ["yyyy-MM-dd HH:mm:ss", count] per second with issued tickets
+    @Query(value = """
+        SELECT DATE_FORMAT(t.created_at, '%Y-%m-%d %H:%i:%s') AS sec, COUNT(*)
+        FROM tickets t
+        WHERE t.post_id = :postId AND t.created_at >= :from AND t.created_at < :until
+        GROUP BY sec
+    """, nativeQuery = true)
+    List<Object[]> countIssuedPerSecondBetween(@Param("postId") int postId,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("until") LocalDateTime until);
 
     boolean existsByPaymentIntentId(String paymentIntentId);
 
@@ -60,4 +77,10 @@ public interface TicketRepository extends JpaRepository<Ticket, Integer> {
 
     //new
     long countByPost_IdAndStatusIn(int postId, Collection<TicketStatus> statuses);
+
+    // [postId, count] for the events that have any matching ticket
+    @Query("select t.post.id, count(t) from Ticket t " +
+            "where t.post.id in :postIds and t.status in :statuses group by t.post.id")
+    List<Object[]> countByPostIdsAndStatusIn(@Param("postIds") Collection<Integer> postIds,
+                                             @Param("statuses") Collection<TicketStatus> statuses);
 }
@@ -0,0 +1,56 @@
+package socialMediaApp.repositories;
+
+import socialMediaApp.models.enums.TicketStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface TicketRepositoryCustom {
+
+    /** Slim row for the door-scanning index: no entity, no lazy loads. */
+    record CheckInRow(int ticketId, String code, TicketStatus status, int userId, String holderName) {}
+
+    /** One ticket of an export, holder included. */
+    record TicketExportRow(int ticketId, String code, int seatNo, TicketStatus status, String paymentStatus,
+                           LocalDateTime createdAt, LocalDateTime usedAt,
+                           int userId, String name, String lastName, String email) {}
+
+    /** One ticket holder of an export with how many tickets they hold and how many were used. */
+    record AttendeeExportRow(int userId, String name, String lastName, String email,
+                             int tickets, int used, LocalDateTime firstCheckIn) {}
+
+    /**
+     * Inserts one ticket per code as a single JDBC batch (seat numbers 0..n-1).
+     * Payment ids are unique columns, so only seat 0 carries them.
+     */
+    void insertGroup(int postId, int userId, List<String> codes,
+                     String paymentStatus, String paymentIntentId, String checkoutSessionId);
+
+    List<CheckInRow> findCheckInRows(int postId);
+
+    /** Tickets of the event issued or changed after {@code since} (by updated_at). */
+    List<CheckInRow> findCheckInRowsChangedSince(int postId, LocalDateTime since);
+
+    /**
+     * Marks tickets USED as one JDBC batch, only where they are still ACTIVE.
+     * Returns the per-row update counts (0 = someone else already changed the ticket).
+     */
+    int[] markUsedBatch(List<Integer> ticketIds, List<LocalDateTime> usedAt);
+
+    /**
+     * Same conditional UPDATE as {@code markUsed}, one batch entry per code, executed in list order.
+     * Returns the per-entry update counts (1 = this scan consumed the ticket).
+     */
+    int[] markUsedByCodes(int postId, List<String> codes, List<LocalDateTime> usedAt);
+
+    /**
+     * Streams the event's tickets in id order through a forward-only, read-only result set that
+     * the driver fetches row by row, so memory does not grow with the event. The connection is
+     * busy until {@code sink} has seen the last row.
+     */
+    void streamTickets(int postId, Consumer<TicketExportRow> sink);
+
+    /** Same as {@link #streamTickets}, one row per ticket holder. */
+    void streamAttendees(int postId, Consumer<AttendeeExportRow> sink);
+}
@@ -0,0 +1,193 @@
+package socialMediaApp.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import socialMediaApp.models.enums.TicketStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Spring Data picks this up as the TicketRepositoryCustom fragment (Impl suffix).
+// IDENTITY ids disable Hibernate batching, hence plain JDBC; rewriteBatchedStatements turns it into one INSERT.
+@RequiredArgsConstructor
+public class TicketRepositoryImpl implements TicketRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO tickets (code, post_id, user_id, seat_no, status, created_at, updated_at,
+                             payment_status, payment_intent_id, checkout_session_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private static final String CHECK_IN_SQL = """
+        SELECT t.id, t.code, t.status, t.user_id, u.name, u.last_name
+        FROM tickets t JOIN users u ON u.id = t.user_id
+        WHERE t.post_id = ?
+    """;
+
+    private static final String CHECK_IN_CHANGED_SQL = CHECK_IN_SQL + " AND t.updated_at > ?";
+
+    private static final String MARK_USED_SQL =
+            "UPDATE tickets SET status = 'USED', used_at = ?, updated_at = ? WHERE id = ? AND status = 'ACTIVE'";
+
+    private static final String MARK_USED_BY_CODE_SQL =
+            "UPDATE tickets SET status = 'USED', used_at = ?, updated_at = ? WHERE code = ? AND post_id = ? AND status = 'ACTIVE'";
+
+    private static final String EXPORT_TICKETS_SQL = """
+        SELECT t.id, t.code, t.seat_no, t.status, t.payment_status, t.created_at, t.used_at,
+               u.id, u.name, u.last_name, u.email
+        FROM tickets t JOIN users u ON u.id = t.user_id
+        WHERE t.post_id = ?
+        ORDER BY t.id
+    """;
+
+    private static final String EXPORT_ATTENDEES_SQL = """
+        SELECT u.id, u.name, u.last_name, u.email,
+               COUNT(*), SUM(t.status = 'USED'), MIN(t.used_at)
+        FROM tickets t JOIN users u ON u.id = t.user_id
+        WHERE t.post_id = ? AND t.status <> 'CANCELLED'
+        GROUP BY u.id, u.name, u.last_name, u.email
+        ORDER BY u.id
+    """;
+
+    private static final RowMapper<CheckInRow> CHECK_IN_ROW = (rs, n) -> new CheckInRow(
+            rs.getInt(1),
+            rs.getString(2),
+            TicketStatus.valueOf(rs.getString(3)),
+            rs.getInt(4),
+            rs.getString(5) + " " + rs.getString(6)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertGroup(int postId, int userId, List<String> codes,
+                            String paymentStatus, String paymentIntentId, String checkoutSessionId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int seat) throws SQLException {
+                ps.setString(1, codes.get(seat));
+                ps.setInt(2, postId);
+                ps.setInt(3, userId);
+                ps.setInt(4, seat);
+                ps.setString(5, TicketStatus.ACTIVE.name());
+                ps.setTimestamp(6, now);
+                ps.setTimestamp(7, now);
+                ps.setString(8, paymentStatus);
+                ps.setString(9, seat == 0 ? paymentIntentId : null);
+                ps.setString(10, seat == 0 ? checkoutSessionId : null);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return codes.size();
+            }
+        });
+    }
+
+    @Override
+    public List<CheckInRow> findCheckInRows(int postId) {
+        return jdbcTemplate.query(CHECK_IN_SQL, CHECK_IN_ROW, postId);
+    }
+
+    @Override
+    public List<CheckInRow> findCheckInRowsChangedSince(int postId, LocalDateTime since) {
+        return jdbcTemplate.query(CHECK_IN_CHANGED_SQL, CHECK_IN_ROW, postId, Timestamp.valueOf(since));
+    }
+
+    @Override
+    public int[] markUsedBatch(List<Integer> ticketIds, List<LocalDateTime> usedAt) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.batchUpdate(MARK_USED_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setTimestamp(1, Timestamp.valueOf(usedAt.get(i)));
+                ps.setTimestamp(2, now);
+                ps.setInt(3, ticketIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ticketIds.size();
+            }
+        });
+    }
+
+    @Override
+    public int[] markUsedByCodes(int postId, List<String> codes, List<LocalDateTime> usedAt) {
+        // updated_at is the sync clock, so it is the write time even for back-dated offline scans
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.batchUpdate(MARK_USED_BY_CODE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setTimestamp(1, Timestamp.valueOf(usedAt.get(i)));
+                ps.setTimestamp(2, now);
+                ps.setString(3, codes.get(i));
+                ps.setInt(4, postId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return codes.size();
+            }
+        });
+    }
+
+    @Override
+    public void streamTickets(int postId, Consumer<TicketExportRow> sink) {
+        jdbcTemplate.query(streaming(EXPORT_TICKETS_SQL, postId), rs -> {
+            sink.accept(new TicketExportRow(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getInt(3),
+                    TicketStatus.valueOf(rs.getString(4)),
+                    rs.getString(5),
+                    toLocal(rs, 6),
+                    toLocal(rs, 7),
+                    rs.getInt(8),
+                    rs.getString(9),
+                    rs.getString(10),
+                    rs.getString(11)));
+        });
+    }
+
+    @Override
+    public void streamAttendees(int postId, Consumer<AttendeeExportRow> sink) {
+        jdbcTemplate.query(streaming(EXPORT_ATTENDEES_SQL, postId), rs -> {
+            sink.accept(new AttendeeExportRow(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    rs.getInt(5),
+                    rs.getInt(6),
+                    toLocal(rs, 7)));
+        });
+    }
+
+    // Connector/J buffers whole result sets unless a forward-only, read-only statement asks for
+    // fetch size Integer.MIN_VALUE; then rows are read off the socket as the caller consumes them.
+    // (useCursorFetch would allow a positive fetch size but forces server-side prepared statements
+    // on every connection.)
+    private static PreparedStatementCreator streaming(String sql, int postId) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setInt(1, postId);
+            return ps;
+        };
+    }
+
+    private static LocalDateTime toLocal(ResultSet rs, int column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+}
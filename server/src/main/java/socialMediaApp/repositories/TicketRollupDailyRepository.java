@@ -0,0 +1,82 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.TicketRollupDaily;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketRollupDailyRepository extends JpaRepository<TicketRollupDaily, Long> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_rollup_daily (post_id, day, sold, used, revenue)
+        VALUES (:postId, :day, :sold, :used, :revenue)
+        ON DUPLICATE KEY UPDATE sold = sold + VALUES(sold), used = used + VALUES(used),
+                                revenue = revenue + VALUES(revenue)
+    """, nativeQuery = true)
+    int increment(@Param("postId") int postId,
+                  @Param("day") LocalDate day,
+                  @Param("sold") long sold,
+                  @Param("used") long used,
+                  @Param("revenue") BigDecimal revenue);
+
+    List<TicketRollupDaily> findAllByPostIdAndDayGreaterThanEqualOrderByDayAsc(int postId, LocalDate from);
+
+    // [sold, used, revenue] over the event's whole history, one row per day
+    @Query("""
+        select coalesce(sum(d.sold), 0), coalesce(sum(d.used), 0), coalesce(sum(d.revenue), 0)
+        from TicketRollupDaily d where d.postId = :postId
+    """)
+    List<Object[]> totals(@Param("postId") int postId);
+
+    // [post_id, title, capacity, price, currency, sold (all time), sold, used, revenue (in range)]
+    // for every event of an owner
+    @Query(value = """
+        SELECT p.id, p.title, p.capacity, p.price, UPPER(COALESCE(p.currency, :defaultCurrency)),
+               COALESCE(SUM(d.sold), 0),
+               COALESCE(SUM(CASE WHEN d.day BETWEEN :from AND :to THEN d.sold END), 0),
+               COALESCE(SUM(CASE WHEN d.day BETWEEN :from AND :to THEN d.used END), 0),
+               COALESCE(SUM(CASE WHEN d.day BETWEEN :from AND :to THEN d.revenue END), 0)
+        FROM posts p
+        LEFT JOIN ticket_rollup_daily d ON d.post_id = p.id
+        WHERE p.user_id = :ownerId
+        GROUP BY p.id, p.title, p.capacity, p.price, p.currency
+        ORDER BY p.id DESC
+    """, nativeQuery = true)
+    List<Object[]> totalsByOwner(@Param("ownerId") int ownerId,
+                                 @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to,
+                                 @Param("defaultCurrency") String defaultCurrency);
+
+    // [day, currency, sold, used, revenue] summed over all events of an owner, one row per day and currency
+    @Query(value = """
+        SELECT d.day, UPPER(COALESCE(p.currency, :defaultCurrency)) AS cur, SUM(d.sold), SUM(d.used), SUM(d.revenue)
+        FROM ticket_rollup_daily d
+        JOIN posts p ON p.id = d.post_id
+        WHERE p.user_id = :ownerId AND d.day BETWEEN :from AND :to
+        GROUP BY d.day, cur
+        ORDER BY d.day, cur
+    """, nativeQuery = true)
+    List<Object[]> dailyByOwner(@Param("ownerId") int ownerId,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to,
+                                @Param("defaultCurrency") String defaultCurrency);
+
+    // re-sums whole days from the (already reconciled) hourly buckets
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_rollup_daily (post_id, day, sold, used, revenue)
+        SELECT h.post_id, DATE(h.bucket_start), SUM(h.sold), SUM(h.used), SUM(h.revenue)
+        FROM ticket_rollup_hourly h
+        WHERE h.bucket_start >= :from
+        GROUP BY h.post_id, DATE(h.bucket_start)
+        ON DUPLICATE KEY UPDATE sold = VALUES(sold), used = VALUES(used), revenue = VALUES(revenue)
+    """, nativeQuery = true)
+    int recomputeFromHourly(@Param("from") LocalDateTime from);
+}
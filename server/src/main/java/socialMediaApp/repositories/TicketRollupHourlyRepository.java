@@ -0,0 +1,65 @@
+package socialMediaApp.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import socialMediaApp.models.TicketRollupHourly;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketRollupHourlyRepository extends JpaRepository<TicketRollupHourly, Long> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_rollup_hourly (post_id, bucket_start, sold, used, revenue)
+        VALUES (:postId, :bucket, :sold, :used, :revenue)
+        ON DUPLICATE KEY UPDATE sold = sold + VALUES(sold), used = used + VALUES(used),
+                                revenue = revenue + VALUES(revenue)
+    """, nativeQuery = true)
+    int increment(@Param("postId") int postId,
+                  @Param("bucket") LocalDateTime bucket,
+                  @Param("sold") long sold,
+                  @Param("used") long used,
+                  @Param("revenue") BigDecimal revenue);
+
+    List<TicketRollupHourly> findAllByPostIdAndBucketStartGreaterThanEqualOrderByBucketStartAsc(int postId, LocalDateTime from);
+
+    // ---------- Reconciliation (rewrites every bucket from :from on) ----------
+
+    @Modifying
+    @Query(value = "UPDATE ticket_rollup_hourly SET sold = 0, used = 0, revenue = 0 WHERE bucket_start >= :from",
+            nativeQuery = true)
+    int resetFrom(@Param("from") LocalDateTime from);
+
+    // plain (non-locking) reads, so reconciliation never blocks ticket inserts
+    @Query(value = """
+        SELECT t.post_id, DATE_FORMAT(t.created_at, '%Y-%m-%d %H:00:00') AS bucket, COUNT(*)
+        FROM tickets t
+        WHERE t.created_at >= :from
+        GROUP BY t.post_id, bucket
+    """, nativeQuery = true)
+    List<Object[]> soldByHourSince(@Param("from") LocalDateTime from);
+
+    @Query(value = """
+        SELECT t.post_id, DATE_FORMAT(t.used_at, '%Y-%m-%d %H:00:00') AS bucket, COUNT(*)
+        FROM tickets t
+        WHERE t.status = 'USED' AND t.used_at >= :from
+        GROUP BY t.post_id, bucket
+    """, nativeQuery = true)
+    List<Object[]> usedByHourSince(@Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_rollup_hourly (post_id, bucket_start, sold, used, revenue)
+        VALUES (:postId, :bucket, :sold, :used, :revenue)
+        ON DUPLICATE KEY UPDATE sold = VALUES(sold), used = VALUES(used), revenue = VALUES(revenue)
+    """, nativeQuery = true)
+    int put(@Param("postId") int postId,
+            @Param("bucket") LocalDateTime bucket,
+            @Param("sold") long sold,
+            @Param("used") long used,
+            @Param("revenue") BigDecimal revenue);
+}
@@ -0,0 +1,19 @@
+package socialMediaApp.requests;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class TicketBatchScanRequest {
+    private int postId;
+    private List<Scan> scans;
+
+    @Data
+    public static class Scan {
+        private String code;
+        private LocalDateTime scannedAt;
+        private String deviceId;
+    }
+}
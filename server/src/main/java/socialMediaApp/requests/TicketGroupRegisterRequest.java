@@ -0,0 +1,8 @@
+package socialMediaApp.requests;
+
+import lombok.Data;
+
+@Data
+public class TicketGroupRegisterRequest {
+    private int quantity;
+}
@@ -0,0 +1,20 @@
+package socialMediaApp.responses.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MailMetricsResponse {
+    private long sent;
+    private long failed;
+    private double sentPerSecond;   // average over the last minute
+
+    private int queued;             // waiting in memory for a sender thread
+    private long outboxPending;     // not sent yet, including retries that are backing off
+    private long outboxDead;
+
+    private int smtpConnections;
+    private int smtpIdleConnections;
+    private long smtpConnectionsOpened;
+}
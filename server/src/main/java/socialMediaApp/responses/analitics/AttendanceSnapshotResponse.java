@@ -0,0 +1,31 @@
+package socialMediaApp.responses.analitics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class AttendanceSnapshotResponse {
+    private int postId;
+
+    private long ticketsIssued;
+    private long checkedIn;
+    // issued tickets still to arrive
+    private long remaining;
+
+    // last 60 minutes, oldest first; minutes without arrivals are included as 0
+    private List<MinuteStat> arrivalsPerMinute;
+
+    private LocalDateTime at;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MinuteStat {
+        private String minute; // HH:mm
+        private long count;
+    }
+}
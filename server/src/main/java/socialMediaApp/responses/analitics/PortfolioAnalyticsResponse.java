@@ -0,0 +1,47 @@
+package socialMediaApp.responses.analitics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class PortfolioAnalyticsResponse {
+    private String from;
+    private String to;
+
+    private long ticketsSoldTotal;
+    private long ticketsUsedTotal;
+    private Map<String, BigDecimal> revenue; // by currency, in range
+    private Map<String, BigDecimal> revenueAllTime;
+
+    private List<EventStat> events;
+    private List<DailyStat> byDay;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventStat {
+        private int postId;
+        private String title;
+        private long ticketsSold;
+        private long ticketsUsed;
+        private Integer capacity;
+        private Long remaining;
+        private BigDecimal revenue;
+        private String currency;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyStat {
+        private String day;
+        private long sold;
+        private long used;
+        private Map<String, BigDecimal> revenue; // by currency
+    }
+}
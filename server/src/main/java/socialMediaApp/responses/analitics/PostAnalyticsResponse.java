@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data @NoArgsConstructor @AllArgsConstructor
@@ -13,7 +14,8 @@ public class PostAnalyticsResponse {
 
     private Integer capacity;
     private Long remaining;
-    private Double revenue;
+    private BigDecimal revenue;
+    private String currency;
 
     private List<DailyStat> salesByDay;
     private List<DailyStat> attendanceByDay;
@@ -25,4 +27,13 @@ public class PostAnalyticsResponse {
         private String day;
         private long count;
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HourlyStat {
+        private String hour;
+        private long sold;
+        private long used;
+    }
 }
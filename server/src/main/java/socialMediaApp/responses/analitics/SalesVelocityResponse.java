@@ -0,0 +1,37 @@
+package socialMediaApp.responses.analitics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class SalesVelocityResponse {
+    private int postId;
+
+    private double ticketsPerMinute;          // over the last rateMinutes
+    private double previousTicketsPerMinute;  // over the rateMinutes before that
+    private double acceleration;              // tickets/min per minute
+    private int rateMinutes;
+
+    private long soldInWindow;
+    private int windowMinutes;
+
+    private Integer remaining;
+    private boolean soldOut;
+    private LocalDateTime projectedSellOutAt;          // at the current rate
+    private LocalDateTime projectedSellOutAtWithTrend; // if the acceleration holds
+
+    private List<MinuteStat> perMinute;
+    private LocalDateTime at;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MinuteStat {
+        private String minute;
+        private long sold;
+    }
+}
@@ -0,0 +1,20 @@
+package socialMediaApp.responses.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class QueueStatusResponse {
+    private int postId;
+
+    // false when the event is not behind the waiting room right now
+    private boolean active;
+
+    private String token;
+    private long position;
+    private long admittedUpTo;
+    private boolean admitted;
+
+    private long estimatedWaitSeconds;
+}
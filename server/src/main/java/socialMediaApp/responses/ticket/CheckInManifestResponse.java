@@ -0,0 +1,31 @@
+package socialMediaApp.responses.ticket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import socialMediaApp.models.enums.TicketStatus;
+
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CheckInManifestResponse {
+    private int postId;
+
+    // pass back as ?since= to get only what changed afterwards
+    private long version;
+
+    // false for a delta: entries replace the device's entries with the same hash
+    private boolean full;
+
+    // devices hash a scanned code as hex(HMAC-SHA256(base64-decoded key, CODE)[0..8])
+    private String hashKey;
+
+    private List<Entry> entries;
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Entry {
+        private String hash;
+        private TicketStatus status;
+        private String initials;
+    }
+}
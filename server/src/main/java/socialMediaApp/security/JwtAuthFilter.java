@@ -26,7 +26,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
-        return "/api/payments/webhook".equals(path);
+        return "/api/payments/webhook".equals(path)
+                || (path.startsWith("/api/queue/") && path.endsWith("/status"));
     }
 
 
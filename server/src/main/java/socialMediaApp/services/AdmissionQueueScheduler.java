@@ -0,0 +1,17 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AdmissionQueueScheduler {
+
+    private final AdmissionQueueService admissionQueueService;
+
+    @Scheduled(fixedDelayString = "${app.queue.evictMillis:60000}")
+    public void evictClosed() {
+        admissionQueueService.evictClosed();
+    }
+}
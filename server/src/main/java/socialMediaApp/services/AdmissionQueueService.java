@@ -0,0 +1,247 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.responses.queue.QueueStatusResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room for on-sale moments.
+ *
+ * While an event is inside its queue window (salesStartAt .. + windowMinutes) buyers first
+ * join the queue and get a signed token with their position. Positions are let through at
+ * a fixed rate, so the admitted watermark is a pure function of time: checking a token or
+ * answering a status poll needs no DB access. Queue state lives in this instance's memory,
+ * so with several instances the configured rate applies per instance; {@link #evictClosed}
+ * drops it once the window (plus the admission TTL) is over.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdmissionQueueService {
+
+    private static final String ERR_TOKEN_REQUIRED = "QUEUE_TOKEN_REQUIRED";
+    private static final String ERR_TOKEN_INVALID = "QUEUE_TOKEN_INVALID";
+    private static final String ERR_NOT_ADMITTED = "QUEUE_NOT_ADMITTED";
+    private static final String ERR_TOKEN_EXPIRED = "QUEUE_TOKEN_EXPIRED";
+
+    private static final long WINDOW_REFRESH_MILLIS = 60_000;
+
+    private final PostService postService;
+
+    @Value("${app.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.queue.admitPerSecond:20}")
+    private double admitPerSecond;
+
+    @Value("${app.queue.burst:100}")
+    private long burst;
+
+    @Value("${app.queue.windowMinutes:30}")
+    private long windowMinutes;
+
+    @Value("${app.queue.admissionTtlMinutes:10}")
+    private long admissionTtlMinutes;
+
+    @Value("${app.queue.secret:${jwt.secret}}")
+    private String secret;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Integer, EventQueue> queues = new ConcurrentHashMap<>();
+
+    // ---------- Queries ----------
+
+    /** Status poll: verifies the token signature only, never touches the DB. */
+    public QueueStatusResponse status(int postId, String token) {
+        QueueToken t = parse(token);
+        if (t == null || t.postId() != postId) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, ERR_TOKEN_INVALID);
+        }
+        EventQueue q = queues.get(postId);
+        if (q == null || !q.isActive(clock.millis())) {
+            return new QueueStatusResponse(postId, false, token, t.position(), t.position(), true, 0);
+        }
+        return toStatus(postId, q, t.position(), token);
+    }
+
+    // ---------- Commands ----------
+
+    /** Joins (or re-joins) the queue; the same buyer keeps their place until the admission expires. */
+    public QueueStatusResponse join(int postId, String subject) {
+        EventQueue q = queueFor(postId);
+        long now = clock.millis();
+        if (!q.isActive(now)) {
+            return new QueueStatusResponse(postId, false, null, 0, 0, true, 0);
+        }
+
+        String sub = subjectHash(subject);
+        long position = q.positions.compute(sub, (k, old) ->
+                old == null || isExpired(q, old, now) ? q.issued.incrementAndGet() : old);
+
+        return toStatus(postId, q, position, sign(postId, position, sub));
+    }
+
+    /** Gate in front of ticket registration / checkout. No-op when the event is not queued. */
+    public void requireAdmitted(int postId, String subject, String token) {
+        EventQueue q = queueFor(postId);
+        long now = clock.millis();
+        if (!q.isActive(now)) return;
+
+        if (token == null || token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, ERR_TOKEN_REQUIRED);
+        }
+        QueueToken t = parse(token);
+        if (t == null || t.postId() != postId || !t.sub().equals(subjectHash(subject))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, ERR_TOKEN_INVALID);
+        }
+        if (t.position() > q.admittedUpTo(now)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, ERR_NOT_ADMITTED);
+        }
+        if (isExpired(q, t.position(), now)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, ERR_TOKEN_EXPIRED);
+        }
+    }
+
+    /**
+     * Forgets queues whose window closed more than one admission TTL ago (no token can be used
+     * any more), and cached lookups of events that never queue once they are due a refresh.
+     * Returns the number of events dropped.
+     */
+    public int evictClosed() {
+        long now = clock.millis();
+        long ttl = admissionTtlMinutes * 60_000;
+        int before = queues.size();
+        queues.values().removeIf(q -> q.opensAt == Long.MAX_VALUE
+                ? now - q.loadedAt >= WINDOW_REFRESH_MILLIS
+                : now - q.closesAt >= ttl);
+        return before - queues.size();
+    }
+
+    public int trackedEvents() {
+        return queues.size();
+    }
+
+    // ---------- Helpers ----------
+
+    private EventQueue queueFor(int postId) {
+        long now = clock.millis();
+        EventQueue q = queues.get(postId);
+        if (q != null && now - q.loadedAt < WINDOW_REFRESH_MILLIS) return q;
+
+        Post post = postService.getById(postId);
+        long opensAt = post.getSalesStartAt() == null
+                ? Long.MAX_VALUE // nothing to protect without an on-sale moment
+                : post.getSalesStartAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long closesAt = opensAt == Long.MAX_VALUE ? Long.MAX_VALUE : opensAt + windowMinutes * 60_000;
+
+        return queues.compute(postId, (k, old) -> {
+            if (old != null && old.opensAt == opensAt) {
+                old.closesAt = closesAt;
+                old.loadedAt = now;
+                return old;
+            }
+            return new EventQueue(opensAt, closesAt, now);
+        });
+    }
+
+    private QueueStatusResponse toStatus(int postId, EventQueue q, long position, String token) {
+        long now = clock.millis();
+        long upTo = q.admittedUpTo(now);
+        boolean admitted = position <= upTo;
+        long wait = admitted ? 0 : (long) Math.ceil((position - upTo) / admitPerSecond);
+        return new QueueStatusResponse(postId, true, token, position, upTo, admitted, wait);
+    }
+
+    private boolean isExpired(EventQueue q, long position, long now) {
+        long admittedAt = q.admittedAt(position);
+        return admittedAt <= now && now - admittedAt > admissionTtlMinutes * 60_000;
+    }
+
+    private String sign(int postId, long position, String sub) {
+        String body = postId + "." + position + "." + sub;
+        return body + "." + hmac(body);
+    }
+
+    private QueueToken parse(String token) {
+        if (token == null) return null;
+        String[] parts = token.split("\\.");
+        if (parts.length != 4) return null;
+        String body = parts[0] + "." + parts[1] + "." + parts[2];
+        if (!MessageDigest.isEqual(hmac(body).getBytes(StandardCharsets.US_ASCII),
+                parts[3].getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        try {
+            return new QueueToken(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String hmac(String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] sig = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(sig, 16));
+        } catch (Exception e) {
+            throw new IllegalStateException("Queue token signing failed", e);
+        }
+    }
+
+    private static String subjectHash(String subject) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(subject).toLowerCase().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(d, 9));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record QueueToken(int postId, long position, String sub) {}
+
+    private final class EventQueue {
+        final long opensAt;
+        volatile long closesAt;
+        volatile long loadedAt;
+        final AtomicLong issued = new AtomicLong();
+        final Map<String, Long> positions = new ConcurrentHashMap<>();
+
+        EventQueue(long opensAt, long closesAt, long loadedAt) {
+            this.opensAt = opensAt;
+            this.closesAt = closesAt;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isActive(long now) {
+            return enabled && opensAt != Long.MAX_VALUE && now < closesAt;
+        }
+
+        long admittedUpTo(long now) {
+            if (now < opensAt) return 0;
+            return burst + (long) ((now - opensAt) / 1000.0 * admitPerSecond);
+        }
+
+        long admittedAt(long position) {
+            if (position <= burst) return opensAt;
+            return opensAt + (long) Math.ceil((position - burst) / admitPerSecond * 1000.0);
+        }
+    }
+}
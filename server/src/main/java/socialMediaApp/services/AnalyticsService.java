@@ -1,55 +1,73 @@
 package socialMediaApp.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 import socialMediaApp.models.Post;
-import socialMediaApp.models.enums.TicketStatus;
-import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.models.TicketRollupDaily;
+import socialMediaApp.models.TicketRollupHourly;
+import socialMediaApp.responses.analitics.PortfolioAnalyticsResponse;
 import socialMediaApp.responses.analitics.PostAnalyticsResponse;
 
+import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/** Organizer dashboard numbers, read from the per-event rollups (see {@link TicketRollupService}). */
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class AnalyticsService {
 
-    private final TicketRepository ticketRepository;
+    private final TicketRollupService rollups;
+    private final RevenueLedgerService revenueLedger;
     private final PostService postService;
 
     private static final DateTimeFormatter DF = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter HF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
 
-    public PostAnalyticsResponse getPostTicketAnalytics(int postId, int days) {
-
-        Post post = postService.getById(postId);
-        LocalDateTime from = LocalDate.now()
-                .minusDays(days - 1)
-                .atStartOfDay();
+    @Value("${app.analytics.portfolioMaxDays:366}")
+    private int portfolioMaxDays;
 
-        long ticketsSoldTotal = ticketRepository.countByPost_Id(postId);
-        long ticketsUsedTotal =
-                ticketRepository.countByPost_IdAndStatus(postId, TicketStatus.USED);
+    private Clock clock = Clock.systemDefaultZone();
 
-        var rawSales = ticketRepository.countDailyByPost(postId, from);
-        var rawAttendance = ticketRepository.countDailyAttendance(postId, from);
+    public PostAnalyticsResponse getPostTicketAnalytics(int postId, int days) {
 
-        List<PostAnalyticsResponse.DailyStat> salesByDay = convert(rawSales);
-        List<PostAnalyticsResponse.DailyStat> attendanceByDay = convert(rawAttendance);
+        Post post = postService.getById(postId);
+        LocalDate from = LocalDate.now(clock).minusDays(days - 1);
+
+        TicketRollupService.Totals totals = rollups.totals(postId);
+        long ticketsSoldTotal = totals.sold();
+        long ticketsUsedTotal = totals.used();
+
+        List<PostAnalyticsResponse.DailyStat> salesByDay = new ArrayList<>();
+        List<PostAnalyticsResponse.DailyStat> attendanceByDay = new ArrayList<>();
+        for (TicketRollupDaily d : rollups.daily(postId, from)) {
+            String day = d.getDay().format(DF);
+            if (d.getSold() > 0) salesByDay.add(new PostAnalyticsResponse.DailyStat(day, d.getSold()));
+            if (d.getUsed() > 0) attendanceByDay.add(new PostAnalyticsResponse.DailyStat(day, d.getUsed()));
+        }
 
         Integer capacity = post.getCapacity();
         Long remaining = capacity == null
                 ? null
                 : Math.max(0, (long) capacity - ticketsSoldTotal);
 
-        Double revenue = null;
-        if (post.getPrice() != null) {
-            revenue = post.getPrice().doubleValue() * ticketsSoldTotal;
-        }
+        // exact, from the ledger summary: paid tickets at the price they were sold for
+        String currency = RevenueLedgerService.currencyOf(post);
+        Map<String, BigDecimal> paid = revenueLedger.eventRevenue(postId);
+        BigDecimal revenue = post.getPrice() == null && paid.isEmpty()
+                ? null
+                : paid.getOrDefault(currency, BigDecimal.ZERO);
 
         return new PostAnalyticsResponse(
                 ticketsSoldTotal,
@@ -57,27 +75,77 @@ public class AnalyticsService {
                 capacity,
                 remaining,
                 revenue,
+                currency,
                 salesByDay,
                 attendanceByDay
         );
     }
 
+    public List<PostAnalyticsResponse.HourlyStat> getPostHourly(int postId, int hours) {
+        postService.getById(postId);
+        LocalDateTime from = LocalDateTime.now(clock).minusHours(hours - 1);
 
-    private List<PostAnalyticsResponse.DailyStat> convert(List<Object[]> raw) {
-        List<PostAnalyticsResponse.DailyStat> out = new ArrayList<>();
-        for (Object[] row : raw) {
-            String day;
-            Object d0 = row[0];
-            if (d0 instanceof java.sql.Date) {
-                day = ((java.sql.Date) d0).toLocalDate().format(DF);
-            } else {
-                day = String.valueOf(d0);
-            }
-            long cnt = ((Number) row[1]).longValue();
-            out.add(new PostAnalyticsResponse.DailyStat(day, cnt));
+        List<PostAnalyticsResponse.HourlyStat> out = new ArrayList<>();
+        for (TicketRollupHourly h : rollups.hourly(postId, from)) {
+            if (h.getSold() == 0 && h.getUsed() == 0) continue;
+            out.add(new PostAnalyticsResponse.HourlyStat(h.getBucketStart().format(HF), h.getSold(), h.getUsed()));
         }
         return out;
     }
 
+    /**
+     * All events of {@code ownerId} in two grouped queries over the daily rollups: per-event
+     * totals and one combined series. Sold, used and revenue cover [from, to] (default: the
+     * last 30 days); remaining is always capacity minus everything sold, and the all-time revenue
+     * comes from the organizer's ledger summary. Revenue is always keyed by currency: events
+     * priced in different currencies are never added into one number.
+     */
+    public PortfolioAnalyticsResponse getPortfolio(int ownerId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(clock);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "INVALID_DATE_RANGE");
+        }
+        if (start.plusDays(portfolioMaxDays).isBefore(end.plusDays(1))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "DATE_RANGE_TOO_LONG");
+        }
+
+        long sold = 0;
+        long used = 0;
+        Map<String, BigDecimal> revenue = new TreeMap<>();
+        List<PortfolioAnalyticsResponse.EventStat> events = new ArrayList<>();
+        for (TicketRollupService.EventTotals e : rollups.totalsByOwner(ownerId, start, end)) {
+            TicketRollupService.Totals t = e.inRange();
+            Long remaining = e.capacity() == null ? null : Math.max(0, (long) e.capacity() - e.soldAllTime());
+            BigDecimal eventRevenue = e.price() == null ? null : t.revenue();
+            events.add(new PortfolioAnalyticsResponse.EventStat(
+                    e.postId(), e.title(), t.sold(), t.used(), e.capacity(), remaining, eventRevenue, e.currency()));
+            sold += t.sold();
+            used += t.used();
+            addRevenue(revenue, e.currency(), t.revenue());
+        }
 
+        // rows come per (day, currency), ordered by day
+        List<PortfolioAnalyticsResponse.DailyStat> byDay = new ArrayList<>();
+        PortfolioAnalyticsResponse.DailyStat current = null;
+        for (TicketRollupService.DayTotals d : rollups.dailyByOwner(ownerId, start, end)) {
+            TicketRollupService.Totals t = d.totals();
+            if (t.sold() == 0 && t.used() == 0 && t.revenue().signum() == 0) continue;
+            String day = d.day().format(DF);
+            if (current == null || !current.getDay().equals(day)) {
+                current = new PortfolioAnalyticsResponse.DailyStat(day, 0, 0, new TreeMap<>());
+                byDay.add(current);
+            }
+            current.setSold(current.getSold() + t.sold());
+            current.setUsed(current.getUsed() + t.used());
+            addRevenue(current.getRevenue(), d.currency(), t.revenue());
+        }
+
+        return new PortfolioAnalyticsResponse(start.format(DF), end.format(DF),
+                sold, used, revenue, revenueLedger.organizerRevenue(ownerId), events, byDay);
+    }
+
+    private static void addRevenue(Map<String, BigDecimal> byCurrency, String currency, BigDecimal amount) {
+        if (amount.signum() != 0) byCurrency.merge(currency, amount, BigDecimal::add);
+    }
 }
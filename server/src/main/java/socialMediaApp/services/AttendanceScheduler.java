@@ -0,0 +1,23 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AttendanceScheduler {
+
+    private final AttendanceService attendanceService;
+    private final SseHub sseHub;
+
+    @Scheduled(fixedDelayString = "${app.attendance.publishMillis:1000}")
+    public void publish() {
+        attendanceService.publishChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeatMillis:20000}")
+    public void heartbeat() {
+        sseHub.heartbeat();
+    }
+}
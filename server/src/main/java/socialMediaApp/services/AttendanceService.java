@@ -0,0 +1,227 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.responses.analitics.AttendanceSnapshotResponse;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live door counters for organizer dashboards.
+ *
+ * The first dashboard that opens an event's stream seeds its counters from the DB. After that
+ * the consume and issue paths bump them in memory (after commit), and a publisher pushes a
+ * snapshot at most once per tick to every open stream, so the number of dashboards or scans
+ * does not add queries. Counters are dropped once the last stream for the event closes.
+ *
+ * Counters are published before they are seeded, so changes committed during the seed land in
+ * them. The seed only reads rows from before that moment and live changes from before it are
+ * skipped, so nothing is counted twice; a change whose transaction spans the seed can be missed.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceService {
+
+    private static final int MINUTES = 60;
+    private static final String EVENT = "attendance";
+    private static final DateTimeFormatter HM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final TicketRepository ticketRepository;
+    private final PostService postService;
+    private final EventCheckerService eventCheckerService;
+    private final SseHub hub;
+
+    @Value("${app.attendance.streamTimeoutMillis:1800000}")
+    private long streamTimeoutMillis;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    // ---------- Streams ----------
+
+    public SseEmitter subscribe(int postId, int actorUserId) {
+        Post post = postService.getById(postId);
+        boolean allowed = post.getUser().getId() == actorUserId
+                || eventCheckerService.amIChecker(postId, actorUserId);
+        if (!allowed) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+
+        // register the stream first: publishChanged only drops counters (atomically, per key)
+        // when it sees no subscriber, so counters fetched after this point stay tracked
+        SseEmitter emitter = hub.subscribe(channel(postId), streamTimeoutMillis);
+        Counters c = counters(postId);
+        hub.send(channel(postId), emitter, EVENT, snapshot(postId, c));
+        return emitter;
+    }
+
+    /** Pushes a fresh snapshot for every event that changed since the last tick. */
+    public void publishChanged() {
+        counters.forEach((postId, c) -> {
+            Counters live = counters.computeIfPresent(postId,
+                    (id, cur) -> hub.hasSubscribers(channel(id)) ? cur : null);
+            if (live == null || !live.seeded.isDone()) return;
+            if (live.dirty.getAndSet(false)) {
+                hub.publish(channel(postId), EVENT, snapshot(postId, live));
+            }
+        });
+    }
+
+    // ---------- Feeds ----------
+
+    public void recordCheckIns(int postId, int n) {
+        if (n <= 0) return;
+        // the lookup happens after commit: a stream may open while the transaction is running
+        LocalDateTime at = LocalDateTime.now(clock);
+        afterCommit(() -> {
+            Counters c = counters.get(postId);
+            if (c == null || at.isBefore(c.seededBefore)) return; // the seed read it
+            c.checkedIn.addAndGet(n);
+            c.arrive(minuteOf(at), n);
+            c.dirty.set(true);
+        });
+    }
+
+    /** {@code issuedAt}: the tickets' {@code created_at}. */
+    public void recordIssued(int postId, int n, LocalDateTime issuedAt) {
+        if (n <= 0) return;
+        afterCommit(() -> {
+            Counters c = counters.get(postId);
+            if (c == null || issuedAt.isBefore(c.seededBefore)) return; // the seed read it
+            c.issued.addAndGet(n);
+            c.dirty.set(true);
+        });
+    }
+
+    // ---------- Internals ----------
+
+    /**
+     * The event's counters, seeded on first use. One caller seeds them outside the map while
+     * concurrent callers wait on its future; live changes already land in them meanwhile.
+     */
+    private Counters counters(int postId) {
+        Counters fresh = new Counters(LocalDateTime.now(clock));
+        Counters existing = counters.putIfAbsent(postId, fresh);
+        if (existing != null) {
+            try {
+                existing.seeded.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+            return existing;
+        }
+        try {
+            seed(postId, fresh);
+            fresh.seeded.complete(null);
+            return fresh;
+        } catch (RuntimeException e) {
+            counters.remove(postId, fresh);
+            fresh.seeded.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // adds to what live changes already put in: the seed reads only rows from before seededBefore
+    private void seed(int postId, Counters c) {
+        LocalDateTime until = c.seededBefore;
+        c.issued.addAndGet(ticketRepository.countByPost_IdAndStatusInAndCreatedAtBefore(
+                postId, List.of(TicketStatus.ACTIVE, TicketStatus.USED), until));
+        c.checkedIn.addAndGet(ticketRepository.countByPost_IdAndStatusAndUsedAtBefore(postId, TicketStatus.USED, until));
+        LocalDateTime from = until.minusMinutes(MINUTES - 1).withSecond(0).withNano(0);
+        for (LocalDateTime usedAt : ticketRepository.findUsedAtBetween(postId, from, until)) {
+            c.arrive(minuteOf(usedAt), 1);
+        }
+    }
+
+    private AttendanceSnapshotResponse snapshot(int postId, Counters c) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long current = minuteOf(now);
+        List<AttendanceSnapshotResponse.MinuteStat> perMinute = new ArrayList<>(MINUTES);
+        for (long m = current - MINUTES + 1; m <= current; m++) {
+            long count = c.arrivalsAt(m);
+            String label = LocalDateTime.ofEpochSecond(m * 60, 0, zoneOffset(now)).format(HM);
+            perMinute.add(new AttendanceSnapshotResponse.MinuteStat(label, count));
+        }
+        long issued = c.issued.get();
+        long in = c.checkedIn.get();
+        return new AttendanceSnapshotResponse(postId, issued, in, Math.max(0, issued - in), perMinute, now);
+    }
+
+    private long minuteOf(LocalDateTime t) {
+        return t.toEpochSecond(zoneOffset(t)) / 60;
+    }
+
+    private ZoneOffset zoneOffset(LocalDateTime t) {
+        ZoneId zone = clock.getZone();
+        return zone.getRules().getOffset(t);
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private static String channel(int postId) {
+        return "attendance:" + postId;
+    }
+
+    private static final class Counters {
+        final LocalDateTime seededBefore;
+        final CompletableFuture<Void> seeded = new CompletableFuture<>();
+        final AtomicLong issued = new AtomicLong();
+        final AtomicLong checkedIn = new AtomicLong();
+        final AtomicBoolean dirty = new AtomicBoolean();
+
+        // ring of the last 60 minutes; a slot is reused once its minute is an hour old
+        private final long[] arrivals = new long[MINUTES];
+        private final long[] minuteOf = new long[MINUTES];
+
+        Counters(LocalDateTime seededBefore) {
+            this.seededBefore = seededBefore;
+        }
+
+        synchronized void arrive(long minute, int n) {
+            int slot = (int) Math.floorMod(minute, (long) MINUTES);
+            if (minuteOf[slot] != minute) {
+                if (minuteOf[slot] > minute) return; // older than the ring
+                minuteOf[slot] = minute;
+                arrivals[slot] = 0;
+            }
+            arrivals[slot] += n;
+        }
+
+        synchronized long arrivalsAt(long minute) {
+            int slot = (int) Math.floorMod(minute, (long) MINUTES);
+            return minuteOf[slot] == minute ? arrivals[slot] : 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CheckInIndexScheduler {
+
+    private final CheckInIndexService checkInIndex;
+
+    @Value("${app.checkin.flushBatchSize:200}")
+    private int flushBatchSize;
+
+    @Scheduled(fixedDelayString = "${app.checkin.refreshMillis:60000}")
+    public void refreshWindows() {
+        checkInIndex.refreshWindows();
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkin.flushMillis:500}")
+    public void flush() {
+        while (checkInIndex.flush(flushBatchSize) == flushBatchSize) {
+            // keep going while the door is busy
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.enums.EventStatus;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.EventCheckerRepository;
+import socialMediaApp.repositories.PostRepository;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.repositories.TicketRepositoryCustom.CheckInRow;
+import socialMediaApp.responses.ticket.TicketVerifyResponse;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory check-in index for events whose doors are open.
+ *
+ * When an event's check-in window opens (startAt - openBefore .. endAt + closeAfter) its
+ * tickets are loaded once as code -> (ticket id, status, holder). The owner and checkers are
+ * loaded too. Door scans are then answered from memory. A consumed ticket flips
+ * ACTIVE -> USED atomically in the index, and the USED write is queued and flushed to
+ * `tickets` in small JDBC batches.
+ *
+ * Codes the index does not know (issued after loading, other events, typos) return null so
+ * the caller falls back to the DB. The index is per instance: with several instances, door
+ * scanning for one event must be routed to the same instance.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInIndexService {
+
+    private static final String MSG_OK = "OK";
+    private static final String MSG_CONSUMED = "CONSUMED";
+    private static final String ERR_FORBIDDEN = "FORBIDDEN";
+    private static final String ERR_NOT_ACTIVE = "TICKET_NOT_ACTIVE";
+
+    private final PostRepository postRepository;
+    private final TicketRepository ticketRepository;
+    private final EventCheckerRepository eventCheckerRepository;
+
+    @Value("${app.checkin.indexEnabled:false}")
+    private boolean enabled;
+
+    @Value("${app.checkin.openBeforeMinutes:180}")
+    private long openBeforeMinutes;
+
+    @Value("${app.checkin.closeAfterMinutes:240}")
+    private long closeAfterMinutes;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Integer, EventIndex> indexes = new ConcurrentHashMap<>();
+    private final Queue<PendingUse> pending = new ConcurrentLinkedQueue<>();
+
+    // ---------- Scans ----------
+
+    /**
+     * Validates (and with {@code consume}, uses) a ticket from memory.
+     * Returns null when the event is not indexed or the code is unknown here.
+     */
+    public TicketVerifyResponse scan(int postId, String code, int actorUserId, boolean consume) {
+        if (!enabled) return null;
+        EventIndex idx = indexes.get(postId);
+        if (idx == null) return null;
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (!idx.verifiers.contains(actorUserId)) {
+            return new TicketVerifyResponse(false, ERR_FORBIDDEN, null, null, null,
+                    null, null, postId, null, now);
+        }
+
+        Entry e = idx.byCode.get(code);
+        if (e == null) return null;
+
+        if (!consume) {
+            TicketStatus s = e.status.get();
+            boolean active = s == TicketStatus.ACTIVE;
+            return e.toResponse(active, active ? MSG_OK : ERR_NOT_ACTIVE, code, s, postId, idx.title, now);
+        }
+        if (!e.status.compareAndSet(TicketStatus.ACTIVE, TicketStatus.USED)) {
+            return e.toResponse(false, ERR_NOT_ACTIVE, code, e.status.get(), postId, idx.title, now);
+        }
+        pending.add(new PendingUse(e.ticketId, now));
+        return e.toResponse(true, MSG_CONSUMED, code, TicketStatus.USED, postId, idx.title, now);
+    }
+
+    public boolean isIndexed(int postId) {
+        return enabled && indexes.containsKey(postId);
+    }
+
+    /** Checker list changed: reload who may scan, keep the ticket index. */
+    public void verifiersChanged(int postId) {
+        EventIndex idx = indexes.get(postId);
+        if (idx == null) return;
+        postRepository.findById(postId).ifPresent(p -> idx.verifiers = verifiersOf(p));
+    }
+
+    // ---------- Windows ----------
+
+    /** Loads events whose window has opened and drops the ones that have closed. */
+    public void refreshWindows() {
+        if (!enabled) return;
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        List<Post> open = postRepository.findCheckInCandidates(
+                EventStatus.PUBLISHED,
+                now.plusMinutes(openBeforeMinutes),
+                now.minusMinutes(closeAfterMinutes));
+
+        Set<Integer> openIds = new HashSet<>();
+        for (Post p : open) {
+            openIds.add(p.getId());
+            indexes.computeIfAbsent(p.getId(), id -> load(p));
+        }
+
+        for (Integer postId : new ArrayList<>(indexes.keySet())) {
+            if (!openIds.contains(postId)) {
+                indexes.remove(postId);
+                log.info("Check-in index closed for postId={}", postId);
+            }
+        }
+    }
+
+    private EventIndex load(Post p) {
+        List<CheckInRow> rows = ticketRepository.findCheckInRows(p.getId());
+        Map<String, Entry> byCode = new ConcurrentHashMap<>(rows.size() * 2);
+        for (CheckInRow r : rows) {
+            byCode.put(r.code().toUpperCase(), new Entry(r.ticketId(), r.userId(), r.holderName(), r.status()));
+        }
+        log.info("Check-in index opened for postId={} with {} tickets", p.getId(), rows.size());
+        return new EventIndex(p.getTitle(), verifiersOf(p), byCode);
+    }
+
+    private Set<Integer> verifiersOf(Post p) {
+        Set<Integer> ids = new HashSet<>(eventCheckerRepository.findUserIdsByPostId(p.getId()));
+        ids.add(p.getUser().getId());
+        return Set.copyOf(ids);
+    }
+
+    // ---------- Write-back ----------
+
+    /** Writes up to {@code batchSize} queued USED transitions; returns how many were written. */
+    public int flush(int batchSize) {
+        List<PendingUse> batch = new ArrayList<>(batchSize);
+        PendingUse u;
+        while (batch.size() < batchSize && (u = pending.poll()) != null) batch.add(u);
+        if (batch.isEmpty()) return 0;
+
+        try {
+            int[] counts = ticketRepository.markUsedBatch(
+                    batch.stream().map(PendingUse::ticketId).toList(),
+                    batch.stream().map(PendingUse::usedAt).toList());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    log.warn("Check-in write-back: ticket {} was no longer ACTIVE in the DB", batch.get(i).ticketId());
+                }
+            }
+        } catch (RuntimeException e) {
+            pending.addAll(batch); // retried on the next run
+            log.warn("Check-in write-back failed, {} uses re-queued: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+        return batch.size();
+    }
+
+    public int pendingWrites() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        while (flush(500) > 0) {
+            // drain
+        }
+    }
+
+    // ---------- Types ----------
+
+    private record PendingUse(int ticketId, LocalDateTime usedAt) {}
+
+    private static final class EventIndex {
+        final String title;
+        volatile Set<Integer> verifiers;
+        final Map<String, Entry> byCode;
+
+        EventIndex(String title, Set<Integer> verifiers, Map<String, Entry> byCode) {
+            this.title = title;
+            this.verifiers = verifiers;
+            this.byCode = byCode;
+        }
+    }
+
+    private static final class Entry {
+        final int ticketId;
+        final int userId;
+        final String holder;
+        final AtomicReference<TicketStatus> status;
+
+        Entry(int ticketId, int userId, String holder, TicketStatus status) {
+            this.ticketId = ticketId;
+            this.userId = userId;
+            this.holder = holder;
+            this.status = new AtomicReference<>(status);
+        }
+
+        TicketVerifyResponse toResponse(boolean valid, String message, String code, TicketStatus s,
+                                        int postId, String title, LocalDateTime now) {
+            return new TicketVerifyResponse(valid, message, ticketId, code, s,
+                    userId, holder, postId, title, now);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.repositories.TicketRepositoryCustom.CheckInRow;
+import socialMediaApp.responses.ticket.CheckInManifestResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Offline manifests for scanner apps.
+ *
+ * A device downloads the event's tickets once as (hashed code, status, holder initials). It
+ * then validates scans locally, pulls deltas with {@code since=<version>} and uploads its
+ * consumptions through the batch scan endpoint. Codes are sent as keyed hashes, so a lost
+ * device does not leak usable ticket codes. The key is per event.
+ *
+ * Versions are updated_at timestamps (epoch millis). A delta re-sends a short overlap before
+ * {@code since}, to cover transactions that committed late. Entries are idempotent upserts on
+ * the device.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CheckInManifestService {
+
+    private static final int HASH_BYTES = 8;
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    private final TicketRepository ticketRepository;
+    private final PostService postService;
+    private final EventCheckerService eventCheckerService;
+
+    @Value("${app.checkin.manifestSecret:${jwt.secret}}")
+    private String secret;
+
+    @Value("${app.checkin.deltaOverlapMillis:5000}")
+    private long deltaOverlapMillis;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    public CheckInManifestResponse manifest(int postId, int actorUserId) {
+        assertVerifier(postId, actorUserId);
+        long version = clock.millis();
+        return build(postId, version, true, ticketRepository.findCheckInRows(postId));
+    }
+
+    public CheckInManifestResponse delta(int postId, long since, int actorUserId) {
+        assertVerifier(postId, actorUserId);
+        long version = clock.millis();
+        LocalDateTime from = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(Math.max(0, since - deltaOverlapMillis)), clock.getZone());
+        return build(postId, version, false, ticketRepository.findCheckInRowsChangedSince(postId, from));
+    }
+
+    private CheckInManifestResponse build(int postId, long version, boolean full, List<CheckInRow> rows) {
+        byte[] key = eventKey(postId);
+        Mac mac = mac(key);
+        List<CheckInManifestResponse.Entry> entries = rows.stream()
+                .map(r -> new CheckInManifestResponse.Entry(
+                        HEX.formatHex(Arrays.copyOf(mac.doFinal(r.code().toUpperCase().getBytes(StandardCharsets.UTF_8)), HASH_BYTES)),
+                        r.status(),
+                        initialsOf(r.holderName())))
+                .toList();
+        return new CheckInManifestResponse(postId, version, full, Base64.getEncoder().encodeToString(key), entries);
+    }
+
+    private void assertVerifier(int postId, int actorUserId) {
+        Post post = postService.getById(postId);
+        boolean allowed = post.getUser().getId() == actorUserId
+                || eventCheckerService.amIChecker(postId, actorUserId);
+        if (!allowed) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+    }
+
+    private byte[] eventKey(int postId) {
+        return mac(("checkin-manifest:" + secret).getBytes(StandardCharsets.UTF_8))
+                .doFinal(String.valueOf(postId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac mac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException("Manifest hashing failed", e);
+        }
+    }
+
+    private static String initialsOf(String holderName) {
+        StringBuilder sb = new StringBuilder(2);
+        for (String part : holderName.trim().split("\\s+")) {
+            if (!part.isEmpty() && !"null".equals(part) && sb.length() < 2) {
+                sb.append(Character.toUpperCase(part.charAt(0)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package socialMediaApp.services;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
+import socialMediaApp.models.User;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Currency;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class CheckoutService {
+
+    public static final String ERR_ALREADY_PAID = "CHECKOUT_ALREADY_PAID";
+
+    private final PostService postService;
+    private final UserService userService;
+    private final TicketService ticketService;
+    private final SeatHoldService seatHoldService;
+    private final StripeGateway stripeGateway;
+
+    @Value("${app.frontendBaseUrl}")
+    private String frontendBaseUrl;
+
+    @Value("${app.checkout.reuseMinRemainingMinutes:5}")
+    private long reuseMinRemainingMinutes;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Holds the seats and returns a Stripe checkout URL for them. A still-open session the
+     * buyer already has for the same quantity and price is returned instead of a new one;
+     * a session that is about to be replaced is expired first, so only one stays payable.
+     */
+    public Map<String, Object> start(int postId, int quantity, String email) throws StripeException {
+        User me = userService.getByEmailEntity(email);
+        Post post = postService.getById(postId);
+
+        if (!Boolean.TRUE.equals(post.getPaid())
+                || post.getPrice() == null
+                || post.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalStateException("EVENT_IS_FREE");
+        }
+
+        long unitAmount = toMinorUnits(post.getPrice(), post.getCurrency());
+        String currency = (post.getCurrency() == null ? "PLN" : post.getCurrency()).toLowerCase();
+
+        // holdSeat replaces the hold on a new quantity and we replace the session when it is
+        // stale: either way the old session must stop being payable before a new one exists
+        SeatHold previous = seatHoldService.findActive(postId, me.getId()).orElse(null);
+        if (previous != null && previous.getCheckoutSessionId() != null
+                && (previous.getQuantity() != quantity || !reusable(previous, unitAmount, currency))
+                && !stripeGateway.expireSession(previous.getCheckoutSessionId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ERR_ALREADY_PAID);
+        }
+
+        SeatHold hold = ticketService.holdSeat(postId, me.getId(), quantity);
+        boolean newHold = hold.getCheckoutSessionId() == null;
+
+        if (reusable(hold, unitAmount, currency)) {
+            return response(hold.getCheckoutSessionId(), hold.getCheckoutUrl(), hold, true);
+        }
+        LocalDateTime sessionExpiresAt = hold.getExpiresAt();
+
+        SessionCreateParams params = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+
+                .setSuccessUrl(frontendBaseUrl + "/posts/" + postId + "?paid=1&session_id={CHECKOUT_SESSION_ID}")
+                .setCancelUrl(frontendBaseUrl + "/posts/" + postId + "?pay=cancel")
+                // the session must not outlive the seat hold (Stripe requires >= 30 min)
+                .setExpiresAt(sessionExpiresAt.atZone(ZoneId.systemDefault()).toEpochSecond())
+
+                .putMetadata("postId", String.valueOf(postId))
+                .putMetadata("userId", String.valueOf(me.getId()))
+                .putMetadata("holdId", String.valueOf(hold.getId()))
+                .putMetadata("quantity", String.valueOf(hold.getQuantity()))
+
+                .setPaymentIntentData(
+                        SessionCreateParams.PaymentIntentData.builder()
+                                .putMetadata("postId", String.valueOf(postId))
+                                .putMetadata("userId", String.valueOf(me.getId()))
+                                .putMetadata("quantity", String.valueOf(hold.getQuantity()))
+                                .build()
+                )
+
+                .addLineItem(
+                        SessionCreateParams.LineItem.builder()
+                                .setQuantity((long) hold.getQuantity())
+                                .setPriceData(
+                                        SessionCreateParams.LineItem.PriceData.builder()
+                                                .setCurrency(currency)
+                                                .setUnitAmount(unitAmount)
+                                                .setProductData(
+                                                        SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                                                .setName(post.getTitle() == null ? "Event ticket" : post.getTitle())
+                                                                .build()
+                                                )
+                                                .build()
+                                )
+                                .build()
+                )
+                .build();
+
+        Session session;
+        try {
+            session = stripeGateway.createSession(params);
+        } catch (StripeException | RuntimeException e) {
+            if (newHold) seatHoldService.release(hold.getId());
+            throw e;
+        }
+        seatHoldService.attachSession(hold.getId(), session.getId(), session.getUrl(),
+                unitAmount, currency, sessionExpiresAt);
+
+        return response(session.getId(), session.getUrl(), hold, false);
+    }
+
+    private boolean reusable(SeatHold hold, long unitAmount, String currency) {
+        return hold.getCheckoutSessionId() != null
+                && hold.getCheckoutUrl() != null
+                && Long.valueOf(unitAmount).equals(hold.getCheckoutUnitAmount())
+                && currency.equals(hold.getCheckoutCurrency())
+                && hold.getCheckoutExpiresAt() != null
+                // leave the buyer enough time to actually pay
+                && hold.getCheckoutExpiresAt().isAfter(LocalDateTime.now(clock).plusMinutes(reuseMinRemainingMinutes));
+    }
+
+    private static Map<String, Object> response(String sessionId, String url, SeatHold hold, boolean reused) {
+        return Map.of(
+                "url", url,
+                "sessionId", sessionId,
+                "holdExpiresAt", hold.getExpiresAt(),
+                "quantity", hold.getQuantity(),
+                "reused", reused
+        );
+    }
+
+    private long toMinorUnits(BigDecimal amount, String currencyCode) {
+        Currency cur = Currency.getInstance((currencyCode == null ? "PLN" : currencyCode).toUpperCase());
+        int fraction = cur.getDefaultFractionDigits();
+        return amount.movePointRight(fraction).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -32,6 +32,7 @@ public class EventCheckerService {
     private final EventCheckerMapper mapper;
     private final PostService postService;
     private final UserService userService;
+    private final CheckInIndexService checkInIndex;
 
     // ---------- Queries ----------
 
@@ -63,6 +64,7 @@ public class EventCheckerService {
         ec.setPost(post);
         ec.setUser(u);
         repo.save(ec);
+        checkInIndex.verifiersChanged(postId);
         return mapper.toResponse(ec);
     }
 
@@ -76,6 +78,7 @@ public class EventCheckerService {
         }
 
         repo.deleteByPost_IdAndUser_Id(postId, userId);
+        checkInIndex.verifiersChanged(postId);
     }
 
     @Transactional
@@ -92,6 +95,7 @@ public class EventCheckerService {
         ec.setPost(post);
         ec.setUser(u);
         repo.save(ec);
+        checkInIndex.verifiersChanged(postId);
         return mapper.toResponse(ec);
     }
 
@@ -107,6 +111,7 @@ public class EventCheckerService {
             throw new NotFoundException(CHECKER_NOT_FOUND);
         }
         repo.deleteByPost_IdAndUser_Id(postId, u.getId());
+        checkInIndex.verifiersChanged(postId);
     }
 
     // ---------- Helpers ----------
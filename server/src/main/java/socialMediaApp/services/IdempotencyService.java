@@ -0,0 +1,145 @@
+package socialMediaApp.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.IdempotencyRecord;
+import socialMediaApp.models.enums.IdempotencyStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@code Idempotency-Key} handling for endpoints that mobile clients retry.
+ *
+ * The first successful (2xx) response for (caller, key) is stored and replayed verbatim to
+ * retries, which never reach the action again. Concurrent requests with the same key on
+ * this instance wait for the first one and share its outcome; on another instance they get
+ * 409 until it finishes. Failed requests free the key, so a retry runs for real.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.waitMillis:30000}")
+    private long waitMillis;
+
+    private final Map<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        ResponseEntity<?> run() throws E;
+    }
+
+    /**
+     * Runs {@code action} once per (owner, key); without a key it just runs it.
+     * {@code fingerprint} identifies the request (method, path, parameters).
+     */
+    public <E extends Exception> ResponseEntity<?> execute(String owner, String key, String fingerprint,
+                                                           Action<E> action) throws E {
+        if (key == null || key.isBlank()) return action.run();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "IDEMPOTENCY_KEY_TOO_LONG");
+        }
+
+        String id = idOf(owner, key);
+        CompletableFuture<ResponseEntity<?>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> leader = inFlight.putIfAbsent(id, mine);
+        if (leader != null) return await(leader);
+
+        boolean owned = false;
+        try {
+            IdempotencyStore.Claim claim = store.begin(id, fingerprint);
+            owned = claim.owned();
+            ResponseEntity<?> res = owned ? action.run() : replay(claim.existing(), fingerprint);
+            if (owned) {
+                if (res.getStatusCode().is2xxSuccessful()) {
+                    store.complete(id, res.getStatusCodeValue(), toJson(res.getBody()));
+                } else {
+                    store.abandon(id);
+                }
+            }
+            mine.complete(res);
+            return res;
+        } catch (Exception | Error e) {
+            if (owned) store.abandon(id);
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord r, String fingerprint) {
+        if (!r.getFingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+        }
+        if (r.getStatus() == IdempotencyStatus.IN_PROGRESS) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_REQUEST_IN_PROGRESS");
+        }
+        try {
+            return ResponseEntity.status(r.getResponseStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(r.getResponseBody() == null ? null : objectMapper.readTree(r.getResponseBody()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is not valid JSON", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> leader) throws E {
+        try {
+            return leader.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // same outcome as the request we collapsed into
+            Throwable cause = e.getCause();
+            if (cause instanceof Error err) throw err;
+            throw (E) cause;
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_REQUEST_IN_PROGRESS");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_REQUEST_IN_PROGRESS");
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable", e);
+        }
+    }
+
+    private static String idOf(String owner, String key) {
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest((owner + "\n" + key).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import socialMediaApp.models.IdempotencyRecord;
+import socialMediaApp.repositories.IdempotencyRecordRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/** Row-level steps of {@link IdempotencyService}, each in its own short transaction. */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private final IdempotencyRecordRepository repository;
+
+    @Value("${app.idempotency.ttlHours:24}")
+    private long ttlHours;
+
+    // how long a key stays locked by a request that never finished (crashed instance)
+    @Value("${app.idempotency.inProgressSeconds:60}")
+    private long inProgressSeconds;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** Either this request now owns the key, or {@code existing} is whoever used it first. */
+    public record Claim(boolean owned, IdempotencyRecord existing) {}
+
+    public Claim begin(String id, String fingerprint) {
+        LocalDateTime now = now();
+        repository.deleteIfExpired(id, now);
+        if (repository.insertIfAbsent(id, fingerprint, now, now.plusSeconds(inProgressSeconds)) == 1) {
+            return new Claim(true, null);
+        }
+        return repository.findById(id)
+                .map(r -> new Claim(false, r))
+                // deleted between our insert and read: the key is free again
+                .orElseGet(() -> new Claim(repository.insertIfAbsent(id, fingerprint, now, now.plusSeconds(inProgressSeconds)) == 1, null));
+    }
+
+    public void complete(String id, int status, String body) {
+        repository.complete(id, status, body, now().plusHours(ttlHours));
+    }
+
+    /** The request failed: free the key so the client's retry runs again. */
+    public void abandon(String id) {
+        repository.deleteById(id);
+    }
+
+    public int purgeExpired() {
+        return repository.deleteExpired(now());
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+}
@@ -0,0 +1,20 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencySweeper {
+
+    private final IdempotencyStore store;
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweepMillis:600000}")
+    public void sweep() {
+        int n = store.purgeExpired();
+        if (n > 0) log.info("Idempotency sweep: {} expired keys removed", n);
+    }
+}
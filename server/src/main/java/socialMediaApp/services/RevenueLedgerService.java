@@ -0,0 +1,118 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.RevenueSummary;
+import socialMediaApp.models.enums.RevenueScope;
+import socialMediaApp.repositories.RevenueLedgerRepository;
+import socialMediaApp.repositories.RevenueSummaryRepository;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paid revenue: an append-only ledger with one entry per ticket, plus running totals per event
+ * and per organizer that are bumped in the same transaction. Reports read the totals, so they
+ * are exact and cost one row however many tickets were sold.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class RevenueLedgerService {
+
+    static final String DEFAULT_CURRENCY = "PLN"; // same fallback as CheckoutService
+
+    private final RevenueLedgerRepository ledgerRepository;
+    private final RevenueSummaryRepository summaryRepository;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** What Stripe collected for one checkout. */
+    public record Payment(BigDecimal total, String currency) {
+
+        /** Null when Stripe did not report an amount. */
+        public static Payment ofMinorUnits(Long amount, String currency) {
+            if (amount == null || currency == null) return null;
+            String code = currency.toUpperCase(Locale.ROOT);
+            int fraction = Currency.getInstance(code).getDefaultFractionDigits();
+            return new Payment(BigDecimal.valueOf(amount).movePointLeft(Math.max(0, fraction)), code);
+        }
+    }
+
+    /**
+     * Records the buyer's PAID tickets for the event, skipping tickets already in the ledger.
+     * {@code charged} is split evenly over the buyer's tickets (an indivisible remainder goes to
+     * seat 0); without it the current price is used. Runs inside the issuing transaction;
+     * returns the revenue added.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal recordSale(Post post, int userId, String paymentIntentId, String sessionId, Payment charged) {
+        if (charged == null && post.getPrice() == null) return BigDecimal.ZERO;
+        if (charged == null) {
+            log.warn("No charged amount for postId={} userId={} (intent {}), using the event price",
+                    post.getId(), userId, paymentIntentId);
+        }
+
+        String currency = charged != null ? charged.currency() : currencyOf(post);
+        int seats = charged != null ? Math.max(1, ledgerRepository.countPaidTickets(post.getId(), userId)) : 1;
+        BigDecimal unit = charged != null
+                ? charged.total().divide(BigDecimal.valueOf(seats), charged.total().scale(), RoundingMode.DOWN)
+                : post.getPrice();
+        BigDecimal extra = charged != null
+                ? charged.total().subtract(unit.multiply(BigDecimal.valueOf(seats)))
+                : BigDecimal.ZERO;
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        int added = ledgerRepository.appendForBuyer(post.getId(), userId, post.getUser().getId(),
+                unit, extra, currency, paymentIntentId, sessionId, now);
+        if (added == 0) return BigDecimal.ZERO;
+
+        BigDecimal amount = unit.multiply(BigDecimal.valueOf(added));
+        if (added == seats) amount = amount.add(extra); // seat 0 was among the new entries
+        summaryRepository.add(RevenueScope.EVENT.name(), post.getId(), currency, amount, added, now);
+        summaryRepository.add(RevenueScope.ORGANIZER.name(), post.getUser().getId(), currency, amount, added, now);
+        return amount;
+    }
+
+    /** Currency -> exact total; empty when nothing was sold. */
+    public Map<String, BigDecimal> eventRevenue(int postId) {
+        return totals(RevenueScope.EVENT, postId);
+    }
+
+    public Map<String, BigDecimal> organizerRevenue(int organizerId) {
+        return totals(RevenueScope.ORGANIZER, organizerId);
+    }
+
+    /** Seeds the ledger from PAID tickets sold before it existed; a no-op once it has entries. */
+    @Transactional
+    public void backfillIfEmpty() {
+        if (ledgerRepository.count() > 0) return;
+        int entries = ledgerRepository.backfillFromTickets(DEFAULT_CURRENCY);
+        if (entries == 0) return;
+        summaryRepository.rebuildFromLedger(LocalDateTime.now(clock));
+        log.info("Revenue ledger backfilled with {} paid tickets at current event prices", entries);
+    }
+
+    private Map<String, BigDecimal> totals(RevenueScope scope, int scopeId) {
+        Map<String, BigDecimal> out = new LinkedHashMap<>();
+        for (RevenueSummary s : summaryRepository.findAllByScopeAndScopeIdOrderByCurrencyAsc(scope, scopeId)) {
+            out.put(s.getCurrency(), s.getAmount());
+        }
+        return out;
+    }
+
+    public static String currencyOf(Post post) {
+        return (post.getCurrency() == null ? DEFAULT_CURRENCY : post.getCurrency()).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,17 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SalesVelocityScheduler {
+
+    private final SalesVelocityService salesVelocityService;
+
+    @Scheduled(fixedDelayString = "${app.analytics.velocity.evictMillis:60000}")
+    public void evictIdle() {
+        salesVelocityService.evictIdle();
+    }
+}
@@ -0,0 +1,230 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.responses.analitics.SalesVelocityResponse;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live sales velocity and sell-out forecast per event.
+ *
+ * The first request for an event seeds a per-second ring of the last {@code windowMinutes} of
+ * issued tickets from the DB; after that the issue path bumps it in memory (after commit), so
+ * reads never touch {@code tickets}. The ring is published before it is seeded; the seed only
+ * reads tickets created before that moment and live sales created before it are skipped, so a
+ * sale is never counted twice. A sale whose transaction spans the seed query can be missed.
+ * Remaining seats come from the availability cache. Events
+ * nobody asked about for {@code idleMinutes} are dropped. The ring counts this instance's
+ * sales plus what it seeded: with several instances, route an event's dashboard to one of them.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesVelocityService {
+
+    private static final DateTimeFormatter SECOND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter HM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final TicketRepository ticketRepository;
+    private final TicketAvailabilityService availabilityService;
+    private final PostService postService;
+
+    @Value("${app.analytics.velocity.windowMinutes:60}")
+    private int windowMinutes;
+
+    @Value("${app.analytics.velocity.rateMinutes:5}")
+    private int rateMinutes;
+
+    @Value("${app.analytics.velocity.idleMinutes:30}")
+    private long idleMinutes;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+
+    // ---------- Reads ----------
+
+    public SalesVelocityResponse velocity(int postId, int actorUserId) {
+        Post post = postService.getById(postId);
+        if (post.getUser().getId() != actorUserId) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "ONLY_EVENT_OWNER");
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        long second = secondOf(now);
+        Ring ring = ring(postId, now);
+        ring.lastReadAt = second;
+
+        int rateSeconds = rateMinutes * 60;
+        double rate = ring.sum(second - rateSeconds + 1, second) / (double) rateMinutes;
+        double previous = ring.sum(second - 2L * rateSeconds + 1, second - rateSeconds) / (double) rateMinutes;
+        double acceleration = (rate - previous) / rateMinutes;
+
+        List<SalesVelocityResponse.MinuteStat> perMinute = new ArrayList<>(windowMinutes);
+        long minute = second / 60;
+        for (long m = minute - windowMinutes + 1; m <= minute; m++) {
+            String label = LocalDateTime.ofEpochSecond(m * 60, 0, offset(now)).format(HM);
+            perMinute.add(new SalesVelocityResponse.MinuteStat(label, ring.sum(m * 60, Math.min(m * 60 + 59, second))));
+        }
+
+        Integer remaining = (Integer) availabilityService.get(postId).get("available");
+        boolean soldOut = remaining != null && remaining <= 0;
+        LocalDateTime linear = null;
+        LocalDateTime trend = null;
+        if (remaining != null && !soldOut) {
+            linear = rate > 0 ? plusMinutes(now, remaining / rate) : null;
+            trend = plusMinutes(now, minutesToSellOut(remaining, rate, acceleration));
+        }
+
+        return new SalesVelocityResponse(postId, rate, previous, acceleration, rateMinutes,
+                ring.sum(second - windowMinutes * 60L + 1, second), windowMinutes,
+                remaining, soldOut, linear, trend, perMinute, now);
+    }
+
+    /**
+     * Minutes t until {@code remaining} more are sold when the rate keeps changing by
+     * {@code acceleration}: the first t > 0 with rate·t + acceleration·t²/2 = remaining.
+     * Null when the rate reaches zero first.
+     */
+    static Double minutesToSellOut(double remaining, double rate, double acceleration) {
+        if (Math.abs(acceleration) < 1e-9) return rate > 0 ? remaining / rate : null;
+        double disc = rate * rate + 2 * acceleration * remaining;
+        if (disc < 0) return null;
+        double t = (-rate + Math.sqrt(disc)) / acceleration;
+        return t > 0 ? t : null;
+    }
+
+    // ---------- Feeds ----------
+
+    /** {@code issuedAt}: the tickets' {@code created_at}, the same value the seed query reads. */
+    public void recordIssued(int postId, int n, LocalDateTime issuedAt) {
+        if (n <= 0) return;
+        // looked up after commit: the ring may appear while the transaction is running
+        afterCommit(() -> {
+            Ring ring = rings.get(postId);
+            if (ring == null || issuedAt.isBefore(ring.seededBefore)) return; // the seed read it
+            ring.add(secondOf(issuedAt), n);
+        });
+    }
+
+    /** Drops events whose velocity nobody has read for {@code idleMinutes}. */
+    public void evictIdle() {
+        long cutoff = secondOf(LocalDateTime.now(clock)) - idleMinutes * 60;
+        rings.values().removeIf(r -> r.lastReadAt < cutoff);
+    }
+
+    public int trackedEvents() {
+        return rings.size();
+    }
+
+    // ---------- Internals ----------
+
+    /**
+     * The event's ring, seeded on first use. One reader seeds it outside the map while
+     * concurrent readers wait on its future; live sales already land in the ring meanwhile.
+     */
+    private Ring ring(int postId, LocalDateTime now) {
+        Ring fresh = new Ring(windowMinutes * 60, now, secondOf(now));
+        Ring existing = rings.putIfAbsent(postId, fresh);
+        if (existing != null) {
+            try {
+                existing.seeded.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+            return existing;
+        }
+        try {
+            LocalDateTime from = now.minusSeconds(windowMinutes * 60L - 1).withNano(0);
+            for (Object[] r : ticketRepository.countIssuedPerSecondBetween(postId, from, fresh.seededBefore)) {
+                fresh.add(secondOf(LocalDateTime.parse(String.valueOf(r[0]), SECOND)), ((Number) r[1]).longValue());
+            }
+            fresh.seeded.complete(null);
+            return fresh;
+        } catch (RuntimeException e) {
+            rings.remove(postId, fresh);
+            fresh.seeded.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private long secondOf(LocalDateTime t) {
+        return t.toEpochSecond(offset(t));
+    }
+
+    private ZoneOffset offset(LocalDateTime t) {
+        return clock.getZone().getRules().getOffset(t);
+    }
+
+    private static LocalDateTime plusMinutes(LocalDateTime now, Double minutes) {
+        if (minutes == null || minutes > 366 * 24 * 60) return null; // no useful forecast
+        return now.plusSeconds(Math.round(minutes * 60));
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    // per-second counts; a slot is reused once its second has left the window
+    private static final class Ring {
+        private final long[] counts;
+        private final long[] secondOf;
+        final LocalDateTime seededBefore;
+        final CompletableFuture<Void> seeded = new CompletableFuture<>();
+        volatile long lastReadAt;
+
+        Ring(int seconds, LocalDateTime seededBefore, long createdAt) {
+            this.seededBefore = seededBefore;
+            lastReadAt = createdAt;
+            counts = new long[seconds];
+            secondOf = new long[seconds];
+            Arrays.fill(secondOf, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long second, long n) {
+            int slot = (int) Math.floorMod(second, (long) counts.length);
+            if (secondOf[slot] != second) {
+                if (secondOf[slot] > second) return; // older than the ring
+                secondOf[slot] = second;
+                counts[slot] = 0;
+            }
+            counts[slot] += n;
+        }
+
+        synchronized long sum(long fromSecond, long toSecond) {
+            long total = 0;
+            for (long s = Math.max(fromSecond, toSecond - counts.length + 1); s <= toSecond; s++) {
+                int slot = (int) Math.floorMod(s, (long) counts.length);
+                if (secondOf[slot] == s) total += counts[slot];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.SeatHoldStatus;
+import socialMediaApp.repositories.SeatHoldRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lifecycle of checkout seat holds: ACTIVE -> CONVERTED (webhook issued the ticket),
+ * RELEASED (checkout could not start) or EXPIRED (swept after TTL + grace).
+ * Every exit from ACTIVE is a conditional UPDATE, so a late webhook and the sweeper
+ * can never both act on the same hold.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SeatHoldService {
+
+    private final SeatHoldRepository seatHoldRepository;
+    private final TicketInventoryService inventoryService;
+    private final TicketAvailabilityService availabilityService;
+
+    @Value("${app.holds.ttlMinutes:35}")
+    private long ttlMinutes;
+
+    @Value("${app.holds.releaseGraceMinutes:5}")
+    private long releaseGraceMinutes;
+
+    // ---------- Queries ----------
+
+    public long heldSeats(int postId) {
+        return seatHoldRepository.sumActiveQuantity(postId);
+    }
+
+    public Optional<SeatHold> findActive(int postId, int userId) {
+        return seatHoldRepository
+                .findFirstByPost_IdAndUser_IdAndStatusOrderByIdDesc(postId, userId, SeatHoldStatus.ACTIVE)
+                .filter(h -> h.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    // ---------- Commands ----------
+
+    /** Caller must already have reserved the seats in the inventory. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public SeatHold create(Post post, User user, int quantity) {
+        SeatHold h = new SeatHold();
+        h.setPost(post);
+        h.setUser(user);
+        h.setQuantity(quantity);
+        h.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes));
+        availabilityService.changed(post.getId());
+        return seatHoldRepository.save(h);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public SeatHold extend(SeatHold hold) {
+        hold.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes)); // JPA dirty-check
+        return hold;
+    }
+
+    @Transactional
+    public void attachSession(long holdId, String sessionId, String url,
+                              long unitAmount, String currency, LocalDateTime expiresAt) {
+        seatHoldRepository.attachSession(holdId, sessionId, url, unitAmount, currency, expiresAt);
+    }
+
+    /** Gives the seats back right away, e.g. when the Stripe session could not be created. */
+    @Transactional
+    public void release(long holdId) {
+        SeatHold h = seatHoldRepository.findById(holdId).orElse(null);
+        if (h == null) return;
+        if (seatHoldRepository.transitionFromActive(holdId, SeatHoldStatus.RELEASED) == 1) {
+            inventoryService.release(h.getPost().getId(), h.getQuantity());
+            availabilityService.changed(h.getPost().getId());
+        }
+    }
+
+    /**
+     * Turns the buyer's active hold into "sold" inside the ticket-issuing transaction and
+     * returns its seat count. Returns 0 when there is no live hold; the caller must then
+     * reserve seats itself.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int claim(int postId, int userId, String sessionId) {
+        Optional<SeatHold> hold = sessionId == null
+                ? Optional.empty()
+                : seatHoldRepository.findByCheckoutSessionId(sessionId);
+        if (hold.isEmpty()) {
+            hold = seatHoldRepository.findFirstByPost_IdAndUser_IdAndStatusOrderByIdDesc(
+                    postId, userId, SeatHoldStatus.ACTIVE);
+        }
+        return hold
+                .filter(h -> h.getPost().getId() == postId && h.getUser().getId() == userId)
+                .filter(h -> seatHoldRepository.transitionFromActive(h.getId(), SeatHoldStatus.CONVERTED) == 1)
+                .map(h -> {
+                    availabilityService.changed(postId); // held -> sold
+                    return h.getQuantity();
+                })
+                .orElse(0);
+    }
+
+    /**
+     * Expires up to {@code limit} overdue holds in one pass and returns their seats to the
+     * inventory with one UPDATE per event. Returns how many holds were looked at.
+     */
+    @Transactional
+    public int expireBatch(int limit) {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(releaseGraceMinutes);
+        List<Long> ids = seatHoldRepository.findExpiredIds(cutoff, PageRequest.of(0, limit));
+        if (ids.isEmpty()) return 0;
+
+        String sweepId = UUID.randomUUID().toString();
+        if (seatHoldRepository.expire(ids, sweepId) > 0) {
+            for (Object[] row : seatHoldRepository.sumQuantityBySweep(sweepId)) {
+                int postId = ((Number) row[0]).intValue();
+                inventoryService.release(postId, ((Number) row[1]).intValue());
+                availabilityService.changed(postId);
+            }
+        }
+        return ids.size();
+    }
+}
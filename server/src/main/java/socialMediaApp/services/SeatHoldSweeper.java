@@ -0,0 +1,28 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatHoldSweeper {
+
+    private static final int BATCH = 500;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private final SeatHoldService seatHoldService;
+
+    @Scheduled(fixedDelayString = "${app.holds.sweepMillis:15000}")
+    public void sweep() {
+        int total = 0;
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            int n = seatHoldService.expireBatch(BATCH);
+            total += n;
+            if (n < BATCH) break;
+        }
+        if (total > 0) log.info("Seat hold sweep: {} expired holds released", total);
+    }
+}
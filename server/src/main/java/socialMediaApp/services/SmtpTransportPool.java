@@ -0,0 +1,195 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A few long-lived SMTP connections shared by the mail senders.
+ *
+ * {@code JavaMailSender.send(msg)} opens a connection, does EHLO (+ STARTTLS + AUTH), sends one
+ * message and quits. Here a connection is borrowed, a whole batch goes over it with one
+ * {@code sendMessage} per message, and it goes back to the pool still open. A connection is
+ * checked once per batch (NOOP) and recycled after {@code maxMessagesPerConnection}, since
+ * most servers cap messages per session. Uses the host, port, credentials and session
+ * properties of the Spring-configured {@link JavaMailSenderImpl}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SmtpTransportPool {
+
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${app.mail.smtp.poolSize:4}")
+    private int poolSize;
+
+    @Value("${app.mail.smtp.maxMessagesPerConnection:500}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.mail.smtp.borrowTimeoutMillis:30000}")
+    private long borrowTimeoutMillis;
+
+    private Clock clock = Clock.systemUTC();
+
+    // LIFO: the most recently used (warm) connection goes out first, extra ones stay closed
+    private BlockingDeque<Connection> idle;
+    private final List<Connection> all = new ArrayList<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    // sends per second over the last minute: slot = epochSecond % 60, tagged with its second
+    private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    @PostConstruct
+    void start() {
+        idle = new LinkedBlockingDeque<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            Connection c = new Connection(); // connects on first use
+            all.add(c);
+            idle.add(c);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Connection c : all) c.close();
+    }
+
+    /**
+     * Sends every message over one pooled connection. The result lines up with
+     * {@code messages}: null when the message was accepted, else the failure.
+     */
+    public Exception[] send(List<MimeMessage> messages) throws InterruptedException {
+        Exception[] failures = new Exception[messages.size()];
+        if (messages.isEmpty()) return failures;
+
+        Connection c = idle.pollFirst(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (c == null) {
+            IllegalStateException busy = new IllegalStateException("SMTP_POOL_BUSY");
+            Arrays.fill(failures, busy);
+            failed.add(messages.size());
+            return failures;
+        }
+        try {
+            boolean checked = false;
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage msg = messages.get(i);
+                try {
+                    c.ensureOpen(!checked);
+                    checked = true;
+                    if (msg.getSentDate() == null) msg.setSentDate(new Date(clock.millis()));
+                    msg.saveChanges();
+                    c.transport.sendMessage(msg, msg.getAllRecipients());
+                    c.sentOnConnection++;
+                    sent.increment();
+                    countRate();
+                } catch (MessagingException | RuntimeException e) {
+                    failures[i] = e;
+                    failed.increment();
+                    checked = false; // the connection may have dropped: check it before the next message
+                }
+            }
+        } finally {
+            idle.addFirst(c);
+        }
+        return failures;
+    }
+
+    // ---------- Metrics ----------
+
+    public long sentTotal() {
+        return sent.sum();
+    }
+
+    public long failedTotal() {
+        return failed.sum();
+    }
+
+    public long connectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public int size() {
+        return poolSize;
+    }
+
+    public int idleConnections() {
+        return idle.size();
+    }
+
+    /** Average messages per second over the last minute. */
+    public double sentPerSecond() {
+        long now = clock.millis() / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            long second = rateSeconds.get(i);
+            if (second > now - RATE_WINDOW_SECONDS && second <= now) total += rateCounts.get(i);
+        }
+        return (double) total / RATE_WINDOW_SECONDS;
+    }
+
+    private void countRate() {
+        long second = clock.millis() / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        long tagged = rateSeconds.get(slot);
+        if (tagged != second && rateSeconds.compareAndSet(slot, tagged, second)) {
+            rateCounts.set(slot, 0);
+        }
+        rateCounts.incrementAndGet(slot);
+    }
+
+    // ---------- Connections ----------
+
+    private final class Connection {
+        Transport transport;
+        int sentOnConnection;
+
+        /** Opens (or reopens) the connection; {@code verify} pings an open one first. */
+        void ensureOpen(boolean verify) throws MessagingException {
+            if (transport != null && sentOnConnection < maxMessagesPerConnection
+                    && (!verify || transport.isConnected())) {
+                return;
+            }
+            close();
+            String protocol = mailSender.getProtocol();
+            transport = mailSender.getSession().getTransport(protocol == null ? "smtp" : protocol);
+            transport.connect(mailSender.getHost(), mailSender.getPort(),
+                    mailSender.getUsername(), mailSender.getPassword());
+            sentOnConnection = 0;
+            connectionsOpened.increment();
+        }
+
+        void close() {
+            if (transport == null) return;
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("SMTP close failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package socialMediaApp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Fan-out of Server-Sent Events to named channels (e.g. "attendance:42").
+ * Emitters that fail, time out or complete are dropped from their channel.
+ */
+@Slf4j
+@Component
+public class SseHub {
+
+    private final Map<String, Set<SseEmitter>> channels = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(String channel, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Set<SseEmitter> set = channels.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>());
+        set.add(emitter);
+
+        Runnable remove = () -> drop(channel, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /** Sends to one emitter; false (and the emitter is dropped) when the client is gone. */
+    public boolean send(String channel, SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(channel, emitter);
+            return false;
+        }
+    }
+
+    public void publish(String channel, String event, Object data) {
+        Set<SseEmitter> set = channels.get(channel);
+        if (set == null) return;
+        for (SseEmitter emitter : set) send(channel, emitter, event, data);
+    }
+
+    /** Comment line that keeps idle connections open through proxies. */
+    public void heartbeat() {
+        channels.forEach((channel, set) -> {
+            for (SseEmitter emitter : set) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(channel, emitter);
+                }
+            }
+        });
+    }
+
+    public boolean hasSubscribers(String channel) {
+        Set<SseEmitter> set = channels.get(channel);
+        return set != null && !set.isEmpty();
+    }
+
+    private void drop(String channel, SseEmitter emitter) {
+        channels.computeIfPresent(channel, (c, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package socialMediaApp.services;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The only place that talks to the Stripe API.
+ *
+ * Calls run on a small dedicated pool with a bounded queue, so at most
+ * {@code workers + queueCapacity} request threads can be waiting on Stripe; the rest fail
+ * fast with 503. Each call has a hard timeout. After {@code failureThreshold} consecutive
+ * infrastructure failures (timeouts, connection errors, 5xx) the breaker opens for
+ * {@code openMillis}; then a single trial call decides whether it closes again. Card and
+ * validation errors (4xx) are passed through and do not count as failures.
+ */
+@Slf4j
+@Component
+public class StripeGateway {
+
+    public static final String ERR_UNAVAILABLE = "PAYMENTS_UNAVAILABLE";
+    public static final String ERR_BUSY = "PAYMENTS_BUSY";
+    public static final String ERR_TIMEOUT = "PAYMENTS_TIMEOUT";
+
+    @FunctionalInterface
+    public interface StripeCall<T> {
+        T call() throws StripeException;
+    }
+
+    @Value("${app.stripe.workers:8}")
+    private int workers;
+
+    @Value("${app.stripe.queueCapacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.stripe.timeoutMillis:10000}")
+    private long timeoutMillis;
+
+    @Value("${app.stripe.failureThreshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.stripe.openMillis:30000}")
+    private long openMillis;
+
+    private Clock clock = Clock.systemUTC();
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openUntil; // 0 = closed
+
+    @PostConstruct
+    void start() {
+        AtomicInteger n = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "stripe-call-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public Session createSession(SessionCreateParams params) throws StripeException {
+        return call("checkout.session.create", () -> Session.create(params));
+    }
+
+    /**
+     * Makes a checkout session unpayable. Returns false when the buyer already completed it,
+     * true when it is (or already was) expired.
+     */
+    public boolean expireSession(String sessionId) throws StripeException {
+        return call("checkout.session.expire", () -> {
+            Session s = Session.retrieve(sessionId);
+            if ("open".equals(s.getStatus())) s = s.expire();
+            return !"complete".equals(s.getStatus());
+        });
+    }
+
+    <T> T call(String op, StripeCall<T> call) throws StripeException {
+        boolean trial = admit();
+
+        Future<T> future;
+        try {
+            future = executor.submit(call::call);
+        } catch (RejectedExecutionException e) {
+            if (trial) trialInFlight.set(false);
+            log.warn("Stripe {}: pool and queue are full, rejecting", op);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ERR_BUSY);
+        }
+
+        try {
+            T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            onFailure(op, trial, "timeout after " + timeoutMillis + " ms");
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, ERR_TIMEOUT);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            if (trial) trialInFlight.set(false);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ERR_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StripeException se) {
+                if (countsAsFailure(se)) onFailure(op, trial, se.getMessage());
+                else onSuccess(); // Stripe answered; the request itself was wrong
+                throw se;
+            }
+            onFailure(op, trial, String.valueOf(cause));
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public boolean isOpen() {
+        return openUntil != 0 && clock.millis() < openUntil;
+    }
+
+    // returns true when this call is the half-open trial
+    private boolean admit() {
+        long until = openUntil;
+        if (until == 0) return false;
+        if (clock.millis() < until || !trialInFlight.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ERR_UNAVAILABLE);
+        }
+        return true;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil != 0) {
+            openUntil = 0;
+            log.info("Stripe circuit closed");
+        }
+        trialInFlight.set(false);
+    }
+
+    private void onFailure(String op, boolean trial, String reason) {
+        int failures = consecutiveFailures.incrementAndGet();
+        log.warn("Stripe {} failed ({} in a row): {}", op, failures, reason);
+        if (trial || failures >= failureThreshold) {
+            openUntil = clock.millis() + openMillis;
+            log.error("Stripe circuit open for {} ms after {} consecutive failures", openMillis, failures);
+        }
+        if (trial) trialInFlight.set(false);
+    }
+
+    private static boolean countsAsFailure(StripeException e) {
+        if (e instanceof ApiConnectionException) return true;
+        Integer status = e.getStatusCode();
+        return status == null || status >= 500 || status == 429;
+    }
+}
@@ -0,0 +1,92 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import socialMediaApp.models.StripeWebhookEvent;
+import socialMediaApp.models.enums.WebhookInboxStatus;
+import socialMediaApp.repositories.StripeWebhookEventRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable inbox for verified Stripe webhooks: PENDING -> PROCESSING -> DONE, or back to
+ * PENDING with exponential backoff after a failure, and FAILED after the last attempt.
+ * Every transition is a conditional UPDATE, so two workers can never process the same event.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class StripeWebhookInboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StripeWebhookEventRepository inboxRepository;
+
+    @Value("${app.webhooks.maxAttempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.webhooks.backoffBaseMillis:5000}")
+    private long backoffBaseMillis;
+
+    @Value("${app.webhooks.backoffMaxMillis:1800000}")
+    private long backoffMaxMillis;
+
+    @Value("${app.webhooks.leaseMillis:120000}")
+    private long leaseMillis;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** Stores the event; false when Stripe redelivered an event we already have. */
+    @Transactional
+    public boolean record(String eventId, String type, String payload, String signature) {
+        return inboxRepository.insertIfAbsent(eventId, type, payload, signature, now()) == 1;
+    }
+
+    /** Takes the row for one processing attempt and returns its payload, or empty when not due / owned elsewhere. */
+    @Transactional
+    public Optional<StripeWebhookEvent> claim(String eventId) {
+        LocalDateTime now = now();
+        if (inboxRepository.claim(eventId, now, now.plusNanos(leaseMillis * 1_000_000)) == 0) {
+            return Optional.empty();
+        }
+        return inboxRepository.findById(eventId);
+    }
+
+    @Transactional
+    public void markDone(String eventId) {
+        inboxRepository.markDone(eventId, now());
+    }
+
+    /**
+     * Schedules the next attempt after a failed one ({@code attempts} already counts it).
+     * Returns true when the event was given up on.
+     */
+    @Transactional
+    public boolean markFailedAttempt(String eventId, int attempts, String error) {
+        boolean giveUp = attempts >= maxAttempts;
+        LocalDateTime next = now().plusNanos(backoffMillis(attempts) * 1_000_000);
+        String msg = error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        inboxRepository.markFailedAttempt(eventId,
+                giveUp ? WebhookInboxStatus.FAILED : WebhookInboxStatus.PENDING, next, msg);
+        return giveUp;
+    }
+
+    public List<String> findDue(int limit) {
+        return inboxRepository.findDueIds(now(), PageRequest.of(0, limit));
+    }
+
+    long backoffMillis(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(backoffMaxMillis, backoffBaseMillis << shift);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+}
@@ -0,0 +1,161 @@
+package socialMediaApp.services;
+
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a verified Stripe event: paid checkouts and payment intents issue tickets.
+ * Safe to run more than once per event, since registerPaid is idempotent per session / intent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StripeWebhookProcessor {
+
+    private final TicketService ticketService;
+
+    private static final Set<String> HANDLED = Set.of(
+            "checkout.session.completed",
+            "checkout.session.async_payment_succeeded",
+            "payment_intent.succeeded");
+
+    /** Other event types are acknowledged and dropped without being stored. */
+    public boolean handles(String type) {
+        return HANDLED.contains(type);
+    }
+
+    public void handle(Event event) {
+        if ("checkout.session.completed".equals(event.getType())
+                || "checkout.session.async_payment_succeeded".equals(event.getType())) {
+
+            Session session = extractSession(event);
+            if (session == null) {
+                log.warn("checkout.session.*: session is null (deserialization failed)");
+                return;
+            }
+
+            Map<String, String> md = session.getMetadata();
+            String postIdStr = md == null ? null : md.get("postId");
+            String userIdStr = md == null ? null : md.get("userId");
+
+            log.info("Session: id={}, payment_status={}, postId={}, userId={}, payment_intent={}",
+                    session.getId(),
+                    session.getPaymentStatus(),
+                    postIdStr,
+                    userIdStr,
+                    session.getPaymentIntent()
+            );
+
+            boolean okToCreate =
+                    "paid".equals(session.getPaymentStatus())
+                            || "checkout.session.async_payment_succeeded".equals(event.getType());
+
+            if (okToCreate && postIdStr != null && userIdStr != null) {
+                int postId = Integer.parseInt(postIdStr);
+                int userId = Integer.parseInt(userIdStr);
+
+                String paymentIntentId = session.getPaymentIntent(); // може бути null
+                String sessionId = session.getId();
+
+                ticketService.registerPaid(postId, userId, paymentIntentId, sessionId, quantityOf(md),
+                        RevenueLedgerService.Payment.ofMinorUnits(session.getAmountTotal(), session.getCurrency()));
+                log.info("Ticket ensured via session event for postId={}, userId={}", postId, userId);
+            } else {
+                log.warn("Session not eligible or missing metadata. okToCreate={}, postId={}, userId={}",
+                        okToCreate, postIdStr, userIdStr);
+            }
+
+            return;
+        }
+
+        if ("payment_intent.succeeded".equals(event.getType())) {
+
+            PaymentIntent pi = extractPaymentIntent(event);
+            if (pi == null) {
+                log.warn("payment_intent.succeeded: paymentIntent is null (deserialization failed)");
+                return;
+            }
+
+            Map<String, String> md = pi.getMetadata();
+            String postIdStr = md == null ? null : md.get("postId");
+            String userIdStr = md == null ? null : md.get("userId");
+
+            log.info("PaymentIntent: id={}, postId={}, userId={}", pi.getId(), postIdStr, userIdStr);
+
+            if (postIdStr != null && userIdStr != null) {
+                int postId = Integer.parseInt(postIdStr);
+                int userId = Integer.parseInt(userIdStr);
+
+                // Тут sessionId може бути null — ми все одно створимо квиток по paymentIntentId
+                ticketService.registerPaid(postId, userId, pi.getId(), null, quantityOf(md),
+                        RevenueLedgerService.Payment.ofMinorUnits(pi.getAmountReceived(), pi.getCurrency()));
+                log.info("Ticket ensured via payment_intent for postId={}, userId={}", postId, userId);
+            } else {
+                log.warn("PaymentIntent missing metadata postId/userId (add PaymentIntentData metadata in PaymentController)");
+            }
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    private Session extractSession(Event event) {
+        try {
+            EventDataObjectDeserializer des = event.getDataObjectDeserializer();
+
+            StripeObject obj = des.getObject().orElse(null);
+            if (obj == null) {
+                try {
+                    obj = des.deserializeUnsafe();
+                } catch (EventDataObjectDeserializationException e) {
+                    log.warn("Failed to deserialize Session (unsafe): {}", e.getMessage());
+                    return null;
+                }
+            }
+
+            return (obj instanceof Session) ? (Session) obj : null;
+        } catch (Exception e) {
+            log.warn("Failed to extract Session: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private PaymentIntent extractPaymentIntent(Event event) {
+        try {
+            EventDataObjectDeserializer des = event.getDataObjectDeserializer();
+
+            StripeObject obj = des.getObject().orElse(null);
+            if (obj == null) {
+                try {
+                    obj = des.deserializeUnsafe();
+                } catch (EventDataObjectDeserializationException e) {
+                    log.warn("Failed to deserialize PaymentIntent (unsafe): {}", e.getMessage());
+                    return null;
+                }
+            }
+
+            return (obj instanceof PaymentIntent) ? (PaymentIntent) obj : null;
+        } catch (Exception e) {
+            log.warn("Failed to extract PaymentIntent: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int quantityOf(Map<String, String> md) {
+        String q = md == null ? null : md.get("quantity");
+        try {
+            return q == null ? 1 : Math.max(1, Integer.parseInt(q));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
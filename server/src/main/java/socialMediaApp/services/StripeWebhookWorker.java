@@ -0,0 +1,124 @@
+package socialMediaApp.services;
+
+import com.stripe.model.Event;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import socialMediaApp.models.StripeWebhookEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool behind the webhook inbox.
+ *
+ * The webhook endpoint only stores the event and hands its id to {@link #submit}. When the
+ * pool is saturated the id is simply not queued: the row is durable and the poller picks it
+ * up later, together with retries whose backoff has elapsed and rows whose worker died.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StripeWebhookWorker {
+
+    private final StripeWebhookInboxService inboxService;
+    private final StripeWebhookProcessor processor;
+
+    @Value("${stripe.webhookSecret}")
+    private String webhookSecret;
+
+    @Value("${app.webhooks.workers:4}")
+    private int workers;
+
+    @Value("${app.webhooks.queueCapacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.webhooks.pollBatch:200}")
+    private int pollBatch;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger n = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "stripe-webhook-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS); // unfinished rows are re-leased after restart
+    }
+
+    /** Queues the event once the transaction that stored it has committed. */
+    public void submit(String eventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(eventId);
+                }
+            });
+        } else {
+            enqueue(eventId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.pollMillis:5000}")
+    public void poll() {
+        for (String eventId : inboxService.findDue(pollBatch)) {
+            if (!enqueue(eventId)) break; // pool is full; the rest waits for the next run
+        }
+    }
+
+    void process(String eventId) {
+        StripeWebhookEvent row = inboxService.claim(eventId).orElse(null);
+        if (row == null) return; // done, backing off, or another worker has it
+
+        try {
+            // tolerance 0: the signature is checked, its (by now old) timestamp is not
+            Event event = Webhook.constructEvent(row.getPayload(), row.getSignature(), webhookSecret, 0);
+            processor.handle(event);
+            inboxService.markDone(eventId);
+        } catch (SignatureVerificationException e) {
+            // only possible if the row was altered or the secret rotated; retrying will not help
+            inboxService.markFailedAttempt(eventId, Integer.MAX_VALUE, e.getMessage());
+            log.error("Stripe webhook {} no longer verifies against stripe.webhookSecret, giving up", eventId);
+        } catch (RuntimeException e) {
+            boolean gaveUp = inboxService.markFailedAttempt(eventId, row.getAttempts(), e.toString());
+            if (gaveUp) {
+                log.error("Stripe webhook {} ({}) failed {} times, giving up", eventId, row.getType(), row.getAttempts(), e);
+            } else {
+                log.warn("Stripe webhook {} ({}) attempt {} failed, will retry: {}",
+                        eventId, row.getType(), row.getAttempts(), e.toString());
+            }
+        }
+    }
+
+    private boolean enqueue(String eventId) {
+        try {
+            executor.execute(() -> process(eventId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
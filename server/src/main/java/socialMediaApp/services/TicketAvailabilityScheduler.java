@@ -0,0 +1,17 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TicketAvailabilityScheduler {
+
+    private final TicketAvailabilityService availabilityService;
+
+    @Scheduled(fixedDelayString = "${app.availability.publishMillis:1000}")
+    public void publish() {
+        availabilityService.publishChanged();
+    }
+}
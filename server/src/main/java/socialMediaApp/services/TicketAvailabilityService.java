@@ -0,0 +1,242 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.PostRepository;
+import socialMediaApp.repositories.SeatHoldRepository;
+import socialMediaApp.repositories.TicketRepository;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-event availability cache for event pages.
+ *
+ * A snapshot is served for at most {@code app.availability.maxStaleMillis}. Reservations,
+ * hold changes and releases on this instance evict it after commit, so local changes show
+ * up on the next read; the TTL bounds staleness for changes made by other instances.
+ *
+ * Watchers can also subscribe to a stream instead of polling. The publisher re-reads each
+ * watched event once per tick (from this cache) and pushes only when the numbers moved, so
+ * any number of watchers costs one lookup per event per TTL.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketAvailabilityService {
+
+    private static final String EVENT = "availability";
+
+    private final PostService postService;
+    private final PostRepository postRepository;
+    private final TicketRepository ticketRepository;
+    private final TicketInventoryService inventoryService;
+    private final SeatHoldRepository seatHoldRepository;
+    private final SseHub hub;
+
+    @Value("${app.availability.maxStaleMillis:2000}")
+    private long maxStaleMillis;
+
+    @Value("${app.availability.maxBulk:100}")
+    private int maxBulk;
+
+    @Value("${app.availability.streamTimeoutMillis:600000}")
+    private long streamTimeoutMillis;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final Map<Integer, Snapshot> cache = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, Object>> lastSent = new ConcurrentHashMap<>();
+    private final Set<Integer> watched = ConcurrentHashMap.newKeySet();
+
+    public Map<String, Object> get(int postId) {
+        while (true) {
+            long now = clock.millis();
+            Snapshot s = cache.get(postId);
+            if (s != null && now - s.loadedAt < maxStaleMillis) return await(s.value);
+
+            // one loader per event; concurrent readers of the same event wait on its future.
+            // The load itself runs outside the map so it never holds a bin lock during queries.
+            Snapshot mine = new Snapshot(new CompletableFuture<>(), now);
+            boolean won = s == null ? cache.putIfAbsent(postId, mine) == null : cache.replace(postId, s, mine);
+            if (!won) continue;
+            try {
+                Map<String, Object> value = load(postId);
+                mine.value.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                cache.remove(postId, mine);
+                mine.value.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Availability for many events at once, keyed by post id in request order. Cached
+     * snapshots are reused; the rest is loaded with one grouped query per source.
+     * Unknown ids are left out.
+     */
+    public Map<Integer, Map<String, Object>> getAll(Collection<Integer> postIds) {
+        if (postIds.size() > maxBulk) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "TOO_MANY_IDS");
+        }
+        long now = clock.millis();
+        Map<Integer, Map<String, Object>> out = new LinkedHashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer postId : postIds) {
+            Snapshot s = cache.get(postId);
+            Map<String, Object> cached = s != null && now - s.loadedAt < maxStaleMillis ? s.value.getNow(null) : null;
+            if (cached != null) {
+                out.put(postId, cached);
+            } else {
+                out.put(postId, null); // keeps request order
+                missing.add(postId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Integer, Map<String, Object>> loaded = loadAll(missing);
+            loaded.forEach((postId, value) ->
+                    cache.put(postId, new Snapshot(CompletableFuture.completedFuture(value), now)));
+            out.putAll(loaded);
+        }
+        out.values().removeIf(Objects::isNull);
+        return out;
+    }
+
+    /** Seats were reserved, held, released or sold for this event. */
+    public void changed(int postId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(postId);
+                }
+            });
+        } else {
+            cache.remove(postId);
+        }
+    }
+
+    // ---------- Streams ----------
+
+    public SseEmitter subscribe(int postId) {
+        Map<String, Object> current = get(postId);
+        SseEmitter emitter = hub.subscribe(channel(postId), streamTimeoutMillis);
+        watched.add(postId);
+        hub.send(channel(postId), emitter, EVENT, current);
+        return emitter;
+    }
+
+    /** Pushes to watchers of every event whose availability moved since the last push. */
+    public void publishChanged() {
+        for (Integer postId : watched) {
+            if (!hub.hasSubscribers(channel(postId))) {
+                watched.remove(postId);
+                lastSent.remove(postId);
+                continue;
+            }
+            Map<String, Object> current = get(postId);
+            if (!current.equals(lastSent.put(postId, current))) {
+                hub.publish(channel(postId), EVENT, current);
+            }
+        }
+    }
+
+    // ---------- Internals ----------
+
+    private Map<String, Object> load(int postId) {
+        Post post = postService.getById(postId);
+
+        Integer seats = post.getCapacity(); // TOTAL
+        Integer available = null;
+        if (seats != null) {
+            available = inventoryService.remaining(post);
+            if (available == null) { // nothing sold through the inventory yet
+                long sold = ticketRepository.countByPost_IdAndStatusIn(
+                        postId,
+                        List.of(TicketStatus.ACTIVE, TicketStatus.USED)
+                );
+                available = Math.max(0, seats - (int) sold);
+            }
+        }
+
+        return snapshot(seats, available, seatHoldRepository.sumActiveQuantity(postId));
+    }
+
+    private Map<Integer, Map<String, Object>> loadAll(Set<Integer> postIds) {
+        List<Post> posts = postRepository.findAllById(postIds);
+        Map<Integer, Integer> remaining = inventoryService.remaining(posts);
+
+        // events with a capacity that never sold through the inventory fall back to counting
+        List<Integer> uncounted = posts.stream()
+                .filter(p -> p.getCapacity() != null && !remaining.containsKey(p.getId()))
+                .map(Post::getId)
+                .toList();
+        Map<Integer, Long> sold = uncounted.isEmpty()
+                ? Map.of()
+                : sums(ticketRepository.countByPostIdsAndStatusIn(uncounted, List.of(TicketStatus.ACTIVE, TicketStatus.USED)));
+        Map<Integer, Long> held = sums(seatHoldRepository.sumActiveQuantityByPostIds(postIds));
+
+        Map<Integer, Map<String, Object>> out = new HashMap<>();
+        for (Post p : posts) {
+            Integer seats = p.getCapacity();
+            Integer available = null;
+            if (seats != null) {
+                available = remaining.get(p.getId());
+                if (available == null) {
+                    available = Math.max(0, seats - sold.getOrDefault(p.getId(), 0L).intValue());
+                }
+            }
+            out.put(p.getId(), snapshot(seats, available, held.getOrDefault(p.getId(), 0L)));
+        }
+        return out;
+    }
+
+    private static Map<String, Object> snapshot(Integer seats, Integer available, long held) {
+        Map<String, Object> res = new HashMap<>();
+        res.put("seats", seats);
+        res.put("available", available); // already excludes held seats
+        res.put("held", held);
+        return Collections.unmodifiableMap(res);
+    }
+
+    private static Map<Integer, Long> sums(List<Object[]> rows) {
+        Map<Integer, Long> out = new HashMap<>();
+        for (Object[] row : rows) out.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        return out;
+    }
+
+    private static String channel(int postId) {
+        return "availability:" + postId;
+    }
+
+    private static Map<String, Object> await(CompletableFuture<Map<String, Object>> value) {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private record Snapshot(CompletableFuture<Map<String, Object>> value, long loadedAt) {}
+}
@@ -0,0 +1,182 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.TicketCodeNode;
+import socialMediaApp.repositories.TicketCodeNodeRepository;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.HexFormat;
+
+/**
+ * Ticket codes that are unique by construction, so issuing one needs no DB lookup.
+ *
+ * Each code starts as a 64-bit id: node (10 bits) | seconds since 2024-01-01 (32 bits) |
+ * sequence (22 bits). Two instances never share a node id and one instance never repeats
+ * (second, sequence), so ids never collide. Seconds are reserved ahead in
+ * {@code ticket_code_nodes} by {@link #refresh} (at startup and from a scheduler, never from
+ * {@link #next}, which runs inside issuing transactions); a restarted node resumes above its
+ * reservation, so a clock that stepped back across the restart cannot repeat codes. The id is then run through a keyed Feistel
+ * permutation: still one-to-one, but without the secret a code reveals nothing about the
+ * node, the time or its neighbours. Output is 16 upper-case hex chars, same as before.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TicketCodeGenerator {
+
+    private static final long EPOCH_SECONDS = 1_704_067_200L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQ_BITS = 22;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQ = (1L << SEQ_BITS) - 1;
+    private static final long SECONDS_MASK = (1L << 32) - 1;
+    private static final long RESERVE_AHEAD_SECONDS = 300; // one DB write per node per ~3 minutes
+    private static final long REFRESH_MARGIN_SECONDS = 120;
+
+    public static final String ERR_UNAVAILABLE = "TICKET_CODES_UNAVAILABLE";
+
+    private static final int ROUNDS = 6;
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    private final TicketCodeNodeRepository nodeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /** Must be unique per running instance; -1 derives one from the host name. */
+    @Value("${app.tickets.nodeId:-1}")
+    private long nodeId = -1;
+
+    /** Set when running several instances: a host-name hash can collide, so nodeId must be set. */
+    @Value("${app.tickets.requireNodeId:false}")
+    private boolean requireNodeId;
+
+    @Value("${app.tickets.codeSecret:${jwt.secret}}")
+    private String secret;
+
+    private Clock clock = Clock.systemUTC();
+
+    private Mac mac;
+    private long node;
+    private long lastSecond;
+    private long sequence;
+    private long reservedUntil = -1;
+
+    private final Object refreshLock = new Object();
+
+    @PostConstruct
+    void start() {
+        synchronized (this) {
+            if (mac == null) init(); // fail at startup, not on the first sale
+        }
+        refresh();
+    }
+
+    /**
+     * Extends the reservation once fewer than {@code REFRESH_MARGIN_SECONDS} are left. The write
+     * commits in its own transaction without holding the generator's lock, so issuing threads
+     * never wait on a connection for it.
+     */
+    public void refresh() {
+        synchronized (refreshLock) {
+            long until;
+            synchronized (this) {
+                long current = Math.max(clock.millis() / 1000 - EPOCH_SECONDS, lastSecond);
+                if (reservedUntil - current >= REFRESH_MARGIN_SECONDS) return;
+                until = current + RESERVE_AHEAD_SECONDS;
+            }
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tx.executeWithoutResult(s -> nodeRepository.reserve((int) node, until));
+            synchronized (this) {
+                reservedUntil = Math.max(reservedUntil, until);
+            }
+        }
+    }
+
+    public synchronized String next() {
+        if (mac == null) init();
+
+        long second = Math.max(clock.millis() / 1000 - EPOCH_SECONDS, lastSecond); // never run backwards
+        if (second == lastSecond) {
+            if (++sequence > MAX_SEQ) {
+                // more than 4M codes in one second: borrow the next second instead of waiting
+                second = ++lastSecond;
+                sequence = 0;
+            }
+        } else {
+            lastSecond = second;
+            sequence = 0;
+        }
+        if (second > reservedUntil) {
+            // the refresh fell behind (DB down?): a code past the reservation could repeat after a restart
+            log.error("Ticket code second {} is past the reservation {} of node {}", second, reservedUntil, node);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ERR_UNAVAILABLE);
+        }
+
+        long id = (node << (32 + SEQ_BITS)) | ((second & SECONDS_MASK) << SEQ_BITS) | sequence;
+        return HEX.toHexDigits(permute(id));
+    }
+
+    private long permute(long id) {
+        int left = (int) (id >>> 32);
+        int right = (int) id;
+        for (int round = 0; round < ROUNDS; round++) {
+            int next = left ^ roundFunction(round, right);
+            left = right;
+            right = next;
+        }
+        return ((long) left << 32) | (right & 0xFFFFFFFFL);
+    }
+
+    private int roundFunction(int round, int half) {
+        byte[] digest = mac.doFinal(ByteBuffer.allocate(5).put((byte) round).putInt(half).array());
+        return ByteBuffer.wrap(digest).getInt();
+    }
+
+    private void init() {
+        try {
+            mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(("ticket-code:" + secret).getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (Exception e) {
+            throw new IllegalStateException("Ticket code generator init failed", e);
+        }
+
+        if (nodeId >= 0) {
+            if (nodeId > MAX_NODE) throw new IllegalStateException("app.tickets.nodeId must be 0.." + MAX_NODE);
+            node = nodeId;
+        } else if (requireNodeId) {
+            throw new IllegalStateException("app.tickets.nodeId must be set (0.." + MAX_NODE + ") when app.tickets.requireNodeId is on");
+        } else {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "localhost";
+            }
+            node = (host.hashCode() & 0x7fffffff) % (MAX_NODE + 1);
+            log.warn("app.tickets.nodeId not set, using {} derived from host {}. Set it explicitly when running several instances.",
+                    node, host);
+        }
+
+        // everything up to the last reservation may have been used, whatever the clock says now
+        long reserved = nodeRepository.findById((int) node).map(TicketCodeNode::getReservedUntil).orElse(-1L);
+        if (reserved >= 0 && reserved + 1 > lastSecond) {
+            lastSecond = reserved + 1;
+            sequence = -1; // the first code takes sequence 0 of that second
+        }
+    }
+}
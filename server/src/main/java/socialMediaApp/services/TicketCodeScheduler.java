@@ -0,0 +1,23 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketCodeScheduler {
+
+    private final TicketCodeGenerator ticketCodeGenerator;
+
+    @Scheduled(fixedDelayString = "${app.tickets.codeRefreshMillis:10000}")
+    public void refresh() {
+        try {
+            ticketCodeGenerator.refresh();
+        } catch (RuntimeException e) {
+            log.warn("Ticket code reservation refresh failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.TicketEmailOutbox;
+import socialMediaApp.responses.admin.MailMetricsResponse;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends queued ticket emails off the request path.
+ *
+ * Ticket issuing calls {@link #enqueueTicket} / {@link #enqueueGroup}, which only write an
+ * outbox row; the id is queued in memory once the purchase commits. Each worker takes up to
+ * {@code batchSize} ids at a time, renders QR + PDF without holding a DB connection and sends
+ * the whole batch over one pooled SMTP connection ({@link SmtpTransportPool}). A full queue,
+ * a crash or a failed send is fine: the poller picks due rows up again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketEmailDispatcher {
+
+    private final TicketEmailOutboxService outbox;
+    private final MailService mailService;
+    private final SmtpTransportPool smtpPool;
+
+    @Value("${app.mail.outbox.workers:4}")
+    private int workers;
+
+    @Value("${app.mail.outbox.queueCapacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.mail.outbox.pollBatch:200}")
+    private int pollBatch;
+
+    @Value("${app.mail.outbox.batchSize:50}")
+    private int batchSize;
+
+    private BlockingQueue<Long> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int i = 1; i <= workers; i++) {
+            Thread t = new Thread(this::runWorker, "ticket-mail-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join(10_000); // unsent rows are re-leased after restart
+    }
+
+    public void enqueueTicket(Ticket t) {
+        submit(outbox.enqueueTicket(t));
+    }
+
+    public void enqueueGroup(int postId, int userId) {
+        submit(outbox.enqueueGroup(postId, userId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.pollMillis:5000}")
+    public void poll() {
+        for (Long id : outbox.findDue(pollBatch)) {
+            if (!queue.offer(id)) break; // queue is full; the rest waits for the next run
+        }
+    }
+
+    public MailMetricsResponse metrics() {
+        return new MailMetricsResponse(
+                smtpPool.sentTotal(),
+                smtpPool.failedTotal(),
+                smtpPool.sentPerSecond(),
+                queue.size(),
+                outbox.countPending(),
+                outbox.countDead(),
+                smtpPool.size(),
+                smtpPool.idleConnections(),
+                smtpPool.connectionsOpened());
+    }
+
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ticket email batch failed", e); // rows stay leased and are retried by the poller
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<Long> ids) throws InterruptedException {
+        List<TicketEmailOutbox> rows = new ArrayList<>(ids.size());
+        List<MimeMessage> messages = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            TicketEmailOutbox m = outbox.claim(id).orElse(null);
+            if (m == null) continue; // sent, backing off, or another worker has it
+
+            List<Ticket> tickets = outbox.ticketsFor(m);
+            if (tickets.isEmpty()) {
+                outbox.markFailedAttempt(id, Integer.MAX_VALUE, "TICKET_NOT_FOUND");
+                log.warn("Ticket email {} dropped: no tickets for postId={} userId={}", id, m.getPostId(), m.getUserId());
+                continue;
+            }
+            try {
+                messages.add(mailService.buildGroupTicketEmail(tickets));
+                rows.add(m);
+            } catch (RuntimeException e) {
+                failed(m, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        Exception[] failures = smtpPool.send(messages);
+        for (int i = 0; i < rows.size(); i++) {
+            if (failures[i] == null) {
+                outbox.markSent(rows.get(i).getId());
+            } else {
+                failed(rows.get(i), failures[i]);
+            }
+        }
+    }
+
+    private void failed(TicketEmailOutbox m, Exception e) {
+        boolean dead = outbox.markFailedAttempt(m.getId(), m.getAttempts(), e.toString());
+        if (dead) {
+            log.error("Ticket email {} failed {} times, moved to DEAD", m.getId(), m.getAttempts(), e);
+        } else {
+            log.warn("Ticket email {} attempt {} failed, will retry: {}", m.getId(), m.getAttempts(), e.toString());
+        }
+    }
+
+    /** Queues the row after the issuing transaction commits. */
+    private void submit(long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.offer(id);
+                }
+            });
+        } else {
+            queue.offer(id);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.TicketEmailOutbox;
+import socialMediaApp.models.enums.EmailOutboxStatus;
+import socialMediaApp.repositories.TicketEmailOutboxRepository;
+import socialMediaApp.repositories.TicketRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Transactional outbox for ticket emails: PENDING -> SENDING -> SENT, or back to PENDING
+ * with exponential backoff after a failed send, and DEAD after the last attempt.
+ * Rows are written inside the purchase transaction, so an email exists exactly when the
+ * ticket does; every later transition is a conditional UPDATE.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TicketEmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final TicketEmailOutboxRepository outboxRepository;
+    private final TicketRepository ticketRepository;
+
+    @Value("${app.mail.outbox.maxAttempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoffBaseMillis:30000}")
+    private long backoffBaseMillis;
+
+    @Value("${app.mail.outbox.backoffMaxMillis:3600000}")
+    private long backoffMaxMillis;
+
+    @Value("${app.mail.outbox.leaseMillis:300000}")
+    private long leaseMillis;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** Queues the email for one ticket; joins the caller's transaction. */
+    @Transactional
+    public long enqueueTicket(Ticket t) {
+        return enqueue(t.getPost().getId(), t.getUser().getId(), t.getId());
+    }
+
+    /** Queues one email with every ticket {@code userId} holds for {@code postId}. */
+    @Transactional
+    public long enqueueGroup(int postId, int userId) {
+        return enqueue(postId, userId, null);
+    }
+
+    private long enqueue(int postId, int userId, Integer ticketId) {
+        LocalDateTime now = now();
+        TicketEmailOutbox m = new TicketEmailOutbox();
+        m.setPostId(postId);
+        m.setUserId(userId);
+        m.setTicketId(ticketId);
+        m.setStatus(EmailOutboxStatus.PENDING);
+        m.setNextAttemptAt(now);
+        m.setCreatedAt(now);
+        return outboxRepository.save(m).getId();
+    }
+
+    /** Takes the row for one send attempt, or empty when not due / owned elsewhere. */
+    @Transactional
+    public Optional<TicketEmailOutbox> claim(long id) {
+        LocalDateTime now = now();
+        if (outboxRepository.claim(id, now, now.plusNanos(leaseMillis * 1_000_000)) == 0) {
+            return Optional.empty();
+        }
+        return outboxRepository.findById(id);
+    }
+
+    /** The tickets the message is about; empty when they no longer exist. */
+    public List<Ticket> ticketsFor(TicketEmailOutbox m) {
+        if (m.getTicketId() != null) {
+            return ticketRepository.findById(m.getTicketId()).map(List::of).orElse(List.of());
+        }
+        return ticketRepository.findAllByPost_IdAndUser_IdOrderBySeatNoAsc(m.getPostId(), m.getUserId());
+    }
+
+    @Transactional
+    public void markSent(long id) {
+        outboxRepository.markSent(id, now());
+    }
+
+    /**
+     * Schedules the next attempt after a failed one ({@code attempts} already counts it).
+     * Returns true when the message was moved to DEAD.
+     */
+    @Transactional
+    public boolean markFailedAttempt(long id, int attempts, String error) {
+        boolean giveUp = attempts >= maxAttempts;
+        LocalDateTime next = now().plusNanos(backoffMillis(attempts) * 1_000_000);
+        String msg = error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        outboxRepository.markFailedAttempt(id, giveUp ? EmailOutboxStatus.DEAD : EmailOutboxStatus.PENDING, next, msg);
+        return giveUp;
+    }
+
+    public List<Long> findDue(int limit) {
+        return outboxRepository.findDueIds(now(), PageRequest.of(0, limit));
+    }
+
+    public long countPending() {
+        return outboxRepository.countByStatusIn(List.of(EmailOutboxStatus.PENDING, EmailOutboxStatus.SENDING));
+    }
+
+    public long countDead() {
+        return outboxRepository.countByStatusIn(List.of(EmailOutboxStatus.DEAD));
+    }
+
+    long backoffMillis(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(backoffMaxMillis, backoffBaseMillis << shift);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+}
@@ -0,0 +1,204 @@
+package socialMediaApp.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.TicketRollupDaily;
+import socialMediaApp.repositories.TicketRepository;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Organizer exports (tickets, attendees, daily stats) as CSV or NDJSON.
+ *
+ * Rows come off a streaming JDBC result set and are written to the response as they are read,
+ * through a fixed-size buffer; nothing is collected in between, so memory use is the same for
+ * a hundred tickets or a million. Call {@link #requireOwner} before the response is committed:
+ * once the first row is out, errors can only cut the download short.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketExportService {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final LocalDate BEGINNING = LocalDate.of(2000, 1, 1);
+
+    private final TicketRepository ticketRepository;
+    private final TicketRollupService rollups;
+    private final PostService postService;
+    private final ObjectMapper objectMapper;
+
+    public enum Dataset { TICKETS, ATTENDEES, DAILY }
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    public static Dataset dataset(String name) {
+        return parse(Dataset.class, name, "UNSUPPORTED_EXPORT");
+    }
+
+    public static Format format(String name) {
+        return parse(Format.class, name, "UNSUPPORTED_FORMAT");
+    }
+
+    public void requireOwner(int postId, int actorUserId) {
+        Post post = postService.getById(postId);
+        if (post.getUser().getId() != actorUserId) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "ONLY_EVENT_OWNER");
+        }
+    }
+
+    public String fileName(int postId, Dataset dataset, Format format) {
+        return "event-" + postId + "-" + dataset.name().toLowerCase(Locale.ROOT) + "." + format.extension;
+    }
+
+    public void write(int postId, Dataset dataset, Format format, OutputStream out) throws IOException {
+        try (RowWriter w = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out, objectMapper)) {
+            switch (dataset) {
+                case TICKETS -> {
+                    w.header("ticketId", "code", "seatNo", "status", "paymentStatus", "createdAt", "usedAt",
+                            "userId", "name", "lastName", "email");
+                    ticketRepository.streamTickets(postId, r -> w.rowUnchecked(
+                            r.ticketId(), r.code(), r.seatNo(), r.status(), r.paymentStatus(), r.createdAt(), r.usedAt(),
+                            r.userId(), r.name(), r.lastName(), r.email()));
+                }
+                case ATTENDEES -> {
+                    w.header("userId", "name", "lastName", "email", "tickets", "used", "firstCheckIn");
+                    ticketRepository.streamAttendees(postId, r -> w.rowUnchecked(
+                            r.userId(), r.name(), r.lastName(), r.email(), r.tickets(), r.used(), r.firstCheckIn()));
+                }
+                case DAILY -> {
+                    // one row per day; small enough to read as a list
+                    w.header("day", "sold", "used", "revenue");
+                    for (TicketRollupDaily d : rollups.daily(postId, BEGINNING)) {
+                        w.row(d.getDay(), d.getSold(), d.getUsed(), d.getRevenue());
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // client went away mid-download
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String name, String error) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+    }
+
+    // ---------- Writers ----------
+
+    private abstract static class RowWriter implements Closeable {
+        protected String[] columns;
+
+        void header(String... columns) throws IOException {
+            this.columns = columns;
+        }
+
+        abstract void row(Object... values) throws IOException;
+
+        void rowUnchecked(Object... values) {
+            try {
+                row(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class CsvWriter extends RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        }
+
+        @Override
+        void header(String... columns) throws IOException {
+            super.header(columns);
+            row((Object[]) columns);
+        }
+
+        @Override
+        void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                if (values[i] != null) out.write(escape(values[i]));
+            }
+            out.write("\r\n");
+        }
+
+        private static String escape(Object value) {
+            String s = value instanceof BigDecimal bd ? bd.toPlainString() : value.toString();
+            if (!(value instanceof Number) && !s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0) {
+                s = "'" + s; // keep spreadsheets from evaluating user-supplied names as formulas
+            }
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+                return s;
+            }
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush(); // the servlet container owns the stream
+        }
+    }
+
+    private static final class NdjsonWriter extends RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out, ObjectMapper mapper) throws IOException {
+            this.json = mapper.getFactory()
+                    .createGenerator(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS))
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void row(Object... values) throws IOException {
+            json.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object v = values[i];
+                json.writeFieldName(columns[i]);
+                if (v == null) json.writeNull();
+                else if (v instanceof BigDecimal bd) json.writeNumber(bd);
+                else if (v instanceof Long l) json.writeNumber(l);
+                else if (v instanceof Integer n) json.writeNumber(n);
+                else json.writeString(v.toString());
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close(); // flushes; AUTO_CLOSE_TARGET is off
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import socialMediaApp.models.EventInventory;
+import socialMediaApp.models.EventInventoryShard;
+import socialMediaApp.models.Post;
+import socialMediaApp.repositories.EventInventoryRepository;
+import socialMediaApp.repositories.EventInventoryShardRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seat accounting for capacity-limited events.
+ * Must run inside the issuing transaction so a failed insert also rolls the reservation back.
+ *
+ * Large events can be split into N counter slots ({@code app.inventory.shards}) so concurrent
+ * buyers lock different rows. A buyer whose slot is drained triggers a rebalance that locks all
+ * slots of the event and spreads the leftover seats evenly again; the sum over slots stays exact.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+public class TicketInventoryService {
+
+    private final EventInventoryRepository inventoryRepository;
+    private final EventInventoryShardRepository shardRepository;
+
+    @Value("${app.inventory.shards:1}")
+    private int shards;
+
+    @Value("${app.inventory.shardMinCapacity:500}")
+    private int shardMinCapacity;
+
+    // slot count per event never changes once seeded (and committed), so it is safe to remember
+    private final Map<Integer, Integer> shardsByPost = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves {@code qty} seats with a single conditional UPDATE.
+     * Returns false when the event has no room left; unlimited events always succeed.
+     */
+    public boolean tryReserve(Post post, int qty) {
+        if (post.getCapacity() == null) return true;
+        return reserve(post, qty, false);
+    }
+
+    private boolean reserve(Post post, int qty, boolean reseeded) {
+        int postId = post.getId();
+        int slots = slotsOf(post);
+        if (slots > 1) {
+            int slot = ThreadLocalRandom.current().nextInt(slots);
+            if (shardRepository.tryReserve(postId, slot, qty) == 1) return true;
+            Boolean reserved = rebalanceAndReserve(postId, qty);
+            if (reserved != null) return reserved;
+        } else {
+            if (inventoryRepository.tryReserve(postId, qty, post.getCapacity(), LocalDateTime.now()) == 1) return true;
+            if (inventoryRepository.existsById(postId)) return false;
+        }
+        // the cached layout points at rows that are gone (the seeding transaction rolled back)
+        shardsByPost.remove(postId);
+        return !reseeded && reserve(post, qty, true);
+    }
+
+    public void release(int postId, int qty) {
+        Integer slots = shardsByPost.get(postId);
+        if (slots == null) {
+            slots = inventoryRepository.findById(postId).map(EventInventory::getShards).orElse(1);
+        }
+        if (slots <= 1) {
+            inventoryRepository.release(postId, qty, LocalDateTime.now());
+            return;
+        }
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            if (shardRepository.release(postId, (start + i) % slots, qty) == 1) return;
+        }
+        // no single slot sold that many: take them back slot by slot under the lock
+        int left = qty;
+        for (EventInventoryShard s : shardRepository.findAllByPostIdOrderBySlotAsc(postId)) {
+            int take = Math.min(left, s.getSold());
+            s.setSold(s.getSold() - take); // freed seats stay free in this slot; JPA dirty-check
+            left -= take;
+            if (left == 0) return;
+        }
+    }
+
+    /**
+     * Exact number of seats left, or null when the event is unlimited or has not sold yet
+     * (the caller then falls back to counting tickets). A plain read, so no issuing transaction needed.
+     */
+    @Transactional(readOnly = true)
+    public Integer remaining(Post post) {
+        if (post.getCapacity() == null) return null;
+        EventInventory inv = inventoryRepository.findById(post.getId()).orElse(null);
+        if (inv == null) return null;
+        if (inv.getShards() > 1) {
+            return (int) shardRepository.sumRemaining(post.getId());
+        }
+        return Math.max(0, post.getCapacity() - inv.getSold());
+    }
+
+    /**
+     * {@link #remaining(Post)} for many events with two queries. Events that are unlimited or
+     * have not sold yet are left out of the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, Integer> remaining(Collection<Post> posts) {
+        Map<Integer, Post> limited = new HashMap<>();
+        for (Post p : posts) {
+            if (p.getCapacity() != null) limited.put(p.getId(), p);
+        }
+        if (limited.isEmpty()) return Map.of();
+
+        Map<Integer, Integer> out = new HashMap<>();
+        List<Integer> sharded = new ArrayList<>();
+        for (EventInventory inv : inventoryRepository.findAllById(limited.keySet())) {
+            if (inv.getShards() > 1) {
+                sharded.add(inv.getPostId());
+            } else {
+                out.put(inv.getPostId(), Math.max(0, limited.get(inv.getPostId()).getCapacity() - inv.getSold()));
+            }
+        }
+        if (!sharded.isEmpty()) {
+            for (Object[] row : shardRepository.sumRemainingByPostIds(sharded)) {
+                out.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            }
+        }
+        return out;
+    }
+
+    // ---------- Helpers ----------
+
+    private int slotsOf(Post post) {
+        Integer known = shardsByPost.get(post.getId());
+        if (known != null) return known;
+
+        EventInventory inv = inventoryRepository.findById(post.getId()).orElse(null);
+        if (inv != null) {
+            int slots = Math.max(1, inv.getShards());
+            shardsByPost.put(post.getId(), slots);
+            return slots;
+        }
+        // only remember a layout we seeded once it is committed; a rollback takes the rows with it
+        int slots = Math.max(1, seed(post));
+        afterCommit(() -> shardsByPost.put(post.getId(), slots));
+        return slots;
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private int seed(Post post) {
+        int capacity = post.getCapacity();
+        if (shards <= 1 || capacity < shardMinCapacity) {
+            inventoryRepository.initIfAbsent(post.getId(), capacity);
+            return 1;
+        }
+        if (inventoryRepository.initShardedIfAbsent(post.getId(), capacity, shards) == 0) {
+            // another buyer seeded it first; use whatever layout it chose
+            return inventoryRepository.findById(post.getId()).map(EventInventory::getShards).orElse(1);
+        }
+
+        int issued = inventoryRepository.countIssued(post.getId());
+        int free = Math.max(0, capacity - issued);
+        List<EventInventoryShard> rows = new ArrayList<>(shards);
+        for (int slot = 0; slot < shards; slot++) {
+            EventInventoryShard s = new EventInventoryShard();
+            s.setPostId(post.getId());
+            s.setSlot(slot);
+            s.setSold(slot == 0 ? issued : 0);
+            s.setCapacity(s.getSold() + share(free, shards, slot));
+            rows.add(s);
+        }
+        shardRepository.saveAll(rows);
+        return shards;
+    }
+
+    // null when the event has no slot rows at all
+    private Boolean rebalanceAndReserve(int postId, int qty) {
+        List<EventInventoryShard> slots = shardRepository.findAllByPostIdOrderBySlotAsc(postId);
+        if (slots.isEmpty()) return null;
+        int free = 0;
+        for (EventInventoryShard s : slots) free += s.getCapacity() - s.getSold();
+        if (free < qty) return false;
+
+        int left = free - qty;
+        for (int i = 0; i < slots.size(); i++) {
+            EventInventoryShard s = slots.get(i);
+            if (i == 0) s.setSold(s.getSold() + qty);
+            s.setCapacity(s.getSold() + share(left, slots.size(), i)); // JPA dirty-check
+        }
+        return true;
+    }
+
+    private static int share(int total, int parts, int index) {
+        return total / parts + (index < total % parts ? 1 : 0);
+    }
+}
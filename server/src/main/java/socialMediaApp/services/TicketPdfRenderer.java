@@ -0,0 +1,167 @@
+package socialMediaApp.services;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import socialMediaApp.models.Ticket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A6 ticket PDFs stamped onto a per-event template.
+ *
+ * The frame, "TICKET" heading, event title and footer are drawn once per event and kept as
+ * an already-compressed content stream. A ticket is a fresh one-page document whose first
+ * content stream is that template (copied raw, not re-encoded) and whose second stream
+ * carries the code, owner, issue date and the QR, drawn as vector rectangles. Both streams
+ * use the same standard fonts under the same resource names, so no font data is embedded.
+ */
+@Component
+public class TicketPdfRenderer {
+
+    private static final PDRectangle PAGE = PDRectangle.A6;
+    private static final float MARGIN = 18f;
+    private static final float FOOTER_RESERVE = 26f;
+    private static final float QR_SIZE = 140f;
+    private static final DateTimeFormatter ISSUED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // registered in this order on every page, so they always get the same names (F1, F2, F3)
+    private static final PDType1Font[] FONTS = {
+            PDType1Font.HELVETICA_BOLD, PDType1Font.HELVETICA, PDType1Font.HELVETICA_OBLIQUE
+    };
+
+    @Value("${app.tickets.pdfTemplateCacheSize:256}")
+    private int cacheSize = 256;
+
+    private final Map<TemplateKey, byte[]> templates = new ConcurrentHashMap<>();
+
+    public byte[] render(Ticket t, ByteMatrix qr) {
+        byte[] template = template(t.getPost().getId(), safe(t.getPost().getTitle()));
+
+        try (PDDocument doc = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream(8192)) {
+            PDPage page = newPage(doc);
+
+            COSStream stamped = doc.getDocument().createCOSStream();
+            try (OutputStream os = stamped.createRawOutputStream()) {
+                os.write(template);
+            }
+            stamped.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            page.setContents(new PDStream(stamped));
+
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page, PDPageContentStream.AppendMode.APPEND, true)) {
+                float h = PAGE.getHeight();
+                text(cs, PDType1Font.HELVETICA, 11, h - MARGIN - 62, "Code: " + safe(t.getCode()));
+                String owner = (safe(t.getUser().getName()) + " " + safe(t.getUser().getLastName())).trim();
+                text(cs, PDType1Font.HELVETICA, 11, h - MARGIN - 80, "Owner: " + owner);
+                if (t.getCreatedAt() != null) {
+                    text(cs, PDType1Font.HELVETICA, 10, h - MARGIN - 98, "Issued: " + t.getCreatedAt().format(ISSUED));
+                }
+                drawQr(cs, qr, (PAGE.getWidth() - QR_SIZE) / 2f, MARGIN + FOOTER_RESERVE);
+            }
+
+            doc.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("PDF generation failed", e);
+        }
+    }
+
+    int cachedTemplates() {
+        return templates.size();
+    }
+
+    private byte[] template(int postId, String title) {
+        TemplateKey key = new TemplateKey(postId, title); // a renamed event gets a new template
+        byte[] cached = templates.get(key);
+        if (cached != null) return cached;
+        if (templates.size() >= cacheSize) templates.clear();
+        return templates.computeIfAbsent(key, k -> buildTemplate(k.title()));
+    }
+
+    private static byte[] buildTemplate(String title) {
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = newPage(doc);
+            float w = PAGE.getWidth();
+            float h = PAGE.getHeight();
+
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page, PDPageContentStream.AppendMode.OVERWRITE, true)) {
+                cs.setLineWidth(1.2f);
+                cs.addRect(MARGIN / 2, MARGIN / 2, w - MARGIN, h - MARGIN);
+                cs.stroke();
+
+                text(cs, PDType1Font.HELVETICA_BOLD, 16, h - MARGIN - 14, "TICKET");
+                text(cs, PDType1Font.HELVETICA_BOLD, 12, h - MARGIN - 40, title);
+                text(cs, PDType1Font.HELVETICA_OBLIQUE, 8.5f, MARGIN + 10,
+                        "Present this ticket at entry. If scanning fails, type the code manually.");
+            }
+
+            COSStream contents = (COSStream) page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+            try (InputStream raw = contents.createRawInputStream()) {
+                return raw.readAllBytes(); // still Flate-encoded
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("PDF template generation failed", e);
+        }
+    }
+
+    private static PDPage newPage(PDDocument doc) {
+        PDPage page = new PDPage(PAGE);
+        PDResources resources = new PDResources();
+        for (PDType1Font f : FONTS) resources.add(f);
+        page.setResources(resources);
+        doc.addPage(page);
+        return page;
+    }
+
+    private static void text(PDPageContentStream cs, PDType1Font font, float size, float y, String s) throws IOException {
+        cs.beginText();
+        cs.setFont(font, size);
+        cs.newLineAtOffset(MARGIN, y);
+        cs.showText(s);
+        cs.endText();
+    }
+
+    /** One filled rectangle per horizontal run of dark modules, inside a white quiet zone. */
+    private static void drawQr(PDPageContentStream cs, ByteMatrix qr, float x, float y) throws IOException {
+        int n = qr.getWidth() + 2 * TicketQrEncoder.QUIET_ZONE;
+        float m = QR_SIZE / n;
+        float top = y + QR_SIZE;
+
+        for (int row = 0; row < qr.getHeight(); row++) {
+            float ry = top - (row + TicketQrEncoder.QUIET_ZONE + 1) * m;
+            int col = 0;
+            while (col < qr.getWidth()) {
+                if (qr.get(col, row) != 1) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < qr.getWidth() && qr.get(col, row) == 1) col++;
+                cs.addRect(x + (start + TicketQrEncoder.QUIET_ZONE) * m, ry, (col - start) * m, m);
+            }
+        }
+        cs.fill();
+    }
+
+    private static String safe(String s) {
+        return s == null ? "" : s;
+    }
+
+    private record TemplateKey(int postId, String title) {}
+}
@@ -0,0 +1,127 @@
+package socialMediaApp.services;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Ticket QR codes without the image round trips.
+ *
+ * {@link #modules} returns the bare module grid (one cell per QR module, no scaling), which the
+ * PDF renderer draws as vector rectangles. {@link #png} writes that grid straight to a 1-bit
+ * grayscale PNG using a per-thread row buffer and {@link Deflater}, instead of
+ * {@code MatrixToImageWriter} allocating an RGB {@code BufferedImage} and going through ImageIO
+ * for every ticket.
+ */
+@Component
+public class TicketQrEncoder {
+
+    /** Quiet zone in modules, on every side. */
+    public static final int QUIET_ZONE = 1;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    public ByteMatrix modules(String payload) {
+        try {
+            return Encoder.encode(payload, ErrorCorrectionLevel.M).getMatrix();
+        } catch (WriterException e) {
+            throw new IllegalStateException("QR generation failed", e);
+        }
+    }
+
+    /** PNG of at most {@code maxSizePx} square, each module a whole number of pixels. */
+    public byte[] png(ByteMatrix modules, int maxSizePx) {
+        int n = modules.getWidth() + 2 * QUIET_ZONE;
+        int scale = Math.max(1, maxSizePx / n);
+        int size = n * scale;
+        int rowBytes = 1 + (size + 7) / 8; // filter byte + 1 bit per pixel
+
+        Buffers b = BUFFERS.get();
+        byte[] raw = b.raw(rowBytes * size);
+        for (int my = 0; my < n; my++) {
+            int off = my * scale * rowBytes;
+            raw[off] = 0; // filter: none
+            Arrays.fill(raw, off + 1, off + rowBytes, (byte) 0xFF); // white
+            int y = my - QUIET_ZONE;
+            if (y >= 0 && y < modules.getHeight()) {
+                for (int x = 0; x < modules.getWidth(); x++) {
+                    if (modules.get(x, y) != 1) continue;
+                    int px = (x + QUIET_ZONE) * scale;
+                    for (int i = px; i < px + scale; i++) {
+                        raw[off + 1 + (i >> 3)] &= (byte) ~(0x80 >>> (i & 7)); // black
+                    }
+                }
+            }
+            for (int r = 1; r < scale; r++) {
+                System.arraycopy(raw, off, raw, off + r * rowBytes, rowBytes);
+            }
+        }
+
+        Deflater deflater = b.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, rowBytes * size);
+        deflater.finish();
+        ByteArrayOutputStream idat = b.idat;
+        idat.reset();
+        byte[] chunk = b.chunk;
+        while (!deflater.finished()) {
+            idat.write(chunk, 0, deflater.deflate(chunk));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(idat.size() + 64);
+        out.writeBytes(PNG_SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, size);
+        putInt(ihdr, 4, size);
+        ihdr[8] = 1; // bit depth
+        ihdr[9] = 0; // grayscale
+        writeChunk(out, b.crc, "IHDR", ihdr, ihdr.length);
+        writeChunk(out, b.crc, "IDAT", idat.toByteArray(), idat.size());
+        writeChunk(out, b.crc, "IEND", new byte[0], 0);
+        return out.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, CRC32 crc, String type, byte[] data, int len) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] word = new byte[4];
+        putInt(word, 0, len);
+        out.writeBytes(word);
+        out.writeBytes(typeBytes);
+        out.write(data, 0, len);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, len);
+        putInt(word, 0, (int) crc.getValue());
+        out.writeBytes(word);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    private static final class Buffers {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final ByteArrayOutputStream idat = new ByteArrayOutputStream(4096);
+        final byte[] chunk = new byte[4096];
+        final CRC32 crc = new CRC32();
+        byte[] raw = new byte[0];
+
+        byte[] raw(int len) {
+            if (raw.length < len) raw = new byte[len];
+            return raw;
+        }
+    }
+}
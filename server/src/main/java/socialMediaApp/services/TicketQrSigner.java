@@ -0,0 +1,100 @@
+package socialMediaApp.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import socialMediaApp.models.Ticket;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Optional self-verifying QR format.
+ *
+ * Plain QR:  {@code TICKET:<postId>:<code>}
+ * Signed QR: {@code TICKET:<postId>:<code>:<postId>.<ticketId>.<initials>.<sig>}
+ *
+ * The verifier app sends everything after the second colon as the "code", so a signed scan
+ * reaches the server as {@code <code>:<postId>.<ticketId>.<initials>.<sig>}. The signature is
+ * an HMAC over post, ticket, code and initials, which lets the server reject forged or
+ * wrong-event tickets before it touches MySQL. Everything is upper-case so the scanner's
+ * upper-casing does not break it.
+ */
+@Service
+public class TicketQrSigner {
+
+    private static final int SIG_BYTES = 10;
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    @Value("${app.tickets.signedQr:false}")
+    private boolean enabled;
+
+    @Value("${app.tickets.qrSecret:${jwt.secret}}")
+    private String secret;
+
+    public record SignedCode(String code, int postId, int ticketId, String initials, boolean signatureValid) {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The part of the QR payload after {@code TICKET:<postId>:}. */
+    public String sign(Ticket t) {
+        String code = t.getCode().toUpperCase();
+        if (!enabled) return code;
+
+        int postId = t.getPost().getId();
+        String initials = initialsOf(t);
+        return code + ":" + postId + "." + t.getId() + "." + initials + "."
+                + HEX.formatHex(mac(postId, t.getId(), code, initials));
+    }
+
+    /** Returns null when {@code scanned} is a plain ticket code. */
+    public SignedCode parse(String scanned) {
+        int colon = scanned.indexOf(':');
+        if (colon < 0) return null;
+
+        String code = scanned.substring(0, colon);
+        String[] parts = scanned.substring(colon + 1).split("\\.");
+        if (parts.length != 4) return new SignedCode(code, 0, 0, "", false);
+
+        int postId;
+        int ticketId;
+        byte[] sig;
+        try {
+            postId = Integer.parseInt(parts[0]);
+            ticketId = Integer.parseInt(parts[1]);
+            sig = HEX.parseHex(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return new SignedCode(code, 0, 0, "", false);
+        }
+        boolean valid = MessageDigest.isEqual(sig, mac(postId, ticketId, code, parts[2]));
+        return new SignedCode(code, postId, ticketId, parts[2], valid);
+    }
+
+    private byte[] mac(int postId, int ticketId, String code, String initials) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(("ticket-qr:" + secret).getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] full = mac.doFinal((postId + "|" + ticketId + "|" + code + "|" + initials)
+                    .getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(full, SIG_BYTES);
+        } catch (Exception e) {
+            throw new IllegalStateException("QR signing failed", e);
+        }
+    }
+
+    private static String initialsOf(Ticket t) {
+        return (initial(t.getUser().getName()) + initial(t.getUser().getLastName()));
+    }
+
+    private static String initial(String s) {
+        if (s == null || s.isBlank()) return "X";
+        int cp = Character.toUpperCase(s.strip().codePointAt(0));
+        // keep the payload ASCII; non-latin names get a placeholder
+        return cp < 128 && Character.isLetterOrDigit(cp) ? String.valueOf((char) cp) : "X";
+    }
+}
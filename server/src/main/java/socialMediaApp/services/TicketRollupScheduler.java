@@ -0,0 +1,45 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketRollupScheduler {
+
+    private final TicketRollupService rollups;
+
+    // a reconciliation must not interleave with a flush
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Scheduled(fixedDelayString = "${app.analytics.rollupFlushMillis:5000}")
+    public void flush() {
+        lock.lock();
+        try {
+            rollups.flush();
+        } catch (RuntimeException e) {
+            log.warn("Ticket rollup flush failed, {} buckets re-queued: {}", rollups.pendingBuckets(), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.analytics.reconcileInitialDelayMillis:30000}",
+            fixedDelayString = "${app.analytics.reconcileMillis:600000}")
+    public void reconcile() {
+        lock.lock();
+        try {
+            rollups.flush();
+            rollups.reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Ticket rollup reconciliation failed: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
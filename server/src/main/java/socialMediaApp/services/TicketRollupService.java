@@ -0,0 +1,258 @@
+package socialMediaApp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import socialMediaApp.models.TicketRollupDaily;
+import socialMediaApp.models.TicketRollupHourly;
+import socialMediaApp.repositories.RevenueLedgerRepository;
+import socialMediaApp.repositories.TicketRollupDailyRepository;
+import socialMediaApp.repositories.TicketRollupHourlyRepository;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-event hourly and daily ticket rollups (sold, used, paid revenue).
+ *
+ * The issue and check-in paths record deltas in memory once their transaction commits; a
+ * scheduler flushes them as one upsert per (event, hour) and (event, day), so a busy sale does
+ * not contend on a rollup row. Anything the deltas miss (a crash before a flush, a correction
+ * made directly in the DB) is fixed by {@link #reconcile}, which rewrites recent buckets from
+ * {@code tickets}. Dashboards read the daily table: one row per day, whatever the ticket volume.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TicketRollupService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final DateTimeFormatter BUCKET = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final TicketRollupHourlyRepository hourlyRepository;
+    private final TicketRollupDailyRepository dailyRepository;
+    private final RevenueLedgerRepository ledgerRepository;
+
+    @Value("${app.analytics.reconcileDays:2}")
+    private int reconcileDays;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Bucket, Delta> pending = new ConcurrentHashMap<>();
+
+    // ---------- Feeds ----------
+
+    /** {@code revenue}: what {@link RevenueLedgerService} recorded for these tickets (zero when free). */
+    public void recordIssued(int postId, int n, BigDecimal revenue) {
+        if (n <= 0) return;
+        Bucket b = bucketOf(postId, LocalDateTime.now(clock));
+        afterCommit(() -> add(b, n, 0, revenue));
+    }
+
+    public void recordCheckIns(int postId, int n) {
+        if (n <= 0) return;
+        Bucket b = bucketOf(postId, LocalDateTime.now(clock));
+        afterCommit(() -> add(b, 0, n, BigDecimal.ZERO));
+    }
+
+    // ---------- Write-back ----------
+
+    /** Writes every buffered delta; returns the number of buckets written. */
+    @Transactional
+    public int flush() {
+        List<Map.Entry<Bucket, Delta>> batch = new ArrayList<>();
+        for (Bucket b : new ArrayList<>(pending.keySet())) {
+            Delta d = pending.remove(b);
+            if (d != null) batch.add(Map.entry(b, d));
+        }
+        if (batch.isEmpty()) return 0;
+
+        try {
+            for (Map.Entry<Bucket, Delta> e : batch) {
+                Bucket b = e.getKey();
+                Delta d = e.getValue();
+                hourlyRepository.increment(b.postId(), b.hour(), d.sold, d.used, d.revenue);
+                dailyRepository.increment(b.postId(), b.hour().toLocalDate(), d.sold, d.used, d.revenue);
+            }
+        } catch (RuntimeException ex) {
+            for (Map.Entry<Bucket, Delta> e : batch) {
+                add(e.getKey(), e.getValue().sold, e.getValue().used, e.getValue().revenue); // retried on the next run
+            }
+            throw ex;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Rewrites the hourly buckets from the start of {@code reconcileDays} days ago (all of
+     * history when the tables are still empty) from {@code tickets} and the revenue ledger, then
+     * re-sums those days. Buffered deltas for the rewritten buckets are dropped before the first
+     * read: their tickets were committed before the reads start, so the rewrite already counts
+     * them. Deltas recorded afterwards stay buffered for the next flush.
+     */
+    @Transactional
+    public void reconcile() {
+        LocalDateTime recent = LocalDate.now(clock).minusDays(reconcileDays).atStartOfDay();
+        Map<Bucket, Delta> dropped = drainFrom(recent);
+        try {
+            LocalDateTime from = recent;
+            if (hourlyRepository.count() == 0) {
+                from = BEGINNING;
+                dropped.putAll(drainFrom(BEGINNING));
+            }
+            rewrite(from);
+        } catch (RuntimeException ex) {
+            dropped.forEach((b, d) -> add(b, d.sold, d.used, d.revenue)); // nothing was rewritten
+            throw ex;
+        }
+    }
+
+    private void rewrite(LocalDateTime from) {
+        Map<Bucket, Delta> truth = new HashMap<>();
+        for (Object[] r : hourlyRepository.soldByHourSince(from)) {
+            truth.computeIfAbsent(bucketOf(r), k -> new Delta()).sold = ((Number) r[2]).longValue();
+        }
+        for (Object[] r : ledgerRepository.revenueByHourSince(from)) {
+            truth.computeIfAbsent(bucketOf(r), k -> new Delta()).revenue = toDecimal(r[2]);
+        }
+        for (Object[] r : hourlyRepository.usedByHourSince(from)) {
+            truth.computeIfAbsent(bucketOf(r), k -> new Delta()).used = ((Number) r[2]).longValue();
+        }
+
+        hourlyRepository.resetFrom(from); // buckets whose tickets are gone drop to zero
+        truth.forEach((b, d) -> hourlyRepository.put(b.postId(), b.hour(), d.sold, d.used, d.revenue));
+        int days = dailyRepository.recomputeFromHourly(from);
+        log.debug("Ticket rollups reconciled from {}: {} event-hours, {} event-days", from, truth.size(), days);
+    }
+
+    public int pendingBuckets() {
+        return pending.size();
+    }
+
+    // ---------- Reads ----------
+
+    public List<TicketRollupDaily> daily(int postId, LocalDate from) {
+        return dailyRepository.findAllByPostIdAndDayGreaterThanEqualOrderByDayAsc(postId, from);
+    }
+
+    public List<TicketRollupHourly> hourly(int postId, LocalDateTime from) {
+        return hourlyRepository.findAllByPostIdAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+                postId, from.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public Totals totals(int postId) {
+        Object[] row = dailyRepository.totals(postId).get(0);
+        return new Totals(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), toDecimal(row[2]));
+    }
+
+    public record Totals(long sold, long used, BigDecimal revenue) {}
+
+    /** Every event of {@code ownerId}; sold, used and revenue are limited to [from, to]. */
+    public List<EventTotals> totalsByOwner(int ownerId, LocalDate from, LocalDate to) {
+        List<EventTotals> out = new ArrayList<>();
+        for (Object[] r : dailyRepository.totalsByOwner(ownerId, from, to, RevenueLedgerService.DEFAULT_CURRENCY)) {
+            out.add(new EventTotals(
+                    ((Number) r[0]).intValue(),
+                    (String) r[1],
+                    r[2] == null ? null : ((Number) r[2]).intValue(),
+                    r[3] == null ? null : toDecimal(r[3]),
+                    (String) r[4],
+                    ((Number) r[5]).longValue(),
+                    new Totals(((Number) r[6]).longValue(), ((Number) r[7]).longValue(), toDecimal(r[8]))));
+        }
+        return out;
+    }
+
+    /**
+     * Days in [from, to] on which any event of {@code ownerId} had rollup rows, one entry per day
+     * and event currency (ordered by day), so amounts in different currencies are never added up.
+     */
+    public List<DayTotals> dailyByOwner(int ownerId, LocalDate from, LocalDate to) {
+        List<DayTotals> out = new ArrayList<>();
+        for (Object[] r : dailyRepository.dailyByOwner(ownerId, from, to, RevenueLedgerService.DEFAULT_CURRENCY)) {
+            out.add(new DayTotals(toDate(r[0]), (String) r[1],
+                    new Totals(((Number) r[2]).longValue(), ((Number) r[3]).longValue(), toDecimal(r[4]))));
+        }
+        return out;
+    }
+
+    public record EventTotals(int postId, String title, Integer capacity, BigDecimal price, String currency,
+                              long soldAllTime, Totals inRange) {}
+
+    public record DayTotals(LocalDate day, String currency, Totals totals) {}
+
+    // ---------- Internals ----------
+
+    private Map<Bucket, Delta> drainFrom(LocalDateTime from) {
+        Map<Bucket, Delta> out = new HashMap<>();
+        for (Bucket b : new ArrayList<>(pending.keySet())) {
+            if (b.hour().isBefore(from)) continue;
+            Delta d = pending.remove(b);
+            if (d != null) out.put(b, d);
+        }
+        return out;
+    }
+
+    private void add(Bucket b, long sold, long used, BigDecimal revenue) {
+        pending.compute(b, (k, d) -> {
+            Delta out = d == null ? new Delta() : d;
+            out.sold += sold;
+            out.used += used;
+            out.revenue = out.revenue.add(revenue);
+            return out;
+        });
+    }
+
+    private Bucket bucketOf(int postId, LocalDateTime at) {
+        return new Bucket(postId, at.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    // [postId, "yyyy-MM-dd HH:00:00", ...] from the reconciliation queries
+    private static Bucket bucketOf(Object[] row) {
+        return new Bucket(((Number) row[0]).intValue(), LocalDateTime.parse(String.valueOf(row[1]), BUCKET));
+    }
+
+    private static BigDecimal toDecimal(Object o) {
+        return o instanceof BigDecimal bd ? bd : new BigDecimal(String.valueOf(o));
+    }
+
+    private static LocalDate toDate(Object o) {
+        return o instanceof java.sql.Date d ? d.toLocalDate() : LocalDate.parse(String.valueOf(o));
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private record Bucket(int postId, LocalDateTime hour) {}
+
+    // only touched inside ConcurrentHashMap.compute, after remove, or thread-confined in reconcile
+    private static final class Delta {
+        long sold;
+        long used;
+        BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
@@ -1,31 +1,41 @@
 package socialMediaApp.services;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import socialMediaApp.api.exp.AlreadyExistsException;
 import socialMediaApp.api.exp.NotFoundException;
 import socialMediaApp.mappers.TicketMapper;
 import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
 import socialMediaApp.models.Ticket;
 import socialMediaApp.models.User;
 import socialMediaApp.models.enums.EventStatus;
 import socialMediaApp.models.enums.TicketStatus;
 import socialMediaApp.repositories.EventCheckerRepository;
 import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.requests.TicketBatchScanRequest;
 import socialMediaApp.responses.ticket.TicketResponse;
 import socialMediaApp.responses.ticket.TicketVerifyResponse;
 
 import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.HexFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
@@ -43,6 +53,9 @@ public class TicketService {
     private static final String ERR_TICKET_OTHER_EVENT = "Ticket belongs to another event";
     private static final String ERR_TICKET_USED = "Ticket already used";
     private static final String ERR_TICKET_CANCELLED = "Ticket cancelled";
+    private static final String ERR_TICKET_SIGNATURE = "TICKET_SIGNATURE_INVALID";
+    private static final String ERR_INVALID_QUANTITY = "INVALID_QUANTITY";
+    private static final String ERR_BATCH_TOO_LARGE = "BATCH_TOO_LARGE";
     private static final String MSG_CONSUMED = "CONSUMED";
 
     private final TicketRepository ticketRepository;
@@ -51,12 +64,27 @@ public class TicketService {
     private final UserService userService;
     private final EventCheckerRepository eventCheckerRepository;
     private final EventCheckerService eventCheckerService;
-
-    private final MailService mailService;
+    private final TicketInventoryService inventoryService;
+    private final SeatHoldService seatHoldService;
+    private final TicketCodeGenerator codeGenerator;
+    private final TicketQrSigner qrSigner;
+    private final CheckInIndexService checkInIndex;
+    private final AttendanceService attendance;
+    private final TicketRollupService rollups;
+    private final RevenueLedgerService revenueLedger;
+    private final SalesVelocityService velocity;
+    private final TicketAvailabilityService availabilityService;
+
+    private final TicketEmailDispatcher emailDispatcher;
 
     private final Clock clock = Clock.systemDefaultZone();
 
-    private static final SecureRandom RNG = new SecureRandom();
+    @Value("${app.tickets.maxGroupSize:100}")
+    private int maxGroupSize = 100;
+
+    @Value("${app.checkin.maxScanBatch:500}")
+    private int maxScanBatch = 500;
+
 
     // ---------- Queries ----------
 
@@ -72,31 +100,37 @@ public class TicketService {
     }
 
     public Map<String, Object> availability(int postId) {
-        var post = postService.getById(postId);
-
-        Integer seats = post.getCapacity(); // TOTAL
-        long sold = ticketRepository.countByPost_IdAndStatusIn(
-                postId,
-                List.of(TicketStatus.ACTIVE, TicketStatus.USED)
-        );
-
-        Integer available = (seats == null) ? null : Math.max(0, seats - (int) sold);
-
-        java.util.Map<String, Object> res = new java.util.HashMap<>();
-        res.put("seats", seats);
-        res.put("available", available);
-        return res;
+        return availabilityService.get(postId);
     }
 
 
     // ---------- Commands ----------
-    @Transactional
+    // READ_COMMITTED: a missed conditional UPDATE on an inventory slot must not keep its row lock
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public TicketResponse registerPaid(int postId, int userId, String paymentIntentId, String sessionId) {
+        return registerPaid(postId, userId, paymentIntentId, sessionId, 1);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public TicketResponse registerPaid(int postId, int userId, String paymentIntentId, String sessionId, int quantity) {
+        return registerPaid(postId, userId, paymentIntentId, sessionId, quantity, null);
+    }
+
+    /**
+     * Issues the tickets paid for by one checkout. A live seat hold decides the quantity;
+     * {@code quantity} (from the session metadata) is only used when the hold has already expired.
+     * {@code charged} is what Stripe collected; it goes into the revenue ledger.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public TicketResponse registerPaid(int postId, int userId, String paymentIntentId, String sessionId, int quantity,
+                                       RevenueLedgerService.Payment charged) {
         Post post = postService.getById(postId);
         User user = userService.getById(userId);
 
         if (!Boolean.TRUE.equals(post.getPaid()) || post.getPrice() == null || post.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
-            return register(postId, userId);
+            return quantity > 1
+                    ? registerGroup(postId, userId, quantity).get(0)
+                    : register(postId, userId);
         }
 
         if (sessionId != null && ticketRepository.existsByCheckoutSessionId(sessionId)) {
@@ -110,30 +144,37 @@ public class TicketService {
             return getMy(postId, userId);
         }
 
-        assertRegistrationOpen(post);
+        // seats held at checkout are already reserved, and the buyer paid inside the sales window
+        int held = seatHoldService.claim(postId, userId, sessionId);
+        int seats = held > 0 ? held : Math.max(1, quantity);
+        if (held == 0) {
+            assertRegistrationOpen(post);
+            reserveSeats(post, seats);
+        }
 
-        if (post.getCapacity() != null) {
-            long sold = ticketRepository.countByPost_Id(postId);
-            if (sold >= post.getCapacity()) throw new IllegalStateException("Event is full");
+        if (seats > 1) {
+            List<Ticket> group = issueGroup(post, user, seats, "PAID", paymentIntentId, sessionId, charged);
+            return ticketMapper.toResponse(group.get(0));
         }
 
         Ticket t = new Ticket();
         t.setPost(post);
         t.setUser(user);
-        t.setCode(generateUniqueCode());
+        t.setCode(codeGenerator.next());
         t.setPaymentIntentId(paymentIntentId);
         t.setCheckoutSessionId(sessionId);
         t.setPaymentStatus("PAID");
 
         ticketRepository.save(t);
+        recordIssued(post, 1, revenueLedger.recordSale(post, user.getId(), paymentIntentId, sessionId, charged), t.getCreatedAt());
 
-        try { mailService.sendTicketEmail(t); } catch (Exception ignored) {}
+        emailDispatcher.enqueueTicket(t);
 
         return ticketMapper.toResponse(t);
     }
 
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public TicketResponse register(int postId, int userId) {
 
         Post post = postService.getById(postId);
@@ -150,48 +191,98 @@ public class TicketService {
         }
 
         assertRegistrationOpen(post);
-
-        // capacity
-        if (post.getCapacity() != null) {
-            long sold = ticketRepository.countByPost_Id(postId);
-            if (sold >= post.getCapacity()) {
-                throw new IllegalStateException(ERR_FULL);
-            }
-        }
+        reserveSeats(post, 1);
 
         Ticket t = new Ticket();
         t.setPost(post);
         t.setUser(user);
-        t.setCode(generateUniqueCode());
+        t.setCode(codeGenerator.next());
 
         ticketRepository.save(t);
+        recordIssued(post, 1, BigDecimal.ZERO, t.getCreatedAt());
+
+        emailDispatcher.enqueueTicket(t); // sent after commit, see TicketEmailDispatcher
 
-        try {
-            mailService.sendTicketEmail(t); // потім шлемо лист
-        } catch (Exception ex) {
+        return ticketMapper.toResponse(t);
+    }
 
-            // log.warn("Failed to send ticket email for ticket {}", t.getId(), ex);
+    /**
+     * Group booking for free events: reserves all seats with one inventory UPDATE and
+     * inserts the tickets as one JDBC batch. The buyer gets a single email with every ticket.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<TicketResponse> registerGroup(int postId, int userId, int quantity) {
+        assertGroupSize(quantity);
+
+        Post post = postService.getById(postId);
+        User user = userService.getById(userId);
+
+        if (Boolean.TRUE.equals(post.getPaid())
+                && post.getPrice() != null
+                && post.getPrice().compareTo(BigDecimal.ZERO) > 0) {
+            throw new IllegalStateException("PAYMENT_REQUIRED");
         }
 
-        return ticketMapper.toResponse(t);
+        if (ticketRepository.existsByPost_IdAndUser_Id(postId, userId)) {
+            throw new AlreadyExistsException(ERR_ALREADY_REGISTERED);
+        }
+
+        assertRegistrationOpen(post);
+        reserveSeats(post, quantity);
+
+        return ticketMapper.toResponses(issueGroup(post, user, quantity, "FREE", null, null, null));
+    }
+
+    /**
+     * Reserves seats for the length of a Stripe checkout. A buyer who clicks "Buy" again
+     * keeps (and refreshes) their existing hold instead of taking more seats. A different group
+     * size releases the old hold; callers must have expired its checkout session first (see
+     * {@link CheckoutService#start}), or that session could still be paid for released seats.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public SeatHold holdSeat(int postId, int userId, int quantity) {
+        assertGroupSize(quantity);
+
+        Post post = postService.getById(postId);
+        User user = userService.getById(userId);
+
+        if (ticketRepository.existsByPost_IdAndUser_Id(postId, userId)) {
+            throw new AlreadyExistsException(ERR_ALREADY_REGISTERED);
+        }
+
+        var existing = seatHoldService.findActive(postId, userId);
+        if (existing.isPresent()) {
+            if (existing.get().getQuantity() == quantity) {
+                return seatHoldService.extend(existing.get());
+            }
+            seatHoldService.release(existing.get().getId()); // buyer changed the group size
+        }
+
+        assertRegistrationOpen(post);
+        reserveSeats(post, quantity);
+        return seatHoldService.create(post, user, quantity);
     }
-    @Transactional(readOnly = true)
+
+    @Transactional
     public void sendMyTicketEmail(int postId, int actorUserId) {
         Ticket t = ticketRepository.findByPost_IdAndUser_Id(postId, actorUserId)
                 .orElseThrow(() -> new NotFoundException("Ticket not found"));
-        mailService.sendTicketEmail(t);
+        emailDispatcher.enqueueTicket(t);
     }
 
-    private String generateUniqueCode() {
-
-        for (int i = 0; i < 5; i++) {
-            byte[] bytes = new byte[8];
-            RNG.nextBytes(bytes);
-            String code = HexFormat.of().withUpperCase().formatHex(bytes);
-            if (!ticketRepository.existsByCode(code)) return code;
-        }
-
-        return java.util.UUID.randomUUID().toString().replace("-", "").toUpperCase();
+    private List<Ticket> issueGroup(Post post, User user, int quantity, String paymentStatus,
+                                    String paymentIntentId, String sessionId, RevenueLedgerService.Payment charged) {
+        List<String> codes = new ArrayList<>(quantity);
+        for (int i = 0; i < quantity; i++) codes.add(codeGenerator.next());
+
+        ticketRepository.insertGroup(post.getId(), user.getId(), codes, paymentStatus, paymentIntentId, sessionId);
+        BigDecimal revenue = "PAID".equals(paymentStatus)
+                ? revenueLedger.recordSale(post, user.getId(), paymentIntentId, sessionId, charged)
+                : BigDecimal.ZERO;
+        List<Ticket> tickets = ticketRepository.findAllByPost_IdAndUser_IdOrderBySeatNoAsc(post.getId(), user.getId());
+        recordIssued(post, quantity, revenue, tickets.isEmpty() ? now() : tickets.get(0).getCreatedAt());
+        emailDispatcher.enqueueGroup(post.getId(), user.getId());
+        return tickets;
     }
 
     private boolean canVerify(int postId, int actorUserId) {
@@ -201,23 +292,155 @@ public class TicketService {
     }
 
     public TicketVerifyResponse validate(int postId, String rawCode, int actorUserId) {
+        return check(postId, rawCode, actorUserId, false);
+    }
+
+    @Transactional
+    public TicketVerifyResponse consume(int postId, String rawCode, int actorUserId) {
+        var res = check(postId, rawCode, actorUserId, true);
+        if (res.isValid() && MSG_CONSUMED.equals(res.getMessage())) recordCheckIns(postId, 1);
+        return res;
+    }
+
+    /**
+     * Shared scan path. Events with an open check-in index are answered from memory (and with
+     * {@code consume} already marked used there). Otherwise a consume is one conditional UPDATE;
+     * the row is only read afterwards, to build the response or explain a refusal.
+     */
+    private TicketVerifyResponse check(int postId, String rawCode, int actorUserId, boolean consume) {
+        String code = normalizeCode(rawCode);
+        var signed = qrSigner.parse(code);
+        if (signed != null) {
+            var rejected = rejectSigned(postId, signed);
+            if (rejected != null) return rejected;
+            code = signed.code();
+        }
+        var fast = checkInIndex.scan(postId, code, actorUserId, consume);
+        if (fast != null) return fast;
+
         if (!canVerify(postId, actorUserId)) {
             return new TicketVerifyResponse(false, ERR_FORBIDDEN, null, null, null,
                     null, null, postId, null, now());
         }
-        String code = normalizeCode(rawCode);
-        var opt = ticketRepository.findByCode(code);
-        if (opt.isEmpty()) {
+        boolean used = consume && ticketRepository.markUsed(code, postId, now()) == 1;
+
+        return scanResult(ticketRepository.findByCode(code).orElse(null), code, postId, consume, used);
+    }
+
+    /**
+     * Replays scans a device queued while offline. Same rules as {@link #consume}, but the DB
+     * part is one batched conditional UPDATE plus one SELECT for the whole batch. Scans are
+     * applied in scannedAt order, so the earliest scan of a code wins. Results come back in
+     * request order.
+     */
+    @Transactional
+    public List<TicketVerifyResponse> consumeBatch(int postId, List<TicketBatchScanRequest.Scan> scans, int actorUserId) {
+        if (scans == null || scans.isEmpty()) return List.of();
+        if (scans.size() > maxScanBatch) throw new IllegalArgumentException(ERR_BATCH_TOO_LARGE);
+
+        LocalDateTime now = now();
+        TicketVerifyResponse[] out = new TicketVerifyResponse[scans.size()];
+        String[] codes = new String[scans.size()];
+        List<Integer> toDb = new ArrayList<>();
+
+        for (int i = 0; i < scans.size(); i++) {
+            String code = normalizeCode(scans.get(i).getCode());
+            var signed = qrSigner.parse(code);
+            if (signed != null) {
+                out[i] = rejectSigned(postId, signed);
+                if (out[i] != null) continue;
+                code = signed.code();
+            }
+            codes[i] = code;
+            out[i] = checkInIndex.scan(postId, code, actorUserId, true);
+            if (out[i] == null) toDb.add(i);
+        }
+        if (toDb.isEmpty()) return recordCheckIns(postId, out);
+
+        if (!canVerify(postId, actorUserId)) {
+            for (int i : toDb) {
+                out[i] = new TicketVerifyResponse(false, ERR_FORBIDDEN, null, null, null,
+                        null, null, postId, null, now);
+            }
+            return recordCheckIns(postId, out);
+        }
+
+        toDb.sort(Comparator.comparing(i -> usedAtOf(scans.get(i), now)));
+        List<String> dbCodes = toDb.stream().map(i -> codes[i]).toList();
+        int[] counts = ticketRepository.markUsedByCodes(postId, dbCodes,
+                toDb.stream().map(i -> usedAtOf(scans.get(i), now)).toList());
+
+        Map<String, Ticket> byCode = new HashMap<>();
+        for (Ticket t : ticketRepository.findAllByCodeIn(new HashSet<>(dbCodes))) byCode.put(t.getCode(), t);
+
+        for (int k = 0; k < toDb.size(); k++) {
+            int i = toDb.get(k);
+            out[i] = scanResult(byCode.get(codes[i]), codes[i], postId, true, counts[k] == 1);
+        }
+        log.info("Batch scan postId={} actor={} devices={} scans={} consumed={}",
+                postId, actorUserId,
+                scans.stream().map(TicketBatchScanRequest.Scan::getDeviceId).filter(Objects::nonNull).distinct().toList(),
+                scans.size(), Arrays.stream(counts).filter(c -> c == 1).count());
+        return recordCheckIns(postId, out);
+    }
+
+    private List<TicketVerifyResponse> recordCheckIns(int postId, TicketVerifyResponse[] out) {
+        int consumed = 0;
+        for (TicketVerifyResponse r : out) {
+            if (r.isValid() && MSG_CONSUMED.equals(r.getMessage())) consumed++;
+        }
+        recordCheckIns(postId, consumed);
+        return List.of(out);
+    }
+
+    // live door counters, sales velocity and analytics rollups; all apply after commit
+    private void recordIssued(Post post, int n, BigDecimal revenue, LocalDateTime issuedAt) {
+        attendance.recordIssued(post.getId(), n, issuedAt);
+        velocity.recordIssued(post.getId(), n, issuedAt);
+        rollups.recordIssued(post.getId(), n, revenue);
+    }
+
+    private void recordCheckIns(int postId, int n) {
+        attendance.recordCheckIns(postId, n);
+        rollups.recordCheckIns(postId, n);
+    }
+
+    /** Rejection for a forged or wrong-event signed QR, decided before any query; null if it passes. */
+    private TicketVerifyResponse rejectSigned(int postId, TicketQrSigner.SignedCode signed) {
+        if (!signed.signatureValid()) {
+            return new TicketVerifyResponse(false, ERR_TICKET_SIGNATURE, null, signed.code(), null,
+                    null, null, postId, null, now());
+        }
+        if (signed.postId() != postId) {
+            return new TicketVerifyResponse(false, "TICKET_FOR_ANOTHER_EVENT", signed.ticketId(), signed.code(), null,
+                    null, null, postId, null, now());
+        }
+        return null;
+    }
+
+    // offline scans keep their own time, but never a time in the future
+    private static LocalDateTime usedAtOf(TicketBatchScanRequest.Scan scan, LocalDateTime now) {
+        return scan.getScannedAt() == null || scan.getScannedAt().isAfter(now) ? now : scan.getScannedAt();
+    }
+
+    private TicketVerifyResponse scanResult(Ticket t, String code, int postId, boolean consume, boolean used) {
+        if (t == null) {
             return new TicketVerifyResponse(false, "TICKET_NOT_FOUND", null, code, null,
                     null, null, postId, null, now());
         }
-        var t = opt.get();
         if (t.getPost().getId() != postId) {
+
             return new TicketVerifyResponse(false, "TICKET_FOR_ANOTHER_EVENT", t.getId(), code, t.getStatus(),
                     t.getUser().getId(), fullNameOf(t), postId, null, now());
         }
-        if (t.getStatus() != TicketStatus.ACTIVE) {
-            return new TicketVerifyResponse(false, "TICKET_NOT_ACTIVE", t.getId(), code, t.getStatus(),
+        if (used) {
+            return new TicketVerifyResponse(true, MSG_CONSUMED, t.getId(), code, TicketStatus.USED,
+                    t.getUser().getId(), fullNameOf(t), postId, t.getPost().getTitle(), now());
+        }
+        if (consume || t.getStatus() != TicketStatus.ACTIVE) {
+            // a consume that matched no row lost the race to another gate (or the ticket is not ACTIVE)
+            return new TicketVerifyResponse(false, "TICKET_NOT_ACTIVE", t.getId(), code,
+                    consume && t.getStatus() == TicketStatus.ACTIVE ? TicketStatus.USED : t.getStatus(),
                     t.getUser().getId(), fullNameOf(t), postId, t.getPost().getTitle(), now());
         }
         return new TicketVerifyResponse(true, "OK", t.getId(), code, t.getStatus(),
@@ -225,46 +448,66 @@ public class TicketService {
     }
 
     @Transactional
-    public TicketVerifyResponse consume(int postId, String rawCode, int actorUserId) {
-        var res = validate(postId, rawCode, actorUserId);
-        if (!res.isValid()) return res;
-
-        var ticket = ticketRepository.findByCode(res.getCode()).orElseThrow();
-        ticket.setStatus(TicketStatus.USED);
-        ticket.setUsedAt(LocalDateTime.now());
-        ticketRepository.save(ticket);
+    public TicketResponse verifyAndUse(int postId, String code, int actorUserId) {
+        String normalized = normalizeCode(code);
+        var signed = qrSigner.parse(normalized);
+        if (signed != null) {
+            if (!signed.signatureValid()) throw new IllegalStateException(ERR_TICKET_SIGNATURE);
+            if (signed.postId() != postId) throw new IllegalStateException(ERR_TICKET_OTHER_EVENT);
+            normalized = signed.code();
+        }
 
-        res.setStatus(TicketStatus.USED);
-        res.setMessage(MSG_CONSUMED);
-        return res;
-    }
+        var fast = checkInIndex.scan(postId, normalized, actorUserId, true);
+        if (fast != null) {
+            if (ERR_FORBIDDEN.equals(fast.getMessage())) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+            if (!fast.isValid()) {
+                throw new IllegalStateException(fast.getStatus() == TicketStatus.CANCELLED ? ERR_TICKET_CANCELLED : ERR_TICKET_USED);
+            }
+            // already marked used in the index; the row is only read to build the response
+            TicketResponse out = ticketMapper.toResponse(ticketRepository.findByCode(normalized).orElseThrow());
+            out.setStatus(TicketStatus.USED);
+            recordCheckIns(postId, 1);
+            return out;
+        }
 
-    @Transactional
-    public TicketResponse verifyAndUse(int postId, String code, int actorUserId) {
         var post = postService.getById(postId);
         boolean allowed = post.getUser().getId() == actorUserId
                 || eventCheckerService.amIChecker(postId, actorUserId);
         if (!allowed) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
 
-        var ticket = ticketRepository.findByCode(normalizeCode(code))
+        boolean used = ticketRepository.markUsed(normalized, postId, now()) == 1;
+
+        var ticket = ticketRepository.findByCode(normalized)
                 .orElseThrow(() -> new NotFoundException(ERR_TICKET_NOT_FOUND));
+        if (used) {
+            recordCheckIns(postId, 1);
+            return ticketMapper.toResponse(ticket);
+        }
 
         if (ticket.getPost().getId() != postId) {
             throw new IllegalStateException(ERR_TICKET_OTHER_EVENT);
         }
-        if (ticket.getStatus() == TicketStatus.USED) {
-            throw new IllegalStateException(ERR_TICKET_USED);
-        }
         if (ticket.getStatus() == TicketStatus.CANCELLED) {
             throw new IllegalStateException(ERR_TICKET_CANCELLED);
         }
-
-        ticket.setStatus(TicketStatus.USED); // JPA dirty-check
-        return ticketMapper.toResponse(ticket);
+        throw new IllegalStateException(ERR_TICKET_USED); // also when another gate won the UPDATE
     }
 
     // ---------- Helpers ----------
 
+    private void assertGroupSize(int quantity) {
+        if (quantity < 1 || quantity > maxGroupSize) {
+            throw new IllegalArgumentException(ERR_INVALID_QUANTITY);
+        }
+    }
+
+    private void reserveSeats(Post post, int qty) {
+        if (post.getCapacity() != null && !inventoryService.tryReserve(post, qty)) {
+            throw new IllegalStateException(ERR_FULL);
+        }
+        availabilityService.changed(post.getId());
+    }
+
     private void assertRegistrationOpen(Post post) {
         LocalDateTime now = now();
         if (post.getStatus() == EventStatus.CANCELLED) {
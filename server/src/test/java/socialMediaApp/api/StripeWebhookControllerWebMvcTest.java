@@ -8,9 +8,14 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAut
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import socialMediaApp.security.JwtAuthFilter;
+import socialMediaApp.services.StripeWebhookInboxService;
+import socialMediaApp.services.StripeWebhookProcessor;
+import socialMediaApp.services.StripeWebhookWorker;
 import socialMediaApp.services.TicketService;
 
 import java.util.LinkedHashMap;
@@ -26,15 +31,19 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         excludeAutoConfiguration = { SecurityAutoConfiguration.class, SecurityFilterAutoConfiguration.class }
 )
 @AutoConfigureMockMvc(addFilters = false)
-@TestPropertySource(properties = "stripe.webhookSecret=whsec_test_123")
+@Import(StripeWebhookProcessor.class)
+@TestPropertySource(properties = {"stripe.webhookSecret=whsec_test_123", "app.webhooks.inbox=false"})
 class StripeWebhookControllerWebMvcTest {
 
     private static final String SECRET = "whsec_test_123";
 
     @Autowired MockMvc mvc;
     @Autowired ObjectMapper om;
+    @Autowired StripeWebhookController controller;
 
     @MockBean TicketService ticketService;
+    @MockBean StripeWebhookInboxService inboxService;
+    @MockBean StripeWebhookWorker worker;
     @MockBean JwtAuthFilter jwtAuthFilter;
 
     @Test
@@ -83,7 +92,7 @@ class StripeWebhookControllerWebMvcTest {
                 .andExpect(content().string("ok")).andDo(org.springframework.test.web.servlet.result.MockMvcResultHandlers.print())
         ;
 
-        verify(ticketService).registerPaid(2, 20, "pi_test_1", "cs_test_1");
+        verify(ticketService).registerPaid(2, 20, "pi_test_1", "cs_test_1", 1, null);
         verifyNoMoreInteractions(ticketService);
     }
 
@@ -127,7 +136,7 @@ class StripeWebhookControllerWebMvcTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("ok"));
 
-        verify(ticketService).registerPaid(5, 7, "pi_async_1", "cs_async_1");
+        verify(ticketService).registerPaid(5, 7, "pi_async_1", "cs_async_1", 1, null);
         verifyNoMoreInteractions(ticketService);
     }
 
@@ -147,7 +156,7 @@ class StripeWebhookControllerWebMvcTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("ok"));
 
-        verify(ticketService).registerPaid(9, 11, "pi_ok_123", null);
+        verify(ticketService).registerPaid(9, 11, "pi_ok_123", null, 1, null);
         verifyNoMoreInteractions(ticketService);
     }
 
@@ -166,6 +175,30 @@ class StripeWebhookControllerWebMvcTest {
         verifyNoInteractions(ticketService);
     }
 
+    @Test
+    void inboxMode_storesAndAcks_andQueuesOnlyNewEvents() throws Exception {
+        String payload = buildPaymentIntentEventJson("payment_intent.succeeded", "pi_ok_123", Map.of("postId", "9", "userId", "11"));
+        String sig = StripeTestSignatures.stripeSignatureHeader(payload, SECRET);
+        when(inboxService.record("evt_pi_1", "payment_intent.succeeded", payload, sig)).thenReturn(true, false);
+
+        ReflectionTestUtils.setField(controller, "inboxEnabled", true);
+        try {
+            for (int i = 0; i < 2; i++) { // Stripe redelivers the same event
+                mvc.perform(post("/api/payments/webhook")
+                                .contentType(APPLICATION_JSON)
+                                .header("Stripe-Signature", sig)
+                                .content(payload))
+                        .andExpect(status().isOk())
+                        .andExpect(content().string("ok"));
+            }
+        } finally {
+            ReflectionTestUtils.setField(controller, "inboxEnabled", false);
+        }
+
+        verify(worker, times(1)).submit("evt_pi_1");
+        verifyNoInteractions(ticketService);
+    }
+
     // -------------------- payload builders --------------------
 
     private String buildGenericEventJson(String type) throws Exception {
@@ -0,0 +1,95 @@
+package socialMediaApp.it;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.services.SmtpTransportPool;
+
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Event-wide send against MailHog: one connection per message (plain JavaMailSender)
+ * vs. batches over the pooled connections.
+ */
+@Slf4j
+class SmtpTransportPoolIT extends AbstractMySqlMailhogTcIT {
+
+    private static final int MESSAGES = 400;
+    private static final int BATCH = 50;
+
+    @Test
+    void pooledBatches_sendMuchFasterThanConnectionPerMessage() throws Exception {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost(MAILHOG.getHost());
+        sender.setPort(MAILHOG.getMappedPort(1025));
+
+        SmtpTransportPool pool = new SmtpTransportPool(sender);
+        ReflectionTestUtils.setField(pool, "poolSize", 4);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 500);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMillis", 30_000L);
+        ReflectionTestUtils.invokeMethod(pool, "start");
+
+        long t0 = System.nanoTime();
+        for (MimeMessage m : messages(sender, "plain")) sender.send(m);
+        double plainPerSecond = MESSAGES / ((System.nanoTime() - t0) / 1e9);
+
+        List<MimeMessage> pooled = messages(sender, "pooled");
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        long t1 = System.nanoTime();
+        List<Future<Exception[]>> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i += BATCH) {
+            List<MimeMessage> batch = pooled.subList(i, Math.min(i + BATCH, MESSAGES));
+            results.add(workers.submit(() -> pool.send(batch)));
+        }
+        for (Future<Exception[]> f : results) {
+            for (Exception e : f.get()) assertNull(e);
+        }
+        double pooledPerSecond = MESSAGES / ((System.nanoTime() - t1) / 1e9);
+        workers.shutdown();
+        ReflectionTestUtils.invokeMethod(pool, "stop");
+
+        log.info("MailHog: {} msg/s one connection per message, {} msg/s pooled ({}x), {} connections opened",
+                Math.round(plainPerSecond), Math.round(pooledPerSecond),
+                Math.round(pooledPerSecond / plainPerSecond), pool.connectionsOpened());
+
+        assertEquals(2L * MESSAGES, mailhogTotal());
+        assertTrue(pool.connectionsOpened() <= 4);
+        assertTrue(pooledPerSecond > 2 * plainPerSecond,
+                "pooled " + pooledPerSecond + " msg/s vs plain " + plainPerSecond + " msg/s");
+    }
+
+    private static List<MimeMessage> messages(JavaMailSenderImpl sender, String tag) throws Exception {
+        List<MimeMessage> out = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage m = sender.createMimeMessage();
+            m.setFrom(new InternetAddress("tickets@test.com"));
+            m.setRecipients(MimeMessage.RecipientType.TO, tag + i + "@test.com");
+            m.setSubject("Event update " + i);
+            m.setText("Doors open at 19:00.");
+            out.add(m);
+        }
+        return out;
+    }
+
+    private static long mailhogTotal() throws Exception {
+        String base = "http://" + MAILHOG.getHost() + ":" + MAILHOG.getMappedPort(8025);
+        HttpResponse<String> res = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(base + "/api/v2/messages?limit=1")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(res.body()).get("total").asLong();
+    }
+}
@@ -31,7 +31,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
 @TestPropertySource(properties = {
         "stripe.webhookSecret=whsec_test_123",
-        "spring.jpa.hibernate.ddl-auto=update"
+        "spring.jpa.hibernate.ddl-auto=update",
+        "app.webhooks.inbox=false" // the test transaction must see the ticket right after the call
 })
 @Slf4j
 class StripeWebhookFullFlowIT extends AbstractMySqlMailhogTcIT {
@@ -0,0 +1,140 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.responses.queue.QueueStatusResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionQueueServiceTest {
+
+    private static final LocalDateTime SALES_START = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock private PostService postService;
+
+    @InjectMocks
+    private AdmissionQueueService queue;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "admitPerSecond", 2.0);
+        ReflectionTestUtils.setField(queue, "burst", 1L);
+        ReflectionTestUtils.setField(queue, "windowMinutes", 30L);
+        ReflectionTestUtils.setField(queue, "admissionTtlMinutes", 10L);
+        ReflectionTestUtils.setField(queue, "secret", "test-secret");
+
+        Post p = new Post();
+        p.setId(1);
+        p.setSalesStartAt(SALES_START);
+        lenient().when(postService.getById(1)).thenReturn(p);
+
+        at(SALES_START);
+    }
+
+    @Test
+    void join_isIdempotentPerBuyer_andPositionsAreFifo() {
+        QueueStatusResponse a = queue.join(1, "a@mail.com");
+        QueueStatusResponse b = queue.join(1, "b@mail.com");
+        QueueStatusResponse again = queue.join(1, "A@mail.com");
+
+        assertEquals(1, a.getPosition());
+        assertEquals(2, b.getPosition());
+        assertEquals(1, again.getPosition());
+        assertTrue(a.isAdmitted());
+        assertFalse(b.isAdmitted());
+    }
+
+    @Test
+    void requireAdmitted_letsBuyersThroughAtConfiguredRate() {
+        queue.join(1, "a@mail.com");
+        String second = queue.join(1, "b@mail.com").getToken();
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> queue.requireAdmitted(1, "b@mail.com", second));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatus());
+
+        at(SALES_START.plusSeconds(1)); // burst 1 + 2/s -> positions up to 3
+        assertDoesNotThrow(() -> queue.requireAdmitted(1, "b@mail.com", second));
+        assertTrue(queue.status(1, second).isAdmitted());
+    }
+
+    @Test
+    void requireAdmitted_rejectsMissingForeignAndTamperedTokens() {
+        String token = queue.join(1, "a@mail.com").getToken();
+
+        assertThrows(ResponseStatusException.class, () -> queue.requireAdmitted(1, "a@mail.com", null));
+        assertThrows(ResponseStatusException.class, () -> queue.requireAdmitted(1, "other@mail.com", token));
+        assertThrows(ResponseStatusException.class,
+                () -> queue.requireAdmitted(1, "a@mail.com", token.replaceFirst("^1\\.1\\.", "1.0.")));
+    }
+
+    @Test
+    void requireAdmitted_whenAdmissionTtlPassed_requiresRejoin() {
+        String token = queue.join(1, "a@mail.com").getToken();
+
+        at(SALES_START.plusMinutes(11));
+        assertThrows(ResponseStatusException.class, () -> queue.requireAdmitted(1, "a@mail.com", token));
+
+        QueueStatusResponse rejoined = queue.join(1, "a@mail.com");
+        assertNotEquals(1, rejoined.getPosition());
+        assertTrue(rejoined.isAdmitted());
+    }
+
+    @Test
+    void requireAdmitted_outsideQueueWindow_isNoop() {
+        at(SALES_START.plusMinutes(31));
+        assertDoesNotThrow(() -> queue.requireAdmitted(1, "a@mail.com", null));
+        assertFalse(queue.join(1, "a@mail.com").isActive());
+    }
+
+    @Test
+    void evictClosed_dropsQueuesOnceWindowAndTtlArePast() {
+        queue.join(1, "a@mail.com");
+        queue.join(1, "b@mail.com");
+
+        at(SALES_START.plusMinutes(39)); // window closed at +30, tokens live 10 more minutes
+        assertEquals(0, queue.evictClosed());
+        assertEquals(1, queue.trackedEvents());
+
+        at(SALES_START.plusMinutes(40));
+        assertEquals(1, queue.evictClosed());
+        assertEquals(0, queue.trackedEvents());
+        assertDoesNotThrow(() -> queue.requireAdmitted(1, "c@mail.com", null)); // rebuilt as closed
+    }
+
+    @Test
+    void evictClosed_keepsOpenQueues_andDropsStaleLookupsOfUnqueuedEvents() {
+        Post free = new Post();
+        free.setId(2); // no on-sale moment: never queued
+        when(postService.getById(2)).thenReturn(free);
+        queue.requireAdmitted(2, "a@mail.com", null);
+        queue.join(1, "a@mail.com");
+
+        at(SALES_START.plusMinutes(1));
+        assertEquals(1, queue.evictClosed());
+        assertEquals(1, queue.trackedEvents());
+        assertEquals(1, queue.join(1, "a@mail.com").getPosition()); // still in place
+    }
+
+    private void at(LocalDateTime time) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        ReflectionTestUtils.setField(queue, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+}
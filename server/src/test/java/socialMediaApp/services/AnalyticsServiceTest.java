@@ -0,0 +1,140 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.responses.analitics.PortfolioAnalyticsResponse;
+import socialMediaApp.responses.analitics.PostAnalyticsResponse;
+import socialMediaApp.services.TicketRollupService.DayTotals;
+import socialMediaApp.services.TicketRollupService.EventTotals;
+import socialMediaApp.services.TicketRollupService.Totals;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-31T12:00:00Z");
+
+    @Mock private TicketRollupService rollups;
+    @Mock private RevenueLedgerService revenueLedger;
+    @Mock private PostService postService;
+
+    @InjectMocks
+    private AnalyticsService analytics;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(analytics, "portfolioMaxDays", 366);
+        ReflectionTestUtils.setField(analytics, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void portfolio_defaultsToLast30Days_andCombinesEvents() {
+        LocalDate from = LocalDate.of(2030, 1, 2);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        when(rollups.totalsByOwner(10, from, to)).thenReturn(List.of(
+                new EventTotals(2, "Paid gig", 100, new BigDecimal("15.00"), "PLN", 90,
+                        new Totals(40, 30, new BigDecimal("600.00"))),
+                new EventTotals(1, "Free talk", null, null, "PLN", 5, new Totals(3, 0, BigDecimal.ZERO))));
+        when(rollups.dailyByOwner(10, from, to)).thenReturn(List.of(
+                new DayTotals(LocalDate.of(2030, 1, 30), "PLN", new Totals(43, 30, new BigDecimal("600.00")))));
+        when(revenueLedger.organizerRevenue(10)).thenReturn(Map.of("PLN", new BigDecimal("1350.00")));
+
+        PortfolioAnalyticsResponse res = analytics.getPortfolio(10, null, null);
+
+        assertEquals("2030-01-02", res.getFrom());
+        assertEquals(43, res.getTicketsSoldTotal());
+        assertEquals(30, res.getTicketsUsedTotal());
+        assertEquals(Map.of("PLN", new BigDecimal("600.00")), res.getRevenue());
+        assertEquals(new BigDecimal("1350.00"), res.getRevenueAllTime().get("PLN"));
+
+        PortfolioAnalyticsResponse.EventStat paid = res.getEvents().get(0);
+        assertEquals(10L, paid.getRemaining()); // capacity minus all-time sales, not just the range
+        assertEquals(new BigDecimal("600.00"), paid.getRevenue());
+        PortfolioAnalyticsResponse.EventStat free = res.getEvents().get(1);
+        assertNull(free.getRemaining());
+        assertNull(free.getRevenue());
+
+        assertEquals("2030-01-30", res.getByDay().get(0).getDay());
+        verifyNoInteractions(postService);
+    }
+
+    @Test
+    void portfolio_keepsRevenueApartPerCurrency() {
+        LocalDate from = LocalDate.of(2030, 1, 2);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        when(rollups.totalsByOwner(10, from, to)).thenReturn(List.of(
+                new EventTotals(1, "Warsaw", 100, new BigDecimal("50.00"), "PLN", 2,
+                        new Totals(2, 0, new BigDecimal("100.00"))),
+                new EventTotals(2, "Berlin", 100, new BigDecimal("20.00"), "EUR", 3,
+                        new Totals(3, 1, new BigDecimal("60.00")))));
+        LocalDate day = LocalDate.of(2030, 1, 30);
+        when(rollups.dailyByOwner(10, from, to)).thenReturn(List.of(
+                new DayTotals(day, "EUR", new Totals(3, 1, new BigDecimal("60.00"))),
+                new DayTotals(day, "PLN", new Totals(2, 0, new BigDecimal("100.00")))));
+        when(revenueLedger.organizerRevenue(10)).thenReturn(Map.of());
+
+        PortfolioAnalyticsResponse res = analytics.getPortfolio(10, null, null);
+
+        assertEquals(Map.of("PLN", new BigDecimal("100.00"), "EUR", new BigDecimal("60.00")), res.getRevenue());
+        assertEquals("EUR", res.getEvents().get(1).getCurrency());
+        assertEquals(1, res.getByDay().size());
+        PortfolioAnalyticsResponse.DailyStat d = res.getByDay().get(0);
+        assertEquals(5, d.getSold());
+        assertEquals(1, d.getUsed());
+        assertEquals(Map.of("PLN", new BigDecimal("100.00"), "EUR", new BigDecimal("60.00")), d.getRevenue());
+    }
+
+    @Test
+    void postAnalytics_revenueIsTheExactLedgerTotal_notPriceTimesCount() {
+        User owner = new User();
+        owner.setId(10);
+        Post post = new Post();
+        post.setId(1);
+        post.setUser(owner);
+        post.setCapacity(100);
+        post.setPrice(new BigDecimal("25.00")); // raised after 3 tickets were sold at 19.99
+        when(postService.getById(1)).thenReturn(post);
+        when(rollups.totals(1)).thenReturn(new Totals(3, 1, new BigDecimal("59.97")));
+        when(rollups.daily(eq(1), any())).thenReturn(List.of());
+        when(revenueLedger.eventRevenue(1)).thenReturn(Map.of("PLN", new BigDecimal("59.97")));
+
+        PostAnalyticsResponse res = analytics.getPostTicketAnalytics(1, 7);
+
+        assertEquals(new BigDecimal("59.97"), res.getRevenue());
+        assertEquals("PLN", res.getCurrency());
+        assertEquals(97L, res.getRemaining());
+    }
+
+    @Test
+    void portfolio_rejectsInvertedAndOverlongRanges() {
+        ResponseStatusException inverted = assertThrows(ResponseStatusException.class,
+                () -> analytics.getPortfolio(10, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 1, 1)));
+        assertEquals(HttpStatus.BAD_REQUEST, inverted.getStatus());
+        assertEquals("INVALID_DATE_RANGE", inverted.getReason());
+
+        ResponseStatusException tooLong = assertThrows(ResponseStatusException.class,
+                () -> analytics.getPortfolio(10, LocalDate.of(2028, 1, 1), LocalDate.of(2030, 1, 1)));
+        assertEquals("DATE_RANGE_TOO_LONG", tooLong.getReason());
+        verifyNoInteractions(rollups);
+    }
+}
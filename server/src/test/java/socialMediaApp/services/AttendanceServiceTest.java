@@ -0,0 +1,203 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.responses.analitics.AttendanceSnapshotResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T18:30:20Z");
+    private static final LocalDateTime AT = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock private TicketRepository ticketRepository;
+    @Mock private PostService postService;
+    @Mock private EventCheckerService eventCheckerService;
+    @Mock private SseHub hub;
+
+    @InjectMocks
+    private AttendanceService attendance;
+
+    private final SseEmitter emitter = new SseEmitter();
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(attendance, "streamTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(attendance, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+
+        User owner = new User();
+        owner.setId(10);
+        Post p = new Post();
+        p.setId(1);
+        p.setUser(owner);
+        lenient().when(postService.getById(1)).thenReturn(p);
+        lenient().when(hub.subscribe("attendance:1", 1000L)).thenReturn(emitter);
+    }
+
+    private void seed() {
+        when(ticketRepository.countByPost_IdAndStatusInAndCreatedAtBefore(eq(1), anyCollection(), eq(AT))).thenReturn(50L);
+        when(ticketRepository.countByPost_IdAndStatusAndUsedAtBefore(1, TicketStatus.USED, AT)).thenReturn(2L);
+        when(ticketRepository.findUsedAtBetween(eq(1), any(), eq(AT))).thenReturn(List.of(
+                LocalDateTime.of(2030, 1, 1, 18, 29, 5),
+                LocalDateTime.of(2030, 1, 1, 18, 30, 1)));
+    }
+
+    private AttendanceSnapshotResponse lastPublished() {
+        ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+        verify(hub, atLeastOnce()).publish(eq("attendance:1"), eq("attendance"), data.capture());
+        return (AttendanceSnapshotResponse) data.getValue();
+    }
+
+    @Test
+    void subscribe_seedsFromDb_andSendsInitialSnapshot() {
+        seed();
+
+        assertSame(emitter, attendance.subscribe(1, 10));
+
+        ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+        verify(hub).send(eq("attendance:1"), eq(emitter), eq("attendance"), data.capture());
+        AttendanceSnapshotResponse s = (AttendanceSnapshotResponse) data.getValue();
+        assertEquals(50, s.getTicketsIssued());
+        assertEquals(2, s.getCheckedIn());
+        assertEquals(48, s.getRemaining());
+        assertEquals(60, s.getArrivalsPerMinute().size());
+        assertEquals("18:30", s.getArrivalsPerMinute().get(59).getMinute());
+        assertEquals(1, s.getArrivalsPerMinute().get(59).getCount());
+        assertEquals(1, s.getArrivalsPerMinute().get(58).getCount());
+    }
+
+    @Test
+    void checkIns_arePublishedOncePerTick_withoutFurtherQueries() {
+        seed();
+        attendance.subscribe(1, 10);
+        when(hub.hasSubscribers("attendance:1")).thenReturn(true);
+
+        attendance.recordCheckIns(1, 1);
+        attendance.recordCheckIns(1, 3);
+        attendance.recordIssued(1, 2, AT);
+        attendance.publishChanged();
+        attendance.publishChanged(); // nothing new
+
+        AttendanceSnapshotResponse s = lastPublished();
+        verify(hub, times(1)).publish(eq("attendance:1"), eq("attendance"), any());
+        assertEquals(52, s.getTicketsIssued());
+        assertEquals(6, s.getCheckedIn());
+        assertEquals(5, s.getArrivalsPerMinute().get(59).getCount());
+        verify(ticketRepository, times(1)).countByPost_IdAndStatusAndUsedAtBefore(1, TicketStatus.USED, AT);
+    }
+
+    @Test
+    void untrackedEvent_isIgnored_andCountersDropWithLastStream() {
+        attendance.recordCheckIns(1, 1);
+        verifyNoInteractions(ticketRepository, hub);
+
+        seed();
+        attendance.subscribe(1, 10);
+        when(hub.hasSubscribers("attendance:1")).thenReturn(false);
+        attendance.publishChanged();
+        attendance.recordCheckIns(1, 1);
+        attendance.publishChanged();
+
+        verify(hub, never()).publish(any(), any(), any());
+    }
+
+    @Test
+    void subscribe_registersStreamBeforeCounters_soATickCannotDropThem() {
+        seed();
+        // a tick runs between the stream registration and the counters lookup: it must see the new subscriber
+        when(hub.hasSubscribers("attendance:1")).thenReturn(true);
+
+        attendance.subscribe(1, 10);
+        attendance.publishChanged();
+        attendance.recordCheckIns(1, 1);
+        attendance.publishChanged();
+
+        InOrder order = inOrder(hub, ticketRepository);
+        order.verify(hub).subscribe("attendance:1", 1000L);
+        order.verify(ticketRepository).countByPost_IdAndStatusAndUsedAtBefore(1, TicketStatus.USED, AT);
+        assertEquals(3, lastPublished().getCheckedIn());
+    }
+
+    @Test
+    void feeds_lookUpCountersAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            attendance.recordIssued(1, 2, AT); // stream not open yet when the transaction runs
+            seed();
+            attendance.subscribe(1, 10);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        when(hub.hasSubscribers("attendance:1")).thenReturn(true);
+        attendance.publishChanged();
+
+        assertEquals(52, lastPublished().getTicketsIssued());
+    }
+
+    @Test
+    void changesCommittedWhileSeeding_landOnce() {
+        seed();
+        when(ticketRepository.countByPost_IdAndStatusAndUsedAtBefore(1, TicketStatus.USED, AT)).thenAnswer(inv -> {
+            attendance.recordCheckIns(1, 1);                 // scanned now: after the seed's bound
+            attendance.recordIssued(1, 3, AT.minusSeconds(5)); // older sale: the seed already counted it
+            return 2L;
+        });
+        when(hub.hasSubscribers("attendance:1")).thenReturn(true);
+
+        attendance.subscribe(1, 10);
+        attendance.publishChanged();
+
+        AttendanceSnapshotResponse s = lastPublished();
+        assertEquals(50, s.getTicketsIssued());
+        assertEquals(3, s.getCheckedIn());
+    }
+
+    @Test
+    void subscribe_whenSeedFails_dropsTheUnseededCounters() {
+        when(ticketRepository.countByPost_IdAndStatusInAndCreatedAtBefore(eq(1), anyCollection(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> attendance.subscribe(1, 10));
+        attendance.recordCheckIns(1, 1);
+        attendance.publishChanged();
+
+        verify(hub, never()).publish(any(), any(), any());
+        verify(hub, never()).hasSubscribers(any());
+    }
+
+    @Test
+    void subscribe_whenNotOwnerOrChecker_throws403() {
+        when(eventCheckerService.amIChecker(1, 99)).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> attendance.subscribe(1, 99));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatus());
+        verifyNoInteractions(ticketRepository, hub);
+    }
+}
@@ -0,0 +1,124 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.EventStatus;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.EventCheckerRepository;
+import socialMediaApp.repositories.PostRepository;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.repositories.TicketRepositoryCustom.CheckInRow;
+import socialMediaApp.responses.ticket.TicketVerifyResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckInIndexServiceTest {
+
+    private static final int OWNER = 10;
+    private static final int CHECKER = 11;
+
+    @Mock private PostRepository postRepository;
+    @Mock private TicketRepository ticketRepository;
+    @Mock private EventCheckerRepository eventCheckerRepository;
+
+    @InjectMocks
+    private CheckInIndexService index;
+
+    private Post post;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "openBeforeMinutes", 180L);
+        ReflectionTestUtils.setField(index, "closeAfterMinutes", 240L);
+
+        User owner = new User();
+        owner.setId(OWNER);
+        post = new Post();
+        post.setId(1);
+        post.setTitle("Gig");
+        post.setUser(owner);
+    }
+
+    private void open() {
+        when(postRepository.findCheckInCandidates(eq(EventStatus.PUBLISHED), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(post));
+        when(eventCheckerRepository.findUserIdsByPostId(1)).thenReturn(List.of(CHECKER));
+        when(ticketRepository.findCheckInRows(1)).thenReturn(List.of(
+                new CheckInRow(100, "AAA", TicketStatus.ACTIVE, 20, "Jan Doe"),
+                new CheckInRow(101, "BBB", TicketStatus.CANCELLED, 21, "Ann Roe")));
+        index.refreshWindows();
+    }
+
+    @Test
+    void scan_whenEventNotIndexed_returnsNull() {
+        assertNull(index.scan(1, "AAA", OWNER, false));
+    }
+
+    @Test
+    void consume_onlyFirstScanWins_andWriteIsQueued() {
+        open();
+
+        TicketVerifyResponse first = index.scan(1, "AAA", CHECKER, true);
+        TicketVerifyResponse second = index.scan(1, "AAA", OWNER, true);
+
+        assertTrue(first.isValid());
+        assertEquals("CONSUMED", first.getMessage());
+        assertEquals("Jan Doe", first.getOwnerFullName());
+        assertFalse(second.isValid());
+        assertEquals(TicketStatus.USED, second.getStatus());
+        assertEquals(1, index.pendingWrites());
+    }
+
+    @Test
+    void scan_rejectsNonVerifier_andInactiveTickets_andSkipsUnknownCodes() {
+        open();
+
+        assertEquals("FORBIDDEN", index.scan(1, "AAA", 999, false).getMessage());
+        assertEquals("TICKET_NOT_ACTIVE", index.scan(1, "BBB", OWNER, true).getMessage());
+        assertNull(index.scan(1, "ZZZ", OWNER, false));
+        assertEquals(0, index.pendingWrites());
+    }
+
+    @Test
+    void flush_writesBatch_andRequeuesOnFailure() {
+        open();
+        index.scan(1, "AAA", OWNER, true);
+
+        when(ticketRepository.markUsedBatch(anyList(), anyList()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(new int[]{1});
+
+        assertEquals(0, index.flush(200));
+        assertEquals(1, index.pendingWrites());
+
+        assertEquals(1, index.flush(200));
+        assertEquals(0, index.pendingWrites());
+        verify(ticketRepository, times(2)).markUsedBatch(eq(List.of(100)), anyList());
+    }
+
+    @Test
+    void refreshWindows_dropsClosedEvents() {
+        open();
+        assertTrue(index.isIndexed(1));
+
+        when(postRepository.findCheckInCandidates(any(), any(), any())).thenReturn(List.of());
+        index.refreshWindows();
+
+        assertFalse(index.isIndexed(1));
+        assertNull(index.scan(1, "AAA", OWNER, false));
+    }
+}
@@ -0,0 +1,103 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.repositories.TicketRepositoryCustom.CheckInRow;
+import socialMediaApp.responses.ticket.CheckInManifestResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckInManifestServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T18:00:00Z");
+
+    @Mock private TicketRepository ticketRepository;
+    @Mock private PostService postService;
+    @Mock private EventCheckerService eventCheckerService;
+
+    @InjectMocks
+    private CheckInManifestService manifests;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(manifests, "secret", "test-secret");
+        ReflectionTestUtils.setField(manifests, "deltaOverlapMillis", 5000L);
+        ReflectionTestUtils.setField(manifests, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+
+        User owner = new User();
+        owner.setId(10);
+        Post p = new Post();
+        p.setId(1);
+        p.setUser(owner);
+        lenient().when(postService.getById(1)).thenReturn(p);
+    }
+
+    @Test
+    void manifest_hashesCodesWithTheEventKey_andCarriesInitials() throws Exception {
+        when(ticketRepository.findCheckInRows(1)).thenReturn(List.of(
+                new CheckInRow(100, "abc123", TicketStatus.ACTIVE, 20, "jan Doe")));
+
+        CheckInManifestResponse m = manifests.manifest(1, 10);
+
+        assertTrue(m.isFull());
+        assertEquals(NOW.toEpochMilli(), m.getVersion());
+        CheckInManifestResponse.Entry e = m.getEntries().get(0);
+        assertEquals("JD", e.getInitials());
+        assertEquals(TicketStatus.ACTIVE, e.getStatus());
+        assertFalse(e.getHash().contains("ABC123"));
+
+        // what a device would compute for a scan of the same code
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(m.getHashKey()), "HmacSHA256"));
+        String deviceHash = HexFormat.of().withUpperCase()
+                .formatHex(Arrays.copyOf(mac.doFinal("ABC123".getBytes(StandardCharsets.UTF_8)), 8));
+        assertEquals(deviceHash, e.getHash());
+    }
+
+    @Test
+    void delta_readsChangesSinceVersionMinusOverlap() {
+        long since = NOW.toEpochMilli() - 60_000;
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(since - 5000), ZoneOffset.UTC);
+        when(ticketRepository.findCheckInRowsChangedSince(1, from)).thenReturn(List.of(
+                new CheckInRow(100, "ABC123", TicketStatus.USED, 20, "Jan Doe")));
+
+        CheckInManifestResponse d = manifests.delta(1, since, 10);
+
+        assertFalse(d.isFull());
+        assertEquals(TicketStatus.USED, d.getEntries().get(0).getStatus());
+    }
+
+    @Test
+    void manifest_whenNotOwnerOrChecker_throws403() {
+        when(eventCheckerService.amIChecker(1, 99)).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> manifests.manifest(1, 99));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatus());
+        verifyNoInteractions(ticketRepository);
+    }
+}
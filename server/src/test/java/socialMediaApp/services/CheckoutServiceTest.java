@@ -0,0 +1,175 @@
+package socialMediaApp.services;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
+import socialMediaApp.models.User;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock private PostService postService;
+    @Mock private UserService userService;
+    @Mock private TicketService ticketService;
+    @Mock private SeatHoldService seatHoldService;
+    @Mock private StripeGateway stripeGateway;
+
+    @InjectMocks
+    private CheckoutService checkout;
+
+    private SeatHold hold;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(checkout, "frontendBaseUrl", "http://localhost:5173");
+        ReflectionTestUtils.setField(checkout, "reuseMinRemainingMinutes", 5L);
+        ReflectionTestUtils.setField(checkout, "clock", Clock.fixed(NOW.atZone(ZONE).toInstant(), ZONE));
+
+        User me = new User();
+        me.setId(20);
+        when(userService.getByEmailEntity("me@x.io")).thenReturn(me);
+
+        Post post = new Post();
+        post.setId(2);
+        post.setPaid(true);
+        post.setPrice(new BigDecimal("15.00"));
+        post.setCurrency("PLN");
+        post.setTitle("Gig");
+        when(postService.getById(2)).thenReturn(post);
+
+        hold = new SeatHold();
+        hold.setId(7L);
+        hold.setQuantity(2);
+        hold.setExpiresAt(NOW.plusMinutes(35));
+        lenient().when(ticketService.holdSeat(2, 20, 2)).thenReturn(hold);
+        lenient().when(seatHoldService.findActive(2, 20)).thenReturn(Optional.empty());
+    }
+
+    private void attached(long unitAmount, LocalDateTime sessionExpiresAt) {
+        hold.setCheckoutSessionId("cs_old");
+        hold.setCheckoutUrl("https://pay/cs_old");
+        hold.setCheckoutUnitAmount(unitAmount);
+        hold.setCheckoutCurrency("pln");
+        hold.setCheckoutExpiresAt(sessionExpiresAt);
+        when(seatHoldService.findActive(2, 20)).thenReturn(Optional.of(hold));
+    }
+
+    @Test
+    void firstClick_createsSession_andRemembersItOnTheHold() throws Exception {
+        Session s = new Session();
+        s.setId("cs_new");
+        s.setUrl("https://pay/cs_new");
+        when(stripeGateway.createSession(any())).thenReturn(s);
+
+        Map<String, Object> res = checkout.start(2, 2, "me@x.io");
+
+        assertEquals("https://pay/cs_new", res.get("url"));
+        assertEquals(false, res.get("reused"));
+        ArgumentCaptor<SessionCreateParams> params = ArgumentCaptor.forClass(SessionCreateParams.class);
+        verify(stripeGateway).createSession(params.capture());
+        assertEquals(1500L, params.getValue().getLineItems().get(0).getPriceData().getUnitAmount());
+        verify(seatHoldService).attachSession(7L, "cs_new", "https://pay/cs_new", 1500L, "pln", NOW.plusMinutes(35));
+    }
+
+    @Test
+    void repeatedClick_reusesOpenSession_withoutCallingStripe() throws Exception {
+        attached(1500L, NOW.plusMinutes(30));
+
+        Map<String, Object> res = checkout.start(2, 2, "me@x.io");
+
+        assertEquals("cs_old", res.get("sessionId"));
+        assertEquals(true, res.get("reused"));
+        verifyNoInteractions(stripeGateway);
+        verify(seatHoldService, never()).attachSession(anyLong(), any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void priceChanged_orSessionAboutToExpire_createsNewSession() throws Exception {
+        Session s = new Session();
+        s.setId("cs_new");
+        s.setUrl("https://pay/cs_new");
+        when(stripeGateway.createSession(any())).thenReturn(s);
+        when(stripeGateway.expireSession("cs_old")).thenReturn(true);
+
+        attached(1000L, NOW.plusMinutes(30)); // organizer changed the price
+        assertEquals("cs_new", checkout.start(2, 2, "me@x.io").get("sessionId"));
+
+        attached(1500L, NOW.plusMinutes(3)); // too little time left to pay
+        assertEquals("cs_new", checkout.start(2, 2, "me@x.io").get("sessionId"));
+
+        verify(stripeGateway, times(2)).createSession(any());
+        InOrder order = inOrder(stripeGateway, seatHoldService);
+        order.verify(stripeGateway).expireSession("cs_old");
+        order.verify(seatHoldService).attachSession(eq(7L), eq("cs_new"), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void quantityChanged_expiresSessionOfReplacedHold() throws Exception {
+        SeatHold old = new SeatHold();
+        old.setId(6L);
+        old.setQuantity(3);
+        old.setCheckoutSessionId("cs_three");
+        when(seatHoldService.findActive(2, 20)).thenReturn(Optional.of(old));
+        when(stripeGateway.expireSession("cs_three")).thenReturn(true);
+        Session s = new Session();
+        s.setId("cs_new");
+        s.setUrl("https://pay/cs_new");
+        when(stripeGateway.createSession(any())).thenReturn(s);
+
+        assertEquals("cs_new", checkout.start(2, 2, "me@x.io").get("sessionId"));
+
+        InOrder order = inOrder(stripeGateway, ticketService);
+        order.verify(stripeGateway).expireSession("cs_three");
+        order.verify(ticketService).holdSeat(2, 20, 2);
+        order.verify(stripeGateway).createSession(any());
+    }
+
+    @Test
+    void replacedSessionAlreadyPaid_keepsHoldAndRefuses() throws Exception {
+        attached(1000L, NOW.plusMinutes(30));
+        when(stripeGateway.expireSession("cs_old")).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> checkout.start(2, 2, "me@x.io"));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+        assertEquals(CheckoutService.ERR_ALREADY_PAID, ex.getReason());
+        verify(ticketService, never()).holdSeat(anyInt(), anyInt(), anyInt());
+        verify(stripeGateway, never()).createSession(any());
+    }
+
+    @Test
+    void stripeFailure_releasesNewHold() throws Exception {
+        when(stripeGateway.createSession(any())).thenThrow(new ApiConnectionException("down"));
+
+        assertThrows(ApiConnectionException.class, () -> checkout.start(2, 2, "me@x.io"));
+        verify(seatHoldService).release(7L);
+    }
+}
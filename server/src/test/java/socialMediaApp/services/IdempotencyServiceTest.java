@@ -0,0 +1,133 @@
+package socialMediaApp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.IdempotencyRecord;
+import socialMediaApp.models.enums.IdempotencyStatus;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String FP = "POST /api/tickets/register/1";
+
+    @Mock private IdempotencyStore store;
+
+    private IdempotencyService idempotency;
+
+    @BeforeEach
+    void setup() {
+        idempotency = new IdempotencyService(store, new ObjectMapper());
+        ReflectionTestUtils.setField(idempotency, "waitMillis", 5000L);
+    }
+
+    private static IdempotencyRecord stored(String fingerprint, IdempotencyStatus status, String body) {
+        IdempotencyRecord r = new IdempotencyRecord();
+        r.setFingerprint(fingerprint);
+        r.setStatus(status);
+        r.setResponseStatus(200);
+        r.setResponseBody(body);
+        return r;
+    }
+
+    @Test
+    void withoutKey_justRunsTheAction() {
+        ResponseEntity<?> res = idempotency.execute("a@b.c", null, FP, () -> ResponseEntity.ok("x"));
+
+        assertEquals("x", res.getBody());
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void firstRequest_runsAndStoresTheResponse() {
+        when(store.begin(anyString(), eq(FP))).thenReturn(new IdempotencyStore.Claim(true, null));
+
+        ResponseEntity<?> res = idempotency.execute("a@b.c", "k1", FP, () -> ResponseEntity.ok(Map.of("id", 7)));
+
+        assertEquals(Map.of("id", 7), res.getBody());
+        verify(store).complete(anyString(), eq(200), eq("{\"id\":7}"));
+    }
+
+    @Test
+    void retry_isAnsweredFromTheStore_withoutRunningTheAction() {
+        when(store.begin(anyString(), eq(FP)))
+                .thenReturn(new IdempotencyStore.Claim(false, stored(FP, IdempotencyStatus.DONE, "{\"id\":7}")));
+
+        ResponseEntity<?> res = idempotency.execute("a@b.c", "k1", FP, () -> fail("must not run"));
+
+        assertEquals("true", res.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("{\"id\":7}", res.getBody().toString());
+    }
+
+    @Test
+    void sameKeyOnAnotherRequest_is422() {
+        when(store.begin(anyString(), eq(FP)))
+                .thenReturn(new IdempotencyStore.Claim(false, stored("POST /api/tickets/register/2", IdempotencyStatus.DONE, "{}")));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> idempotency.execute("a@b.c", "k1", FP, () -> ResponseEntity.ok("x")));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatus());
+    }
+
+    @Test
+    void failedRequest_freesTheKey() {
+        when(store.begin(anyString(), eq(FP))).thenReturn(new IdempotencyStore.Claim(true, null));
+
+        assertThrows(IllegalStateException.class, () -> idempotency.execute("a@b.c", "k1", FP, () -> {
+            throw new IllegalStateException("Event is full");
+        }));
+        verify(store).abandon(anyString());
+        verify(store, never()).complete(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void concurrentRequestsWithSameKey_runOnce_andShareTheResponse() throws Exception {
+        when(store.begin(anyString(), eq(FP))).thenReturn(new IdempotencyStore.Claim(true, null));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = pool.submit(() -> idempotency.execute("a@b.c", "k1", FP, () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                release.await();
+                return ResponseEntity.ok("ticket");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<?>> second = pool.submit(() -> idempotency.execute("a@b.c", "k1", FP, () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.ok("other");
+            }));
+            Thread.sleep(100); // let the second request reach the wait
+            release.countDown();
+
+            assertEquals("ticket", first.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals("ticket", second.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals(1, runs.get());
+            verify(store, times(1)).begin(anyString(), eq(FP));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.RevenueSummary;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.RevenueScope;
+import socialMediaApp.repositories.RevenueLedgerRepository;
+import socialMediaApp.repositories.RevenueSummaryRepository;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueLedgerServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T18:00:00Z");
+    private static final LocalDateTime AT = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock private RevenueLedgerRepository ledgerRepository;
+    @Mock private RevenueSummaryRepository summaryRepository;
+
+    @InjectMocks
+    private RevenueLedgerService ledger;
+
+    private Post post;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(ledger, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        User owner = new User();
+        owner.setId(10);
+        post = new Post();
+        post.setId(1);
+        post.setUser(owner);
+        post.setPrice(new BigDecimal("19.99"));
+        post.setCurrency("eur");
+    }
+
+    @Test
+    void recordSale_splitsTheChargedAmount_andBumpsEventAndOrganizerTotals() {
+        // the price has since gone up to 19.99; the buyer was charged 50.00 for 3 seats
+        RevenueLedgerService.Payment charged = RevenueLedgerService.Payment.ofMinorUnits(5000L, "eur");
+        when(ledgerRepository.countPaidTickets(1, 20)).thenReturn(3);
+        when(ledgerRepository.appendForBuyer(1, 20, 10, new BigDecimal("16.66"), new BigDecimal("0.02"),
+                "EUR", "pi_1", "cs_1", AT)).thenReturn(3);
+
+        assertEquals(new BigDecimal("50.00"), ledger.recordSale(post, 20, "pi_1", "cs_1", charged));
+
+        verify(summaryRepository).add("EVENT", 1, "EUR", new BigDecimal("50.00"), 3, AT);
+        verify(summaryRepository).add("ORGANIZER", 10, "EUR", new BigDecimal("50.00"), 3, AT);
+    }
+
+    @Test
+    void payment_convertsMinorUnitsPerCurrency() {
+        assertEquals(new BigDecimal("12.34"), RevenueLedgerService.Payment.ofMinorUnits(1234L, "pln").total());
+        assertEquals(new BigDecimal("1234"), RevenueLedgerService.Payment.ofMinorUnits(1234L, "jpy").total());
+        assertNull(RevenueLedgerService.Payment.ofMinorUnits(null, "pln"));
+    }
+
+    @Test
+    void recordSale_whenTicketsAlreadyRecorded_leavesTotalsAlone() {
+        when(ledgerRepository.appendForBuyer(anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+
+        assertEquals(BigDecimal.ZERO, ledger.recordSale(post, 20, "pi_1", "cs_1", null));
+        verifyNoInteractions(summaryRepository);
+    }
+
+    @Test
+    void eventRevenue_readsTheSummaryRows() {
+        RevenueSummary s = new RevenueSummary();
+        s.setCurrency("EUR");
+        s.setAmount(new BigDecimal("59.97"));
+        when(summaryRepository.findAllByScopeAndScopeIdOrderByCurrencyAsc(RevenueScope.EVENT, 1)).thenReturn(List.of(s));
+
+        assertEquals(Map.of("EUR", new BigDecimal("59.97")), ledger.eventRevenue(1));
+        verifyNoInteractions(ledgerRepository);
+    }
+}
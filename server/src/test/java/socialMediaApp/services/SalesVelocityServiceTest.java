@@ -0,0 +1,191 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.responses.analitics.SalesVelocityResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesVelocityServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T18:00:00Z");
+    private static final LocalDateTime AT = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+    private static final int OWNER = 10;
+
+    @Mock private TicketRepository ticketRepository;
+    @Mock private TicketAvailabilityService availabilityService;
+    @Mock private PostService postService;
+
+    @InjectMocks
+    private SalesVelocityService velocity;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(velocity, "windowMinutes", 60);
+        ReflectionTestUtils.setField(velocity, "rateMinutes", 5);
+        ReflectionTestUtils.setField(velocity, "idleMinutes", 30L);
+        at(NOW);
+
+        User owner = new User();
+        owner.setId(OWNER);
+        Post post = new Post();
+        post.setId(1);
+        post.setUser(owner);
+        lenient().when(postService.getById(1)).thenReturn(post);
+    }
+
+    private void at(Instant now) {
+        ReflectionTestUtils.setField(velocity, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private void available(Integer seats) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("available", seats);
+        when(availabilityService.get(1)).thenReturn(snapshot);
+    }
+
+    private static Object[] second(LocalDateTime t, long count) {
+        return new Object[]{t.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), count};
+    }
+
+    @Test
+    void velocity_seedsOnce_thenCountsNewSalesInMemory() {
+        when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), any()))
+                .thenReturn(List.<Object[]>of(second(AT.minusSeconds(30), 10)));
+        available(null);
+
+        assertEquals(2.0, velocity.velocity(1, OWNER).getTicketsPerMinute());
+
+        velocity.recordIssued(1, 5, AT);
+        SalesVelocityResponse res = velocity.velocity(1, OWNER);
+
+        assertEquals(3.0, res.getTicketsPerMinute());
+        assertEquals(15, res.getSoldInWindow());
+        assertEquals(60, res.getPerMinute().size());
+        assertEquals(15, res.getPerMinute().get(59).getSold() + res.getPerMinute().get(58).getSold());
+        assertNull(res.getProjectedSellOutAt()); // no capacity
+        verify(ticketRepository, times(1)).countIssuedPerSecondBetween(eq(1), any(), any());
+    }
+
+    @Test
+    void velocity_projectsSellOut_atCurrentRateAndWithTrend() {
+        when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), any())).thenReturn(List.<Object[]>of(
+                second(AT.minusMinutes(7), 5),   // previous 5 minutes: 1/min
+                second(AT.minusMinutes(2), 20))); // last 5 minutes: 4/min
+        available(40);
+
+        SalesVelocityResponse res = velocity.velocity(1, OWNER);
+
+        assertEquals(4.0, res.getTicketsPerMinute());
+        assertEquals(1.0, res.getPreviousTicketsPerMinute());
+        assertEquals(0.6, res.getAcceleration(), 1e-9);
+        assertEquals(AT.plusMinutes(10), res.getProjectedSellOutAt());
+        // 4t + 0.3t^2 = 40  ->  t = 20/3 minutes
+        assertEquals(AT.plusSeconds(400), res.getProjectedSellOutAtWithTrend());
+        assertFalse(res.isSoldOut());
+    }
+
+    @Test
+    void minutesToSellOut_isNullWhenSalesDieOutFirst() {
+        assertNull(SalesVelocityService.minutesToSellOut(100, 4, -0.5)); // peaks at 16 more tickets
+        assertEquals(10.0, SalesVelocityService.minutesToSellOut(40, 4, 0));
+        assertNull(SalesVelocityService.minutesToSellOut(40, 0, 0));
+    }
+
+    @Test
+    void recordIssued_forUntrackedEvent_isIgnored_andIdleEventsAreEvicted() {
+        velocity.recordIssued(1, 3, AT);
+        assertEquals(0, velocity.trackedEvents());
+
+        when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), any())).thenReturn(List.of());
+        available(0);
+        assertTrue(velocity.velocity(1, OWNER).isSoldOut());
+        assertEquals(1, velocity.trackedEvents());
+
+        at(NOW.plusSeconds(31 * 60));
+        velocity.evictIdle();
+        assertEquals(0, velocity.trackedEvents());
+    }
+
+    @Test
+    void recordIssued_looksUpRingAfterCommit_andSalesDuringSeedCountOnce() {
+        available(null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            velocity.recordIssued(1, 4, AT); // nothing tracked yet while the transaction runs
+            when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), any())).thenAnswer(inv -> {
+                // commits while the seed query runs: lands in the ring, not in the (bounded) query
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                return List.of();
+            });
+            velocity.velocity(1, OWNER);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(4, velocity.velocity(1, OWNER).getSoldInWindow());
+        verify(ticketRepository).countIssuedPerSecondBetween(1, AT.minusMinutes(60).plusSeconds(1), AT);
+    }
+
+    @Test
+    void saleCreatedBeforeTheSeedBound_committingDuringSeed_isCountedOnce() {
+        available(null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            velocity.recordIssued(1, 2, AT.minusSeconds(10)); // inserted before the ring existed
+            when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), eq(AT))).thenAnswer(inv -> {
+                // commits after publication, before the seed reads: the query sees the rows too
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                return List.<Object[]>of(second(AT.minusSeconds(10), 2));
+            });
+            velocity.velocity(1, OWNER);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, velocity.velocity(1, OWNER).getSoldInWindow());
+    }
+
+    @Test
+    void velocity_whenSeedFails_doesNotKeepAnEmptyRing() {
+        when(ticketRepository.countIssuedPerSecondBetween(eq(1), any(), any()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(List.<Object[]>of(second(AT.minusSeconds(30), 10)));
+        available(null);
+
+        assertThrows(IllegalStateException.class, () -> velocity.velocity(1, OWNER));
+        assertEquals(0, velocity.trackedEvents());
+        assertEquals(10, velocity.velocity(1, OWNER).getSoldInWindow());
+    }
+
+    @Test
+    void velocity_forNonOwner_throws403() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> velocity.velocity(1, 99));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatus());
+        verifyNoInteractions(ticketRepository);
+    }
+}
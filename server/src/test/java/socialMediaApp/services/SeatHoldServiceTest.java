@@ -0,0 +1,104 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.SeatHoldStatus;
+import socialMediaApp.repositories.SeatHoldRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatHoldServiceTest {
+
+    @Mock private SeatHoldRepository seatHoldRepository;
+    @Mock private TicketInventoryService inventoryService;
+    @Mock private TicketAvailabilityService availabilityService;
+
+    @InjectMocks
+    private SeatHoldService seatHoldService;
+
+    @Test
+    void expireBatch_releasesSeatsPerEvent_forRowsThisSweepExpired() {
+        when(seatHoldRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(seatHoldRepository.expire(eq(List.of(1L, 2L, 3L)), anyString())).thenReturn(3);
+        when(seatHoldRepository.sumQuantityBySweep(anyString()))
+                .thenReturn(List.of(new Object[]{7, 2L}, new Object[]{8, 1L}));
+
+        assertEquals(3, seatHoldService.expireBatch(500));
+
+        verify(inventoryService).release(7, 2);
+        verify(inventoryService).release(8, 1);
+        verify(availabilityService).changed(7);
+        verify(availabilityService).changed(8);
+    }
+
+    @Test
+    void expireBatch_whenNothingOverdue_doesNothing() {
+        when(seatHoldRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, seatHoldService.expireBatch(500));
+        verify(seatHoldRepository, never()).expire(any(), any());
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void claim_convertsHoldFoundBySession_andReturnsItsSeats() {
+        SeatHold h = hold(5L, 2, 20);
+        h.setQuantity(3);
+        when(seatHoldRepository.findByCheckoutSessionId("cs_1")).thenReturn(Optional.of(h));
+        when(seatHoldRepository.transitionFromActive(5L, SeatHoldStatus.CONVERTED)).thenReturn(1);
+
+        assertEquals(3, seatHoldService.claim(2, 20, "cs_1"));
+    }
+
+    @Test
+    void claim_whenSweeperWonTheRace_returnsZero() {
+        SeatHold h = hold(5L, 2, 20);
+        when(seatHoldRepository.findByCheckoutSessionId("cs_1")).thenReturn(Optional.of(h));
+        when(seatHoldRepository.transitionFromActive(5L, SeatHoldStatus.CONVERTED)).thenReturn(0);
+
+        assertEquals(0, seatHoldService.claim(2, 20, "cs_1"));
+    }
+
+    @Test
+    void release_returnsSeatsOnlyWhenHoldWasStillActive() {
+        SeatHold h = hold(5L, 2, 20);
+        when(seatHoldRepository.findById(5L)).thenReturn(Optional.of(h));
+        when(seatHoldRepository.transitionFromActive(5L, SeatHoldStatus.RELEASED)).thenReturn(1, 0);
+
+        seatHoldService.release(5L);
+        seatHoldService.release(5L);
+
+        verify(inventoryService, times(1)).release(2, 1);
+    }
+
+    private static SeatHold hold(long id, int postId, int userId) {
+        Post p = new Post();
+        p.setId(postId);
+        User u = new User();
+        u.setId(userId);
+
+        SeatHold h = new SeatHold();
+        h.setId(id);
+        h.setPost(p);
+        h.setUser(u);
+        h.setQuantity(1);
+        h.setStatus(SeatHoldStatus.ACTIVE);
+        h.setExpiresAt(LocalDateTime.now().plusMinutes(30));
+        return h;
+    }
+}
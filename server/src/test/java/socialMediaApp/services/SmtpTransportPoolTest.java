@@ -0,0 +1,179 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpTransportPoolTest {
+
+    private FakeSmtpServer smtp;
+    private JavaMailSenderImpl sender;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setup() throws IOException {
+        smtp = new FakeSmtpServer();
+        sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtp.port());
+
+        pool = new SmtpTransportPool(sender);
+        ReflectionTestUtils.setField(pool, "poolSize", 2);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 10);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMillis", 1000L);
+        ReflectionTestUtils.invokeMethod(pool, "start");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ReflectionTestUtils.invokeMethod(pool, "stop");
+        smtp.close();
+    }
+
+    private List<MimeMessage> messages(int n) throws Exception {
+        List<MimeMessage> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            MimeMessage m = sender.createMimeMessage();
+            m.setFrom(new InternetAddress("tickets@local"));
+            m.setRecipients(MimeMessage.RecipientType.TO, "buyer" + i + "@local");
+            m.setSubject("Ticket " + i);
+            m.setText("hello");
+            out.add(m);
+        }
+        return out;
+    }
+
+    @Test
+    void batches_reuseOneConnection_acrossCalls() throws Exception {
+        Exception[] first = pool.send(messages(5));
+        Exception[] second = pool.send(messages(3));
+
+        assertArrayEquals(new Exception[5], first);
+        assertArrayEquals(new Exception[3], second);
+        assertEquals(8, smtp.messages.get());
+        assertEquals(1, smtp.connections.get());
+        assertEquals(8, pool.sentTotal());
+        assertEquals(2, pool.idleConnections());
+    }
+
+    @Test
+    void connectionIsRecycled_afterMaxMessages() throws Exception {
+        pool.send(messages(25));
+
+        assertEquals(25, smtp.messages.get());
+        assertEquals(3, smtp.connections.get()); // 10 + 10 + 5
+    }
+
+    @Test
+    void rejectedRecipient_failsOnlyThatMessage() throws Exception {
+        List<MimeMessage> batch = messages(3);
+        batch.get(1).setRecipients(MimeMessage.RecipientType.TO, "reject@local");
+
+        Exception[] failures = pool.send(batch);
+
+        assertNull(failures[0]);
+        assertNotNull(failures[1]);
+        assertNull(failures[2]);
+        assertEquals(2, smtp.messages.get());
+        assertEquals(1, pool.failedTotal());
+    }
+
+    /** Just enough SMTP for JavaMail: one thread per connection, "reject@" recipients get 550. */
+    private static final class FakeSmtpServer implements AutoCloseable {
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        private final ServerSocket server;
+
+        FakeSmtpServer() throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread t = new Thread(this::acceptLoop, "fake-smtp");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try {
+                    Socket s = server.accept();
+                    connections.incrementAndGet();
+                    Thread t = new Thread(() -> session(s), "fake-smtp-session");
+                    t.setDaemon(true);
+                    t.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket s) {
+            try (s;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 fake ESMTP");
+                String line;
+                boolean rejected = false;
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.toUpperCase();
+                    if (cmd.startsWith("EHLO") || cmd.startsWith("HELO")) {
+                        reply(out, "250 fake");
+                    } else if (cmd.startsWith("MAIL FROM")) {
+                        rejected = false;
+                        reply(out, "250 OK");
+                    } else if (cmd.startsWith("RCPT TO")) {
+                        if (cmd.contains("REJECT@")) {
+                            rejected = true;
+                            reply(out, "550 no such user");
+                        } else {
+                            reply(out, "250 OK");
+                        }
+                    } else if (cmd.equals("DATA")) {
+                        reply(out, "354 go ahead");
+                        while (!".".equals(in.readLine())) {
+                            // swallow the message body
+                        }
+                        if (!rejected) messages.incrementAndGet();
+                        reply(out, "250 queued");
+                    } else if (cmd.equals("QUIT")) {
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK"); // NOOP, RSET
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
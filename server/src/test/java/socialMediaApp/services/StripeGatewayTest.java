@@ -0,0 +1,142 @@
+package socialMediaApp.services;
+
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripeGatewayTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T12:00:00Z");
+
+    private StripeGateway gateway;
+
+    @BeforeEach
+    void setup() {
+        gateway = new StripeGateway();
+        ReflectionTestUtils.setField(gateway, "workers", 1);
+        ReflectionTestUtils.setField(gateway, "queueCapacity", 1);
+        ReflectionTestUtils.setField(gateway, "timeoutMillis", 300L);
+        ReflectionTestUtils.setField(gateway, "failureThreshold", 2);
+        ReflectionTestUtils.setField(gateway, "openMillis", 30_000L);
+        at(T0);
+        ReflectionTestUtils.invokeMethod(gateway, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(gateway, "stop");
+    }
+
+    private void at(Instant now) {
+        ReflectionTestUtils.setField(gateway, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static ApiConnectionException connectionError() {
+        return new ApiConnectionException("connection reset");
+    }
+
+    @Test
+    void createSession_againstLocalStubServer() throws Exception {
+        HttpServer stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        AtomicInteger hits = new AtomicInteger();
+        stub.createContext("/v1/checkout/sessions", ex -> {
+            hits.incrementAndGet();
+            byte[] body = "{\"id\":\"cs_stub_1\",\"object\":\"checkout.session\",\"url\":\"https://pay.local/cs_stub_1\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, body.length);
+            ex.getResponseBody().write(body);
+            ex.close();
+        });
+        stub.start();
+        String apiKey = Stripe.apiKey;
+        ReflectionTestUtils.setField(gateway, "timeoutMillis", 10_000L); // first call loads the Stripe client
+        try {
+            Stripe.apiKey = "sk_test_stub";
+            Stripe.overrideApiBase("http://127.0.0.1:" + stub.getAddress().getPort());
+
+            Session s = gateway.createSession(SessionCreateParams.builder()
+                    .setMode(SessionCreateParams.Mode.PAYMENT)
+                    .setSuccessUrl("http://localhost/ok")
+                    .build());
+
+            assertEquals("cs_stub_1", s.getId());
+            assertEquals("https://pay.local/cs_stub_1", s.getUrl());
+            assertEquals(1, hits.get());
+        } finally {
+            Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+            Stripe.apiKey = apiKey;
+            stub.stop(0);
+        }
+    }
+
+    @Test
+    void slowCall_timesOut_with504() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> gateway.call("test", () -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        }));
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, ex.getStatus());
+    }
+
+    @Test
+    void breakerOpensAfterConsecutiveFailures_thenOneTrialClosesIt() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ApiConnectionException.class, () -> gateway.call("test", () -> { throw connectionError(); }));
+        }
+        assertTrue(gateway.isOpen());
+
+        AtomicInteger calls = new AtomicInteger();
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> gateway.call("test", calls::incrementAndGet));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(0, calls.get()); // failed fast, Stripe not called
+
+        at(T0.plusSeconds(31));
+        assertEquals("ok", gateway.call("test", () -> "ok"));
+        assertFalse(gateway.isOpen());
+    }
+
+    @Test
+    void failedTrial_reopensTheBreaker() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ApiConnectionException.class, () -> gateway.call("test", () -> { throw connectionError(); }));
+        }
+        at(T0.plusSeconds(31));
+        assertThrows(ApiConnectionException.class, () -> gateway.call("test", () -> { throw connectionError(); }));
+
+        assertTrue(gateway.isOpen());
+    }
+
+    @Test
+    void clientErrors_doNotCountTowardsTheBreaker() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(InvalidRequestException.class, () -> gateway.call("test", () -> {
+                throw new InvalidRequestException("bad param", "expires_at", "req_1", null, 400, null);
+            }));
+        }
+        assertFalse(gateway.isOpen());
+    }
+}
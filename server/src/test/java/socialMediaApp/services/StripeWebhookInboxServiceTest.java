@@ -0,0 +1,69 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.enums.WebhookInboxStatus;
+import socialMediaApp.repositories.StripeWebhookEventRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookInboxServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T12:00:00Z");
+    private static final LocalDateTime NOW_LDT = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock private StripeWebhookEventRepository inboxRepository;
+
+    @InjectMocks
+    private StripeWebhookInboxService inbox;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(inbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(inbox, "backoffBaseMillis", 5000L);
+        ReflectionTestUtils.setField(inbox, "backoffMaxMillis", 12000L);
+        ReflectionTestUtils.setField(inbox, "leaseMillis", 60000L);
+        ReflectionTestUtils.setField(inbox, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void record_returnsFalseForRedelivery() {
+        when(inboxRepository.insertIfAbsent(eq("evt_1"), anyString(), anyString(), anyString(), eq(NOW_LDT))).thenReturn(1, 0);
+
+        assertTrue(inbox.record("evt_1", "payment_intent.succeeded", "{}", "t=1,v1=ab"));
+        assertFalse(inbox.record("evt_1", "payment_intent.succeeded", "{}", "t=1,v1=ab"));
+    }
+
+    @Test
+    void markFailedAttempt_backsOffExponentially_thenGivesUp() {
+        assertFalse(inbox.markFailedAttempt("evt_1", 1, "boom"));
+        verify(inboxRepository).markFailedAttempt("evt_1", WebhookInboxStatus.PENDING, NOW_LDT.plusSeconds(5), "boom");
+
+        assertFalse(inbox.markFailedAttempt("evt_1", 2, "boom"));
+        verify(inboxRepository).markFailedAttempt("evt_1", WebhookInboxStatus.PENDING, NOW_LDT.plusSeconds(10), "boom");
+
+        assertTrue(inbox.markFailedAttempt("evt_1", 3, "boom"));
+        verify(inboxRepository).markFailedAttempt("evt_1", WebhookInboxStatus.FAILED, NOW_LDT.plusSeconds(12), "boom"); // capped
+    }
+
+    @Test
+    void claim_whenAnotherWorkerOwnsTheRow_returnsEmpty() {
+        when(inboxRepository.claim("evt_1", NOW_LDT, NOW_LDT.plusMinutes(1))).thenReturn(0);
+
+        assertTrue(inbox.claim("evt_1").isEmpty());
+        verify(inboxRepository, never()).findById(any());
+    }
+}
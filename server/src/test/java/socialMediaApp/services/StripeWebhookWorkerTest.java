@@ -0,0 +1,93 @@
+package socialMediaApp.services;
+
+import com.stripe.model.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.api.StripeTestSignatures;
+import socialMediaApp.models.StripeWebhookEvent;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookWorkerTest {
+
+    @Mock private StripeWebhookInboxService inboxService;
+    @Mock private StripeWebhookProcessor processor;
+
+    @InjectMocks
+    private StripeWebhookWorker worker;
+
+    private static final String SECRET = "whsec_test_123";
+    private static final String PAYLOAD = "{\"id\":\"evt_1\",\"object\":\"event\",\"type\":\"payment_intent.succeeded\"}";
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(worker, "webhookSecret", SECRET);
+    }
+
+    private static StripeWebhookEvent row(int attempts) {
+        StripeWebhookEvent e = new StripeWebhookEvent();
+        e.setEventId("evt_1");
+        e.setType("payment_intent.succeeded");
+        e.setPayload(PAYLOAD);
+        e.setSignature(StripeTestSignatures.stripeSignatureHeader(PAYLOAD, SECRET));
+        e.setAttempts(attempts);
+        return e;
+    }
+
+    @Test
+    void process_handlesStoredEvent_andMarksDone() {
+        when(inboxService.claim("evt_1")).thenReturn(Optional.of(row(1)));
+
+        worker.process("evt_1");
+
+        ArgumentCaptor<Event> event = ArgumentCaptor.forClass(Event.class);
+        verify(processor).handle(event.capture());
+        assertEquals("evt_1", event.getValue().getId());
+        assertEquals("payment_intent.succeeded", event.getValue().getType());
+        verify(inboxService).markDone("evt_1");
+    }
+
+    @Test
+    void process_whenHandlerFails_schedulesRetry() {
+        when(inboxService.claim("evt_1")).thenReturn(Optional.of(row(2)));
+        doThrow(new IllegalStateException("smtp down")).when(processor).handle(any());
+
+        worker.process("evt_1");
+
+        verify(inboxService).markFailedAttempt(eq("evt_1"), eq(2), contains("smtp down"));
+        verify(inboxService, never()).markDone(any());
+    }
+
+    @Test
+    void process_whenStoredPayloadNoLongerVerifies_givesUpWithoutHandling() {
+        StripeWebhookEvent tampered = row(1);
+        tampered.setPayload(PAYLOAD.replace("evt_1", "evt_2"));
+        when(inboxService.claim("evt_1")).thenReturn(Optional.of(tampered));
+
+        worker.process("evt_1");
+
+        verifyNoInteractions(processor);
+        verify(inboxService).markFailedAttempt(eq("evt_1"), eq(Integer.MAX_VALUE), anyString());
+    }
+
+    @Test
+    void process_whenNotClaimed_doesNothing() {
+        when(inboxService.claim("evt_1")).thenReturn(Optional.empty());
+
+        worker.process("evt_1");
+
+        verifyNoInteractions(processor);
+        verify(inboxService, never()).markDone(any());
+    }
+}
@@ -0,0 +1,87 @@
+package socialMediaApp.services;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.User;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** QR encoder + PDF renderer: the output still scans and reads like the old tickets. */
+class TicketArtworkTest {
+
+    private static final String PAYLOAD = "TICKET:1:0A1B2C3D4E5F6071";
+
+    private final TicketQrEncoder qr = new TicketQrEncoder();
+    private final TicketPdfRenderer pdf = new TicketPdfRenderer();
+
+    private static String decode(BufferedImage img) throws Exception {
+        return new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(img))))
+                .getText();
+    }
+
+    private static Ticket ticket(int postId, String title, String code) {
+        Post p = new Post();
+        p.setId(postId);
+        p.setTitle(title);
+        User u = new User();
+        u.setName("Jan");
+        u.setLastName("Doe");
+        Ticket t = new Ticket();
+        t.setPost(p);
+        t.setUser(u);
+        t.setCode(code);
+        t.setCreatedAt(LocalDateTime.of(2030, 1, 1, 18, 30));
+        return t;
+    }
+
+    @Test
+    void png_isSquare_withinRequestedSize_andScans() throws Exception {
+        byte[] png = qr.png(qr.modules(PAYLOAD), 280);
+
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(img.getWidth(), img.getHeight());
+        assertTrue(img.getWidth() <= 280 && img.getWidth() > 200);
+        assertEquals(PAYLOAD, decode(img));
+    }
+
+    @Test
+    void pdf_carriesTicketDetails_andAScannableVectorQr() throws Exception {
+        byte[] bytes = pdf.render(ticket(1, "Gig", "0A1B2C3D4E5F6071"), qr.modules(PAYLOAD));
+
+        try (PDDocument doc = PDDocument.load(bytes)) {
+            String text = new PDFTextStripper().getText(doc);
+            assertTrue(text.contains("TICKET"));
+            assertTrue(text.contains("Gig"));
+            assertTrue(text.contains("Code: 0A1B2C3D4E5F6071"));
+            assertTrue(text.contains("Owner: Jan Doe"));
+            assertTrue(text.contains("Issued: 2030-01-01 18:30"));
+
+            BufferedImage page = new PDFRenderer(doc).renderImageWithDPI(0, 200);
+            assertEquals(PAYLOAD, decode(page));
+        }
+    }
+
+    @Test
+    void template_isBuiltOncePerEvent_andRebuiltWhenTheTitleChanges() {
+        pdf.render(ticket(1, "Gig", "A1"), qr.modules("TICKET:1:A1"));
+        pdf.render(ticket(1, "Gig", "A2"), qr.modules("TICKET:1:A2"));
+        assertEquals(1, pdf.cachedTemplates());
+
+        pdf.render(ticket(2, "Other", "B1"), qr.modules("TICKET:2:B1"));
+        pdf.render(ticket(1, "Gig (moved)", "A3"), qr.modules("TICKET:1:A3"));
+        assertEquals(3, pdf.cachedTemplates());
+    }
+}
@@ -0,0 +1,240 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.repositories.PostRepository;
+import socialMediaApp.repositories.SeatHoldRepository;
+import socialMediaApp.repositories.TicketRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketAvailabilityServiceTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T18:00:00Z");
+
+    @Mock private PostService postService;
+    @Mock private PostRepository postRepository;
+    @Mock private TicketRepository ticketRepository;
+    @Mock private TicketInventoryService inventoryService;
+    @Mock private SeatHoldRepository seatHoldRepository;
+    @Mock private SseHub hub;
+
+    @InjectMocks
+    private TicketAvailabilityService availability;
+
+    private User owner;
+
+    @BeforeEach
+    void setup() {
+        owner = new User();
+        owner.setId(10);
+        ReflectionTestUtils.setField(availability, "maxStaleMillis", 2000L);
+        ReflectionTestUtils.setField(availability, "streamTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(availability, "maxBulk", 3);
+        at(T0);
+    }
+
+    private void at(Instant now) {
+        ReflectionTestUtils.setField(availability, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private Post post(int id, Integer capacity) {
+        Post p = bare(id, capacity);
+        when(postService.getById(id)).thenReturn(p);
+        return p;
+    }
+
+    private Post bare(int id, Integer capacity) {
+        Post p = new Post();
+        p.setId(id);
+        p.setUser(owner);
+        p.setCapacity(capacity);
+        return p;
+    }
+
+    @Test
+    void get_whenCapacityNull_returnsAvailableNull() {
+        post(3, null);
+
+        Map<String, Object> res = availability.get(3);
+
+        assertNull(res.get("seats"));
+        assertNull(res.get("available"));
+        verify(ticketRepository, never()).countByPost_IdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    @Test
+    void get_whenCapacitySet_returnsRemaining() {
+        Post p = post(4, 100);
+        when(inventoryService.remaining(p)).thenReturn(null); // not seeded yet -> count fallback
+        when(ticketRepository.countByPost_IdAndStatusIn(eq(4), anyCollection())).thenReturn(7L);
+
+        Map<String, Object> res = availability.get(4);
+
+        assertEquals(100, res.get("seats"));
+        assertEquals(93, res.get("available"));
+    }
+
+    @Test
+    void get_whenInventorySeeded_readsRemainingFromInventory() {
+        Post p = post(5, 100);
+        when(inventoryService.remaining(p)).thenReturn(40);
+        when(seatHoldRepository.sumActiveQuantity(5)).thenReturn(3L);
+
+        Map<String, Object> res = availability.get(5);
+
+        assertEquals(100, res.get("seats"));
+        assertEquals(40, res.get("available"));
+        assertEquals(3L, res.get("held"));
+        verify(ticketRepository, never()).countByPost_IdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    @Test
+    void get_servesCachedSnapshot_untilChangedOrStale() {
+        Post p = post(5, 100);
+        when(inventoryService.remaining(p)).thenReturn(40, 39, 38);
+
+        assertEquals(40, availability.get(5).get("available"));
+        at(T0.plusMillis(1999));
+        assertEquals(40, availability.get(5).get("available"));
+
+        availability.changed(5); // no transaction: evicted right away
+        assertEquals(39, availability.get(5).get("available"));
+
+        at(T0.plusMillis(4000));
+        assertEquals(38, availability.get(5).get("available"));
+        verify(postService, times(3)).getById(5);
+    }
+
+    @Test
+    void get_concurrentReadersShareOneLoad_runningOutsideTheMap() throws Exception {
+        Post p = bare(6, 100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(postService.getById(6)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return p;
+        });
+        when(inventoryService.remaining(p)).thenReturn(40);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> first = pool.submit(() -> availability.get(6));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<Map<String, Object>> second = pool.submit(() -> availability.get(6));
+            // other events are not blocked by the in-flight load
+            post(7, null);
+            assertNull(availability.get(7).get("seats"));
+            release.countDown();
+
+            assertEquals(40, first.get(5, TimeUnit.SECONDS).get("available"));
+            assertEquals(40, second.get(5, TimeUnit.SECONDS).get("available"));
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(postService, times(1)).getById(6);
+    }
+
+    @Test
+    void get_whenLoadFails_doesNotCacheTheFailure() {
+        Post p = bare(8, null);
+        when(postService.getById(8))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .thenReturn(p);
+
+        assertThrows(ResponseStatusException.class, () -> availability.get(8));
+        assertNull(availability.get(8).get("seats"));
+    }
+
+    @Test
+    void publishChanged_pushesOnlyWhenNumbersMoved_andForgetsUnwatchedEvents() {
+        Post p = post(5, 100);
+        when(inventoryService.remaining(p)).thenReturn(40, 39);
+        SseEmitter emitter = new SseEmitter();
+        when(hub.subscribe("availability:5", 1000L)).thenReturn(emitter);
+        when(hub.hasSubscribers("availability:5")).thenReturn(true, true, true, false);
+
+        availability.subscribe(5);
+        verify(hub).send(eq("availability:5"), eq(emitter), eq("availability"), any());
+
+        availability.publishChanged();      // first tick sends the current numbers
+        availability.publishChanged();      // unchanged -> nothing
+        availability.changed(5);
+        availability.publishChanged();      // 39 now
+        availability.publishChanged();      // last watcher left
+
+        verify(hub, times(2)).publish(eq("availability:5"), eq("availability"), any());
+        verify(postService, times(2)).getById(5);
+    }
+
+    @Test
+    void getAll_loadsMissesWithGroupedQueries_inRequestOrder() {
+        Post seeded = bare(1, 100);
+        Post counted = bare(2, 50);
+        Post unlimited = bare(3, null);
+        when(postRepository.findAllById(anySet())).thenReturn(List.of(seeded, counted, unlimited));
+        when(inventoryService.remaining(anyCollection())).thenReturn(Map.of(1, 60));
+        when(ticketRepository.countByPostIdsAndStatusIn(eq(List.of(2)), anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{2, 5L}));
+        when(seatHoldRepository.sumActiveQuantityByPostIds(anySet()))
+                .thenReturn(List.<Object[]>of(new Object[]{1, 4L}));
+
+        Map<Integer, Map<String, Object>> res = availability.getAll(List.of(3, 1, 2));
+
+        assertEquals(List.of(3, 1, 2), List.copyOf(res.keySet()));
+        assertEquals(60, res.get(1).get("available"));
+        assertEquals(4L, res.get(1).get("held"));
+        assertEquals(45, res.get(2).get("available"));
+        assertEquals(0L, res.get(2).get("held"));
+        assertNull(res.get(3).get("available"));
+        verifyNoInteractions(postService);
+    }
+
+    @Test
+    void getAll_reusesCachedSnapshots_andSkipsUnknownIds() {
+        Post p = post(5, 100);
+        when(inventoryService.remaining(p)).thenReturn(40);
+        availability.get(5);
+        when(postRepository.findAllById(Set.of(9))).thenReturn(List.of());
+        when(inventoryService.remaining(anyCollection())).thenReturn(Map.of());
+
+        Map<Integer, Map<String, Object>> res = availability.getAll(List.of(5, 9));
+
+        assertEquals(Set.of(5), res.keySet());
+        assertEquals(40, res.get(5).get("available"));
+    }
+
+    @Test
+    void getAll_rejectsOversizedRequests() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> availability.getAll(List.of(1, 2, 3, 4)));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verifyNoInteractions(postRepository);
+    }
+}
@@ -0,0 +1,161 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.TicketCodeNode;
+import socialMediaApp.repositories.TicketCodeNodeRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TicketCodeGeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T12:00:00Z");
+
+    // stands in for ticket_code_nodes: reservations only move forward
+    private final Map<Integer, Long> reserved = new HashMap<>();
+    private final TicketCodeNodeRepository nodeRepository = mock(TicketCodeNodeRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @BeforeEach
+    void setup() {
+        when(nodeRepository.reserve(anyInt(), anyLong())).thenAnswer(inv -> {
+            reserved.merge(inv.getArgument(0), inv.getArgument(1), Math::max);
+            return 1;
+        });
+        when(nodeRepository.findById(anyInt())).thenAnswer(inv -> Optional.ofNullable(reserved.get(inv.<Integer>getArgument(0)))
+                .map(until -> {
+                    TicketCodeNode n = new TicketCodeNode();
+                    n.setNodeId(inv.getArgument(0));
+                    n.setReservedUntil(until);
+                    return n;
+                }));
+    }
+
+    private TicketCodeGenerator generator(long nodeId, String secret) {
+        return generator(nodeId, secret, NOW);
+    }
+
+    private TicketCodeGenerator generator(long nodeId, String secret, Instant now) {
+        TicketCodeGenerator g = unstarted(nodeId, secret, now);
+        g.start();
+        return g;
+    }
+
+    private TicketCodeGenerator unstarted(long nodeId, String secret, Instant now) {
+        TicketCodeGenerator g = new TicketCodeGenerator(nodeRepository, transactionManager);
+        ReflectionTestUtils.setField(g, "nodeId", nodeId);
+        ReflectionTestUtils.setField(g, "secret", secret);
+        ReflectionTestUtils.setField(g, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        return g;
+    }
+
+    private static void at(TicketCodeGenerator g, Instant now) {
+        ReflectionTestUtils.setField(g, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void next_withinOneSecond_neverRepeats_andKeepsCodeFormat() {
+        TicketCodeGenerator g = generator(1, "s");
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            String code = g.next();
+            assertTrue(code.matches("[0-9A-F]{16}"), code);
+            assertTrue(seen.add(code), "duplicate " + code);
+        }
+    }
+
+    @Test
+    void next_onDifferentNodes_neverCollides() {
+        TicketCodeGenerator a = generator(1, "s");
+        TicketCodeGenerator b = generator(2, "s");
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seen.add(a.next()));
+            assertTrue(seen.add(b.next()));
+        }
+    }
+
+    @Test
+    void next_dependsOnSecret() {
+        assertNotEquals(generator(1, "s1").next(), generator(1, "s2").next());
+    }
+
+    @Test
+    void next_whenNodeIdOutOfRange_throws() {
+        assertThrows(IllegalStateException.class, () -> generator(5000, "s"));
+    }
+
+    @Test
+    void start_whenNodeIdRequiredButMissing_failsFast() {
+        TicketCodeGenerator g = unstarted(-1, "s", NOW);
+        ReflectionTestUtils.setField(g, "requireNodeId", true);
+
+        assertThrows(IllegalStateException.class, g::start);
+    }
+
+    @Test
+    void refresh_extendsTheReservationOnlyNearItsEnd() {
+        TicketCodeGenerator g = generator(1, "s"); // startup reserves NOW + 300 s
+        verify(nodeRepository).reserve(eq(1), anyLong());
+
+        at(g, NOW.plusSeconds(100));
+        g.refresh(); // 200 s left: nothing to do
+        verify(nodeRepository, times(1)).reserve(eq(1), anyLong());
+
+        at(g, NOW.plusSeconds(200));
+        g.refresh();
+        verify(nodeRepository, times(2)).reserve(eq(1), anyLong());
+    }
+
+    @Test
+    void next_crossingTheReservationInsideATransaction_neverTouchesTheDb() {
+        TicketCodeGenerator g = generator(1, "s");
+        clearInvocations(nodeRepository, transactionManager);
+
+        TransactionSynchronizationManager.initSynchronization(); // an issuing transaction is running
+        try {
+            for (int i = 0; i < 1_000; i++) g.next();
+            at(g, NOW.plusSeconds(301)); // past the window, no refresh ran
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, g::next);
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verifyNoInteractions(nodeRepository, transactionManager);
+
+        g.refresh(); // the scheduler catches up outside any transaction
+        assertNotNull(g.next());
+    }
+
+    @Test
+    void restart_afterClockSteppedBack_resumesAboveTheReservation() {
+        TicketCodeGenerator before = generator(1, "s", NOW.plusSeconds(2));
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) seen.add(before.next());
+
+        // the clock stepped back 2 s across the restart and then reaches the seconds used before
+        TicketCodeGenerator after = generator(1, "s", NOW);
+        for (int i = 0; i < 1_000; i++) {
+            if (i == 500) ReflectionTestUtils.setField(after, "clock", Clock.fixed(NOW.plusSeconds(2), ZoneOffset.UTC));
+            assertTrue(seen.add(after.next()), "repeated a code from before the restart");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.TicketEmailOutbox;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketEmailDispatcherTest {
+
+    @Mock private TicketEmailOutboxService outbox;
+    @Mock private MailService mailService;
+    @Mock private SmtpTransportPool smtpPool;
+
+    @InjectMocks
+    private TicketEmailDispatcher dispatcher;
+
+    private static TicketEmailOutbox row(long id, int attempts) {
+        TicketEmailOutbox m = new TicketEmailOutbox();
+        m.setId(id);
+        m.setPostId(1);
+        m.setUserId(20);
+        m.setTicketId(100);
+        m.setAttempts(attempts);
+        return m;
+    }
+
+    private MimeMessage claimed(TicketEmailOutbox m) {
+        List<Ticket> tickets = List.of(new Ticket());
+        MimeMessage msg = mock(MimeMessage.class);
+        when(outbox.claim(m.getId())).thenReturn(Optional.of(m));
+        when(outbox.ticketsFor(m)).thenReturn(tickets);
+        when(mailService.buildGroupTicketEmail(tickets)).thenReturn(msg);
+        return msg;
+    }
+
+    @Test
+    void process_sendsWholeBatchOverOneConnection_andMarksEachRow() throws Exception {
+        MimeMessage a = claimed(row(7L, 1));
+        MimeMessage b = claimed(row(8L, 3));
+        when(smtpPool.send(List.of(a, b))).thenReturn(new Exception[]{null, new MessagingException("452 mailbox full")});
+
+        dispatcher.process(List.of(7L, 8L));
+
+        verify(smtpPool, times(1)).send(anyList());
+        verify(outbox).markSent(7L);
+        verify(outbox).markFailedAttempt(eq(8L), eq(3), contains("mailbox full"));
+        verify(outbox, never()).markSent(8L);
+    }
+
+    @Test
+    void process_whenRenderingFails_retriesThatRowOnly() throws Exception {
+        MimeMessage a = claimed(row(7L, 1));
+        TicketEmailOutbox broken = row(8L, 1);
+        when(outbox.claim(8L)).thenReturn(Optional.of(broken));
+        when(outbox.ticketsFor(broken)).thenReturn(List.of(new Ticket(), new Ticket()));
+        when(mailService.buildGroupTicketEmail(argThat(l -> l.size() == 2)))
+                .thenThrow(new IllegalStateException("PDF generation failed"));
+        when(smtpPool.send(List.of(a))).thenReturn(new Exception[]{null});
+
+        dispatcher.process(List.of(7L, 8L));
+
+        verify(outbox).markSent(7L);
+        verify(outbox).markFailedAttempt(eq(8L), eq(1), contains("PDF generation failed"));
+    }
+
+    @Test
+    void process_whenTicketsAreGone_movesStraightToDead() throws Exception {
+        TicketEmailOutbox m = row(7L, 1);
+        when(outbox.claim(7L)).thenReturn(Optional.of(m));
+        when(outbox.ticketsFor(m)).thenReturn(List.of());
+
+        dispatcher.process(List.of(7L));
+
+        verifyNoInteractions(mailService, smtpPool);
+        verify(outbox).markFailedAttempt(7L, Integer.MAX_VALUE, "TICKET_NOT_FOUND");
+    }
+
+    @Test
+    void process_whenNotClaimed_doesNothing() throws Exception {
+        when(outbox.claim(7L)).thenReturn(Optional.empty());
+
+        dispatcher.process(List.of(7L));
+
+        verifyNoInteractions(mailService, smtpPool);
+        verify(outbox, never()).markSent(anyLong());
+    }
+}
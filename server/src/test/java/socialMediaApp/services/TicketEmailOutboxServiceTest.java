@@ -0,0 +1,82 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.TicketEmailOutbox;
+import socialMediaApp.models.enums.EmailOutboxStatus;
+import socialMediaApp.repositories.TicketEmailOutboxRepository;
+import socialMediaApp.repositories.TicketRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketEmailOutboxServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T12:00:00Z");
+    private static final LocalDateTime NOW_LDT = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock private TicketEmailOutboxRepository outboxRepository;
+    @Mock private TicketRepository ticketRepository;
+
+    @InjectMocks
+    private TicketEmailOutboxService outbox;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outbox, "backoffBaseMillis", 30000L);
+        ReflectionTestUtils.setField(outbox, "backoffMaxMillis", 90000L);
+        ReflectionTestUtils.setField(outbox, "leaseMillis", 300000L);
+        ReflectionTestUtils.setField(outbox, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void enqueueGroup_writesPendingRowDueNow() {
+        when(outboxRepository.save(any(TicketEmailOutbox.class))).thenAnswer(inv -> {
+            TicketEmailOutbox m = inv.getArgument(0);
+            m.setId(9L);
+            return m;
+        });
+
+        assertEquals(9L, outbox.enqueueGroup(1, 20));
+
+        ArgumentCaptor<TicketEmailOutbox> saved = ArgumentCaptor.forClass(TicketEmailOutbox.class);
+        verify(outboxRepository).save(saved.capture());
+        assertEquals(EmailOutboxStatus.PENDING, saved.getValue().getStatus());
+        assertEquals(NOW_LDT, saved.getValue().getNextAttemptAt());
+        assertNull(saved.getValue().getTicketId());
+    }
+
+    @Test
+    void markFailedAttempt_backsOffExponentially_thenMovesToDead() {
+        assertFalse(outbox.markFailedAttempt(7L, 1, "smtp down"));
+        verify(outboxRepository).markFailedAttempt(7L, EmailOutboxStatus.PENDING, NOW_LDT.plusSeconds(30), "smtp down");
+
+        assertFalse(outbox.markFailedAttempt(7L, 2, "smtp down"));
+        verify(outboxRepository).markFailedAttempt(7L, EmailOutboxStatus.PENDING, NOW_LDT.plusSeconds(60), "smtp down");
+
+        assertTrue(outbox.markFailedAttempt(7L, 3, "smtp down"));
+        verify(outboxRepository).markFailedAttempt(7L, EmailOutboxStatus.DEAD, NOW_LDT.plusSeconds(90), "smtp down"); // capped
+    }
+
+    @Test
+    void claim_whenAnotherThreadOwnsTheRow_returnsEmpty() {
+        when(outboxRepository.claim(7L, NOW_LDT, NOW_LDT.plusMinutes(5))).thenReturn(0);
+
+        assertTrue(outbox.claim(7L).isEmpty());
+        verify(outboxRepository, never()).findById(any());
+    }
+}
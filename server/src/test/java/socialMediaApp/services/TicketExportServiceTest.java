@@ -0,0 +1,108 @@
+package socialMediaApp.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.User;
+import socialMediaApp.models.enums.TicketStatus;
+import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.repositories.TicketRepositoryCustom.AttendeeExportRow;
+import socialMediaApp.repositories.TicketRepositoryCustom.TicketExportRow;
+import socialMediaApp.services.TicketExportService.Dataset;
+import socialMediaApp.services.TicketExportService.Format;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketExportServiceTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2030, 1, 1, 18, 30);
+
+    @Mock private TicketRepository ticketRepository;
+    @Mock private TicketRollupService rollups;
+    @Mock private PostService postService;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private TicketExportService exports;
+
+    @SuppressWarnings("unchecked")
+    private void tickets(TicketExportRow... rows) {
+        doAnswer(inv -> {
+            Consumer<TicketExportRow> sink = inv.getArgument(1);
+            for (TicketExportRow r : rows) sink.accept(r);
+            return null;
+        }).when(ticketRepository).streamTickets(eq(1), any(Consumer.class));
+    }
+
+    @Test
+    void csv_quotesSeparators_andDefusesFormulas() throws Exception {
+        tickets(new TicketExportRow(100, "ABC", 0, TicketStatus.USED, "PAID", AT, AT,
+                20, "Doe, Jan", "=HYPERLINK(\"x\")", "jan@example.com"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exports.write(1, Dataset.TICKETS, Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("ticketId,code,seatNo,status"));
+        assertEquals("100,ABC,0,USED,PAID,2030-01-01T18:30,2030-01-01T18:30,20,\"Doe, Jan\","
+                + "\"'=HYPERLINK(\"\"x\"\")\",jan@example.com", lines[1]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ndjson_writesOneTypedObjectPerLine() throws Exception {
+        doAnswer(inv -> {
+            Consumer<AttendeeExportRow> sink = inv.getArgument(1);
+            sink.accept(new AttendeeExportRow(20, "Jan", "Doe", "jan@example.com", 3, 1, AT));
+            sink.accept(new AttendeeExportRow(21, "Ann", "Roe", "ann@example.com", 1, 0, null));
+            return null;
+        }).when(ticketRepository).streamAttendees(eq(1), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exports.write(1, Dataset.ATTENDEES, Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(3, first.get("tickets").asInt());
+        assertEquals("2030-01-01T18:30", first.get("firstCheckIn").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("firstCheckIn").isNull());
+    }
+
+    @Test
+    void requireOwner_rejectsOtherUsers_andUnknownNamesAreBadRequests() {
+        User owner = new User();
+        owner.setId(10);
+        Post post = new Post();
+        post.setId(1);
+        post.setUser(owner);
+        when(postService.getById(1)).thenReturn(post);
+
+        exports.requireOwner(1, 10);
+        ResponseStatusException forbidden = assertThrows(ResponseStatusException.class, () -> exports.requireOwner(1, 99));
+        assertEquals(HttpStatus.FORBIDDEN, forbidden.getStatus());
+
+        assertEquals(Format.NDJSON, TicketExportService.format("ndjson"));
+        assertEquals("UNSUPPORTED_FORMAT",
+                assertThrows(ResponseStatusException.class, () -> TicketExportService.format("xlsx")).getReason());
+        assertEquals("UNSUPPORTED_EXPORT",
+                assertThrows(ResponseStatusException.class, () -> TicketExportService.dataset("payments")).getReason());
+    }
+}
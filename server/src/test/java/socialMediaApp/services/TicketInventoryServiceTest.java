@@ -0,0 +1,187 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.EventInventory;
+import socialMediaApp.models.EventInventoryShard;
+import socialMediaApp.models.Post;
+import socialMediaApp.repositories.EventInventoryRepository;
+import socialMediaApp.repositories.EventInventoryShardRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketInventoryServiceTest {
+
+    @Mock private EventInventoryRepository inventoryRepository;
+    @Mock private EventInventoryShardRepository shardRepository;
+
+    @InjectMocks
+    private TicketInventoryService inventoryService;
+
+    @Test
+    void tryReserve_whenCapacityNull_doesNotTouchInventory() {
+        assertTrue(inventoryService.tryReserve(post(1, null), 1));
+        verifyNoInteractions(inventoryRepository, shardRepository);
+    }
+
+    @Test
+    void tryReserve_singleRow_conditionalUpdateDecides() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 10, 1)));
+        when(inventoryRepository.tryReserve(eq(1), eq(1), eq(10), any())).thenReturn(1, 0);
+        when(inventoryRepository.existsById(1)).thenReturn(true);
+
+        assertTrue(inventoryService.tryReserve(post(1, 10), 1));
+        assertFalse(inventoryService.tryReserve(post(1, 10), 1));
+
+        verify(inventoryRepository, times(1)).findById(1); // layout is cached
+        verify(inventoryRepository, never()).initIfAbsent(anyInt(), anyInt());
+    }
+
+    @Test
+    void tryReserve_whenRowMissing_seedsSingleRow() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.empty());
+        when(inventoryRepository.tryReserve(eq(1), eq(2), eq(10), any())).thenReturn(1);
+
+        assertTrue(inventoryService.tryReserve(post(1, 10), 2));
+        verify(inventoryRepository).initIfAbsent(1, 10);
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryReserve_whenShardingEnabled_seedsSlotsWithExactCapacitySplit() {
+        ReflectionTestUtils.setField(inventoryService, "shards", 4);
+        ReflectionTestUtils.setField(inventoryService, "shardMinCapacity", 100);
+
+        when(inventoryRepository.findById(1)).thenReturn(Optional.empty());
+        when(inventoryRepository.initShardedIfAbsent(1, 1000, 4)).thenReturn(1);
+        when(inventoryRepository.countIssued(1)).thenReturn(3);
+        when(shardRepository.tryReserve(eq(1), anyInt(), eq(1))).thenReturn(1);
+
+        assertTrue(inventoryService.tryReserve(post(1, 1000), 1));
+
+        ArgumentCaptor<List<EventInventoryShard>> captor = ArgumentCaptor.forClass(List.class);
+        verify(shardRepository).saveAll(captor.capture());
+        List<EventInventoryShard> rows = captor.getValue();
+        assertEquals(4, rows.size());
+        assertEquals(3, rows.get(0).getSold());
+        assertEquals(997, rows.stream().mapToInt(r -> r.getCapacity() - r.getSold()).sum());
+    }
+
+    @Test
+    void tryReserve_whenSlotDrained_rebalancesAcrossSlots() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 1000, 3)));
+        when(shardRepository.tryReserve(eq(1), anyInt(), eq(2))).thenReturn(0);
+
+        EventInventoryShard a = shard(0, 300, 300);
+        EventInventoryShard b = shard(1, 340, 300);
+        EventInventoryShard c = shard(2, 360, 355);
+        when(shardRepository.findAllByPostIdOrderBySlotAsc(1)).thenReturn(List.of(a, b, c));
+
+        assertTrue(inventoryService.tryReserve(post(1, 1000), 2));
+
+        // 45 free before, 2 taken, 43 spread as 15/14/14
+        assertEquals(302, a.getSold());
+        assertEquals(15, a.getCapacity() - a.getSold());
+        assertEquals(14, b.getCapacity() - b.getSold());
+        assertEquals(14, c.getCapacity() - c.getSold());
+    }
+
+    @Test
+    void tryReserve_whenAllSlotsDrained_returnsFalse() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 10, 2)));
+        when(shardRepository.tryReserve(eq(1), anyInt(), eq(1))).thenReturn(0);
+        when(shardRepository.findAllByPostIdOrderBySlotAsc(1))
+                .thenReturn(List.of(shard(0, 5, 5), shard(1, 5, 5)));
+
+        assertFalse(inventoryService.tryReserve(post(1, 10), 1));
+    }
+
+    @Test
+    void tryReserve_whenSeededRowsWereRolledBack_reseedsAndRetriesOnce() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 10, 1)), Optional.empty());
+        when(inventoryRepository.tryReserve(eq(1), eq(1), eq(10), any())).thenReturn(1, 0, 1);
+        when(inventoryRepository.existsById(1)).thenReturn(false);
+
+        assertTrue(inventoryService.tryReserve(post(1, 10), 1));
+        assertTrue(inventoryService.tryReserve(post(1, 10), 1)); // cached layout, rows gone
+
+        verify(inventoryRepository).initIfAbsent(1, 10);
+        verify(inventoryRepository, times(3)).tryReserve(eq(1), eq(1), eq(10), any());
+    }
+
+    @Test
+    void release_whenNoSingleSlotSoldEnough_spreadsOverSlots() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 1000, 2)));
+        when(shardRepository.release(eq(1), anyInt(), eq(3))).thenReturn(0);
+        EventInventoryShard a = shard(0, 10, 2);
+        EventInventoryShard b = shard(1, 10, 2);
+        when(shardRepository.findAllByPostIdOrderBySlotAsc(1)).thenReturn(List.of(a, b));
+
+        inventoryService.release(1, 3);
+
+        assertEquals(0, a.getSold());
+        assertEquals(1, b.getSold());
+        assertEquals(20, a.getCapacity() + b.getCapacity());
+    }
+
+    @Test
+    void remaining_sharded_sumsSlots() {
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, 1000, 4)));
+        when(shardRepository.sumRemaining(1)).thenReturn(321L);
+
+        assertEquals(321, inventoryService.remaining(post(1, 1000)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void remaining_bulk_readsRowsOnce_andSumsOnlyShardedEvents() {
+        EventInventory single = inventory(1, 100, 1);
+        single.setSold(30);
+        when(inventoryRepository.findAllById(anyCollection())).thenReturn(List.of(single, inventory(2, 1000, 4)));
+        when(shardRepository.sumRemainingByPostIds(List.of(2))).thenReturn(List.<Object[]>of(new Object[]{2, 321L}));
+
+        Map<Integer, Integer> res = inventoryService.remaining(List.of(post(1, 100), post(2, 1000), post(3, 50), post(4, null)));
+
+        assertEquals(Map.of(1, 70, 2, 321), res); // 3 never sold, 4 unlimited
+        ArgumentCaptor<Iterable<Integer>> ids = ArgumentCaptor.forClass(Iterable.class);
+        verify(inventoryRepository).findAllById(ids.capture());
+        assertFalse(ids.getValue().toString().contains("4"));
+    }
+
+    private static Post post(int id, Integer capacity) {
+        Post p = new Post();
+        p.setId(id);
+        p.setCapacity(capacity);
+        return p;
+    }
+
+    private static EventInventory inventory(int postId, int capacity, int shards) {
+        EventInventory inv = new EventInventory();
+        inv.setPostId(postId);
+        inv.setCapacity(capacity);
+        inv.setShards(shards);
+        return inv;
+    }
+
+    private static EventInventoryShard shard(int slot, int capacity, int sold) {
+        EventInventoryShard s = new EventInventoryShard();
+        s.setPostId(1);
+        s.setSlot(slot);
+        s.setCapacity(capacity);
+        s.setSold(sold);
+        return s;
+    }
+}
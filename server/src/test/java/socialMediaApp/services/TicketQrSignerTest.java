@@ -0,0 +1,69 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.models.Post;
+import socialMediaApp.models.Ticket;
+import socialMediaApp.models.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketQrSignerTest {
+
+    private TicketQrSigner signer;
+    private Ticket ticket;
+
+    @BeforeEach
+    void setup() {
+        signer = new TicketQrSigner();
+        ReflectionTestUtils.setField(signer, "enabled", true);
+        ReflectionTestUtils.setField(signer, "secret", "test-secret");
+
+        Post p = new Post();
+        p.setId(7);
+        User u = new User();
+        u.setName("jan");
+        u.setLastName("Doe");
+
+        ticket = new Ticket();
+        ticket.setId(42);
+        ticket.setCode("0123456789abcdef");
+        ticket.setPost(p);
+        ticket.setUser(u);
+    }
+
+    @Test
+    void sign_thenParse_roundTrips_evenAfterScannerUpperCasing() {
+        String signed = signer.sign(ticket).toUpperCase();
+
+        TicketQrSigner.SignedCode out = signer.parse(signed);
+
+        assertTrue(out.signatureValid());
+        assertEquals("0123456789ABCDEF", out.code());
+        assertEquals(7, out.postId());
+        assertEquals(42, out.ticketId());
+        assertEquals("JD", out.initials());
+    }
+
+    @Test
+    void parse_whenAnyFieldTampered_rejectsSignature() {
+        String signed = signer.sign(ticket);
+
+        assertFalse(signer.parse(signed.replace(":7.", ":8.")).signatureValid());
+        assertFalse(signer.parse(signed.replace(".JD.", ".AB.")).signatureValid());
+        assertFalse(signer.parse("FFFF" + signed.substring(4)).signatureValid());
+        assertFalse(signer.parse("ABC:garbage").signatureValid());
+    }
+
+    @Test
+    void parse_plainCode_returnsNull() {
+        assertNull(signer.parse("0123456789ABCDEF"));
+    }
+
+    @Test
+    void sign_whenDisabled_keepsPlainCode() {
+        ReflectionTestUtils.setField(signer, "enabled", false);
+        assertEquals("0123456789ABCDEF", signer.sign(ticket));
+    }
+}
@@ -0,0 +1,131 @@
+package socialMediaApp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import socialMediaApp.repositories.RevenueLedgerRepository;
+import socialMediaApp.repositories.TicketRollupDailyRepository;
+import socialMediaApp.repositories.TicketRollupHourlyRepository;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketRollupServiceTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-02T18:42:00Z");
+    private static final LocalDateTime HOUR = LocalDateTime.of(2030, 1, 2, 18, 0);
+
+    @Mock private TicketRollupHourlyRepository hourlyRepository;
+    @Mock private TicketRollupDailyRepository dailyRepository;
+    @Mock private RevenueLedgerRepository ledgerRepository;
+
+    @InjectMocks
+    private TicketRollupService rollups;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(rollups, "reconcileDays", 2);
+        ReflectionTestUtils.setField(rollups, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void flush_mergesDeltasPerHour_intoOneUpsertPerTable() {
+        rollups.recordIssued(1, 2, new BigDecimal("30.00"));
+        rollups.recordIssued(1, 1, BigDecimal.ZERO);
+        rollups.recordCheckIns(1, 4);
+
+        assertEquals(1, rollups.flush());
+
+        verify(hourlyRepository).increment(1, HOUR, 3, 4, new BigDecimal("30.00"));
+        verify(dailyRepository).increment(1, HOUR.toLocalDate(), 3, 4, new BigDecimal("30.00"));
+        assertEquals(0, rollups.pendingBuckets());
+        assertEquals(0, rollups.flush());
+    }
+
+    @Test
+    void flush_whenWriteFails_keepsDeltasForTheNextRun() {
+        rollups.recordCheckIns(1, 2);
+        when(hourlyRepository.increment(anyInt(), any(), anyLong(), anyLong(), any()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+
+        assertThrows(RuntimeException.class, () -> rollups.flush());
+        assertEquals(1, rollups.pendingBuckets());
+
+        rollups.recordCheckIns(1, 1);
+        rollups.flush();
+        verify(hourlyRepository).increment(1, HOUR, 0, 3, BigDecimal.ZERO);
+    }
+
+    @Test
+    void reconcile_rewritesRecentBucketsFromTicketsAndLedger_thenResumsDays() {
+        LocalDateTime from = LocalDate.of(2029, 12, 31).atStartOfDay();
+        when(hourlyRepository.count()).thenReturn(10L);
+        when(hourlyRepository.soldByHourSince(from)).thenReturn(List.<Object[]>of(
+                new Object[]{1, "2030-01-02 17:00:00", 5L}));
+        when(ledgerRepository.revenueByHourSince(from)).thenReturn(List.<Object[]>of(
+                new Object[]{1, "2030-01-02 17:00:00", new BigDecimal("75.00")}));
+        when(hourlyRepository.usedByHourSince(from)).thenReturn(List.<Object[]>of(
+                new Object[]{1, "2030-01-02 17:00:00", 2L},
+                new Object[]{1, "2030-01-02 18:00:00", 1L}));
+
+        rollups.reconcile();
+
+        InOrder order = inOrder(hourlyRepository, dailyRepository);
+        order.verify(hourlyRepository).resetFrom(from);
+        order.verify(hourlyRepository).put(1, HOUR.minusHours(1), 5, 2, new BigDecimal("75.00"));
+        order.verify(dailyRepository).recomputeFromHourly(from);
+        verify(hourlyRepository).put(1, HOUR, 0, 1, BigDecimal.ZERO);
+    }
+
+    @Test
+    void reconcile_dropsBufferedDeltasItRewrites_andKeepsLaterOnes() {
+        LocalDateTime from = LocalDate.of(2029, 12, 31).atStartOfDay();
+        rollups.recordIssued(1, 2, new BigDecimal("30.00")); // committed after the last flush
+        when(hourlyRepository.count()).thenReturn(10L);
+        when(hourlyRepository.soldByHourSince(from)).thenAnswer(inv -> {
+            rollups.recordCheckIns(1, 1); // commits while the rewrite reads
+            return List.<Object[]>of(new Object[]{1, "2030-01-02 18:00:00", 2L});
+        });
+
+        rollups.reconcile();
+
+        verify(hourlyRepository).put(1, HOUR, 2, 0, BigDecimal.ZERO);
+        assertEquals(1, rollups.pendingBuckets());
+        rollups.flush();
+        verify(hourlyRepository).increment(1, HOUR, 0, 1, BigDecimal.ZERO); // the issue is not added again
+    }
+
+    @Test
+    void reconcile_whenItFails_keepsTheDeltas() {
+        rollups.recordIssued(1, 2, new BigDecimal("30.00"));
+        when(hourlyRepository.count()).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> rollups.reconcile());
+        assertEquals(1, rollups.pendingBuckets());
+    }
+
+    @Test
+    void reconcile_onEmptyTables_rebuildsAllHistory() {
+        when(hourlyRepository.count()).thenReturn(0L);
+
+        rollups.reconcile();
+
+        verify(hourlyRepository).soldByHourSince(LocalDateTime.of(2000, 1, 1, 0, 0));
+    }
+}
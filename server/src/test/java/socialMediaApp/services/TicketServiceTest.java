@@ -11,12 +11,14 @@ import socialMediaApp.api.exp.AlreadyExistsException;
 import socialMediaApp.api.exp.NotFoundException;
 import socialMediaApp.mappers.TicketMapper;
 import socialMediaApp.models.Post;
+import socialMediaApp.models.SeatHold;
 import socialMediaApp.models.Ticket;
 import socialMediaApp.models.User;
 import socialMediaApp.models.enums.EventStatus;
 import socialMediaApp.models.enums.TicketStatus;
 import socialMediaApp.repositories.EventCheckerRepository;
 import socialMediaApp.repositories.TicketRepository;
+import socialMediaApp.requests.TicketBatchScanRequest;
 import socialMediaApp.responses.ticket.TicketResponse;
 import socialMediaApp.responses.ticket.TicketVerifyResponse;
 
@@ -25,6 +27,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,7 +42,17 @@ class TicketServiceTest {
     @Mock private UserService userService;
     @Mock private EventCheckerRepository eventCheckerRepository;
     @Mock private EventCheckerService eventCheckerService;
-    @Mock private MailService mailService;
+    @Mock private TicketEmailDispatcher emailDispatcher;
+    @Mock private TicketInventoryService inventoryService;
+    @Mock private SeatHoldService seatHoldService;
+    @Mock private TicketCodeGenerator codeGenerator;
+    @Mock private TicketQrSigner qrSigner;
+    @Mock private CheckInIndexService checkInIndex;
+    @Mock private AttendanceService attendance;
+    @Mock private TicketRollupService rollups;
+    @Mock private RevenueLedgerService revenueLedger;
+    @Mock private SalesVelocityService velocity;
+    @Mock private TicketAvailabilityService availabilityService;
 
     @InjectMocks
     private TicketService ticketService;
@@ -65,6 +78,9 @@ class TicketServiceTest {
         postPaid.setPrice(new BigDecimal("15.00"));
         postPaid.setCurrency("PLN");
         postPaid.setStatus(EventStatus.PUBLISHED);
+
+        AtomicInteger seq = new AtomicInteger();
+        lenient().when(codeGenerator.next()).thenAnswer(inv -> "CODE" + seq.incrementAndGet());
     }
 
     // ----------------------------------------------------------------------
@@ -108,33 +124,12 @@ class TicketServiceTest {
     // ----------------------------------------------------------------------
 
     @Test
-    void availability_whenCapacityNull_returnsAvailableNull() {
-        Post p = basePost(3, owner);
-        p.setCapacity(null);
-        p.setStatus(EventStatus.PUBLISHED);
-
-        when(postService.getById(3)).thenReturn(p);
-        when(ticketRepository.countByPost_IdAndStatusIn(eq(3), anyCollection())).thenReturn(5L);
-
-        Map<String, Object> res = ticketService.availability(3);
-
-        assertEquals(null, res.get("seats"));
-        assertEquals(null, res.get("available"));
-    }
-
-    @Test
-    void availability_whenCapacitySet_returnsRemaining() {
-        Post p = basePost(4, owner);
-        p.setCapacity(100);
-        p.setStatus(EventStatus.PUBLISHED);
-
-        when(postService.getById(4)).thenReturn(p);
-        when(ticketRepository.countByPost_IdAndStatusIn(eq(4), anyCollection())).thenReturn(7L);
-
-        Map<String, Object> res = ticketService.availability(4);
+    void availability_isServedFromTheAvailabilityCache() {
+        Map<String, Object> cached = Map.of("seats", 100, "available", 40, "held", 3L);
+        when(availabilityService.get(5)).thenReturn(cached);
 
-        assertEquals(100, res.get("seats"));
-        assertEquals(93, res.get("available"));
+        assertSame(cached, ticketService.availability(5));
+        verifyNoInteractions(postService, ticketRepository, inventoryService);
     }
 
     // ----------------------------------------------------------------------
@@ -218,10 +213,11 @@ class TicketServiceTest {
         when(postService.getById(1)).thenReturn(postFree);
         when(userService.getById(20)).thenReturn(user);
         when(ticketRepository.existsByPost_IdAndUser_Id(1, 20)).thenReturn(false);
-        when(ticketRepository.countByPost_Id(1)).thenReturn(2L);
+        when(inventoryService.tryReserve(postFree, 1)).thenReturn(false);
 
         assertThrows(IllegalStateException.class, () -> ticketService.register(1, 20));
         verify(ticketRepository, never()).save(any());
+        verify(ticketRepository, never()).countByPost_Id(anyInt());
     }
 
     @Test
@@ -229,7 +225,6 @@ class TicketServiceTest {
         when(postService.getById(1)).thenReturn(postFree);
         when(userService.getById(20)).thenReturn(user);
         when(ticketRepository.existsByPost_IdAndUser_Id(1, 20)).thenReturn(false);
-        when(ticketRepository.existsByCode(anyString())).thenReturn(false);
 
         TicketResponse mapped = mock(TicketResponse.class);
         when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(mapped);
@@ -248,7 +243,8 @@ class TicketServiceTest {
         assertFalse(saved.getCode().isBlank());
 
         verify(ticketMapper).toResponse(any(Ticket.class));
-        verify(mailService).sendTicketEmail(any(Ticket.class));
+        verify(emailDispatcher).enqueueTicket(any(Ticket.class));
+        verifyNoInteractions(inventoryService); // capacity == null -> unlimited
     }
 
     // ----------------------------------------------------------------------
@@ -261,7 +257,6 @@ class TicketServiceTest {
         when(userService.getById(20)).thenReturn(user);
 
         when(ticketRepository.existsByPost_IdAndUser_Id(1, 20)).thenReturn(false);
-        when(ticketRepository.existsByCode(anyString())).thenReturn(false);
 
         TicketResponse mapped = mock(TicketResponse.class);
         when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(mapped);
@@ -345,9 +340,8 @@ class TicketServiceTest {
         when(ticketRepository.existsByCheckoutSessionId("cs_ok")).thenReturn(false);
         when(ticketRepository.existsByPaymentIntentId("pi_ok")).thenReturn(false);
         when(ticketRepository.existsByPost_IdAndUser_Id(2, 20)).thenReturn(false);
-        when(ticketRepository.existsByCode(anyString())).thenReturn(false);
 
-        when(ticketRepository.countByPost_Id(2)).thenReturn(0L);
+        when(inventoryService.tryReserve(postPaid, 1)).thenReturn(true);
 
         TicketResponse mapped = mock(TicketResponse.class);
         when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(mapped);
@@ -365,14 +359,207 @@ class TicketServiceTest {
         assertEquals("cs_ok", saved.getCheckoutSessionId());
         assertNotNull(saved.getCode());
 
-        verify(mailService).sendTicketEmail(any(Ticket.class));
+        verify(emailDispatcher).enqueueTicket(any(Ticket.class));
+        verify(revenueLedger).recordSale(postPaid, 20, "pi_ok", "cs_ok", null);
+    }
+
+
+    @Test
+    void registerPaid_whenCheckoutHoldClaimed_doesNotReserveAgain() {
+        postPaid.setCapacity(100);
+        postPaid.setSalesEndAt(LocalDateTime.now().minusMinutes(1)); // hold was taken while on sale
+
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+        when(ticketRepository.existsByPost_IdAndUser_Id(2, 20)).thenReturn(false);
+        when(seatHoldService.claim(2, 20, "cs_hold")).thenReturn(1);
+
+        ticketService.registerPaid(2, 20, "pi_hold", "cs_hold");
+
+        verify(ticketRepository).save(any(Ticket.class));
+        verifyNoInteractions(inventoryService);
+    }
+
+    // ----------------------------------------------------------------------
+    // holdSeat
+    // ----------------------------------------------------------------------
+
+    @Test
+    void holdSeat_reservesSeat_andCreatesHold() {
+        postPaid.setCapacity(10);
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+        when(inventoryService.tryReserve(postPaid, 1)).thenReturn(true);
+
+        SeatHold hold = new SeatHold();
+        when(seatHoldService.create(postPaid, user, 1)).thenReturn(hold);
+
+        assertSame(hold, ticketService.holdSeat(2, 20, 1));
+    }
+
+    @Test
+    void holdSeat_whenBuyerAlreadyHolds_extendsExistingHold_withoutReserving() {
+        postPaid.setCapacity(10);
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+
+        SeatHold existing = new SeatHold();
+        existing.setQuantity(1);
+        when(seatHoldService.findActive(2, 20)).thenReturn(Optional.of(existing));
+        when(seatHoldService.extend(existing)).thenReturn(existing);
+
+        assertSame(existing, ticketService.holdSeat(2, 20, 1));
+        verifyNoInteractions(inventoryService);
+        verify(seatHoldService, never()).create(any(), any(), anyInt());
+    }
+
+    @Test
+    void holdSeat_whenSoldOut_throwsFull() {
+        postPaid.setCapacity(10);
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+        when(inventoryService.tryReserve(postPaid, 1)).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> ticketService.holdSeat(2, 20, 1));
+        verify(seatHoldService, never()).create(any(), any(), anyInt());
     }
 
+    @Test
+    void holdSeat_whenGroupSizeChanged_releasesOldHold_andReservesNewQuantity() {
+        postPaid.setCapacity(10);
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+
+        SeatHold existing = new SeatHold();
+        existing.setId(5L);
+        existing.setQuantity(1);
+        when(seatHoldService.findActive(2, 20)).thenReturn(Optional.of(existing));
+        when(inventoryService.tryReserve(postPaid, 4)).thenReturn(true);
+
+        SeatHold hold = new SeatHold();
+        when(seatHoldService.create(postPaid, user, 4)).thenReturn(hold);
+
+        assertSame(hold, ticketService.holdSeat(2, 20, 4));
+        verify(seatHoldService).release(5L);
+    }
+
+    // ----------------------------------------------------------------------
+    // registerGroup / group checkout
+    // ----------------------------------------------------------------------
+
+    @Test
+    void registerGroup_reservesOnce_insertsBatch_andSendsOneEmail() {
+        postFree.setCapacity(100);
+        when(postService.getById(1)).thenReturn(postFree);
+        when(userService.getById(20)).thenReturn(user);
+        when(ticketRepository.existsByPost_IdAndUser_Id(1, 20)).thenReturn(false);
+        when(inventoryService.tryReserve(postFree, 3)).thenReturn(true);
+
+        List<Ticket> issued = List.of(
+                ticket(1, postFree, user, "G1"),
+                ticket(2, postFree, user, "G2"),
+                ticket(3, postFree, user, "G3"));
+        when(ticketRepository.findAllByPost_IdAndUser_IdOrderBySeatNoAsc(1, 20)).thenReturn(issued);
+        List<TicketResponse> mapped = List.of(mock(TicketResponse.class));
+        when(ticketMapper.toResponses(issued)).thenReturn(mapped);
+
+        assertSame(mapped, ticketService.registerGroup(1, 20, 3));
+
+        verify(ticketRepository).insertGroup(eq(1), eq(20), argThat(codes -> codes.size() == 3), eq("FREE"), isNull(), isNull());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(ticketRepository, never()).existsByCode(anyString());
+        verify(emailDispatcher).enqueueGroup(1, 20);
+    }
+
+    @Test
+    void registerGroup_whenQuantityOutOfRange_throwsBeforeTouchingInventory() {
+        assertThrows(IllegalArgumentException.class, () -> ticketService.registerGroup(1, 20, 0));
+        assertThrows(IllegalArgumentException.class, () -> ticketService.registerGroup(1, 20, 101));
+        verifyNoInteractions(inventoryService, ticketRepository);
+    }
+
+    @Test
+    void registerGroup_whenEventPaid_throwsPaymentRequired() {
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> ticketService.registerGroup(2, 20, 2));
+        assertEquals("PAYMENT_REQUIRED", ex.getMessage());
+    }
+
+    @Test
+    void registerPaid_whenGroupHoldClaimed_issuesAllSeatsInOneBatch() {
+        when(postService.getById(2)).thenReturn(postPaid);
+        when(userService.getById(20)).thenReturn(user);
+        when(ticketRepository.existsByPost_IdAndUser_Id(2, 20)).thenReturn(false);
+        when(seatHoldService.claim(2, 20, "cs_group")).thenReturn(2);
+
+        Ticket first = ticket(1, postPaid, user, "P1");
+        when(ticketRepository.findAllByPost_IdAndUser_IdOrderBySeatNoAsc(2, 20))
+                .thenReturn(List.of(first, ticket(2, postPaid, user, "P2")));
+        TicketResponse resp = mock(TicketResponse.class);
+        when(ticketMapper.toResponse(first)).thenReturn(resp);
+        when(revenueLedger.recordSale(postPaid, 20, "pi_group", "cs_group", null)).thenReturn(new BigDecimal("30.00"));
+
+        assertSame(resp, ticketService.registerPaid(2, 20, "pi_group", "cs_group", 1));
+
+        verify(ticketRepository).insertGroup(eq(2), eq(20), argThat(codes -> codes.size() == 2), eq("PAID"), eq("pi_group"), eq("cs_group"));
+        verifyNoInteractions(inventoryService);
+        verify(rollups).recordIssued(2, 2, new BigDecimal("30.00"));
+    }
 
     // ----------------------------------------------------------------------
     // validate / consume
     // ----------------------------------------------------------------------
 
+    @Test
+    void validate_whenQrSignatureForged_rejectsWithoutTouchingDb() {
+        when(qrSigner.parse("ABC:1.5.JD.00")).thenReturn(new TicketQrSigner.SignedCode("ABC", 1, 5, "JD", false));
+
+        TicketVerifyResponse res = ticketService.validate(1, "abc:1.5.jd.00", 20);
+
+        assertFalse(res.isValid());
+        assertEquals("TICKET_SIGNATURE_INVALID", res.getMessage());
+        verifyNoInteractions(postService, eventCheckerRepository, ticketRepository);
+    }
+
+    @Test
+    void validate_whenSignedQrForAnotherEvent_rejectsWithoutTouchingDb() {
+        when(qrSigner.parse("ABC:2.5.JD.FF")).thenReturn(new TicketQrSigner.SignedCode("ABC", 2, 5, "JD", true));
+
+        TicketVerifyResponse res = ticketService.validate(1, "ABC:2.5.JD.FF", 20);
+
+        assertFalse(res.isValid());
+        assertEquals("TICKET_FOR_ANOTHER_EVENT", res.getMessage());
+        verifyNoInteractions(postService, eventCheckerRepository, ticketRepository);
+    }
+
+    @Test
+    void consume_withValidSignedQr_looksUpPlainCode() {
+        when(qrSigner.parse("ABC:1.5.JD.FF")).thenReturn(new TicketQrSigner.SignedCode("ABC", 1, 5, "JD", true));
+        when(postService.getById(1)).thenReturn(postFree);
+        Ticket t = ticket(5, postFree, user, "ABC");
+        t.setStatus(TicketStatus.ACTIVE);
+        when(ticketRepository.markUsed(eq("ABC"), eq(1), any(LocalDateTime.class))).thenReturn(1);
+        when(ticketRepository.findByCode("ABC")).thenReturn(Optional.of(t));
+
+        TicketVerifyResponse res = ticketService.consume(1, "ABC:1.5.JD.FF", 10);
+
+        assertTrue(res.isValid());
+        assertEquals("ABC", res.getCode());
+        assertEquals("CONSUMED", res.getMessage());
+    }
+
+    @Test
+    void consume_whenEventIndexed_answersFromIndex_withoutTicketQueries() {
+        TicketVerifyResponse fromIndex = new TicketVerifyResponse(true, "CONSUMED", 5, "ABC", TicketStatus.USED,
+                20, "U20 L20", 1, "Post 1", LocalDateTime.now());
+        when(checkInIndex.scan(1, "ABC", 10, true)).thenReturn(fromIndex);
+
+        assertSame(fromIndex, ticketService.consume(1, "abc", 10));
+        verifyNoInteractions(ticketRepository, postService, eventCheckerRepository);
+    }
+
     @Test
     void validate_whenForbidden_returnsInvalidResponse() {
         when(postService.getById(1)).thenReturn(postFree);
@@ -459,15 +646,17 @@ class TicketServiceTest {
 
         assertFalse(res.isValid());
         verify(ticketRepository, never()).save(any());
+        verify(ticketRepository, never()).markUsed(anyString(), anyInt(), any());
     }
 
     @Test
-    void consume_ok_marksTicketUsed_andSetsUsedAt_andSaves() {
+    void consume_ok_marksTicketUsed_withConditionalUpdate() {
         when(postService.getById(1)).thenReturn(postFree);
 
         Ticket t = ticket(8, postFree, user, "CON1");
-        t.setStatus(TicketStatus.ACTIVE);
+        t.setStatus(TicketStatus.USED);
 
+        when(ticketRepository.markUsed(eq("CON1"), eq(1), any(LocalDateTime.class))).thenReturn(1);
         when(ticketRepository.findByCode("CON1")).thenReturn(Optional.of(t));
 
         TicketVerifyResponse res = ticketService.consume(1, "con1", owner.getId());
@@ -476,10 +665,76 @@ class TicketServiceTest {
         assertEquals("CONSUMED", res.getMessage());
         assertEquals(TicketStatus.USED, res.getStatus());
 
-        assertEquals(TicketStatus.USED, t.getStatus());
-        assertNotNull(t.getUsedAt());
+        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    void consume_whenAnotherGateWonTheUpdate_returnsNotActive() {
+        when(postService.getById(1)).thenReturn(postFree);
+
+        Ticket t = ticket(8, postFree, user, "CON1");
+        t.setStatus(TicketStatus.ACTIVE); // read from a snapshot taken before the other gate committed
+
+        when(ticketRepository.markUsed(eq("CON1"), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(ticketRepository.findByCode("CON1")).thenReturn(Optional.of(t));
+
+        TicketVerifyResponse res = ticketService.consume(1, "CON1", owner.getId());
 
-        verify(ticketRepository).save(t);
+        assertFalse(res.isValid());
+        assertEquals("TICKET_NOT_ACTIVE", res.getMessage());
+        assertEquals(TicketStatus.USED, res.getStatus());
+    }
+
+    // ----------------------------------------------------------------------
+    // consumeBatch
+    // ----------------------------------------------------------------------
+
+    @Test
+    void consumeBatch_appliesScansInScanOrder_andReturnsResultsInRequestOrder() {
+        when(postService.getById(1)).thenReturn(postFree);
+
+        LocalDateTime t0 = LocalDateTime.now().minusMinutes(30);
+        var late = scan("b1", t0.plusMinutes(5));
+        var early = scan("A1", t0);
+        var dup = scan("A1", t0.plusMinutes(1));
+        var missing = scan("ZZ", t0.plusMinutes(2));
+
+        when(ticketRepository.markUsedByCodes(eq(1), eq(List.of("A1", "A1", "ZZ", "B1")), anyList()))
+                .thenReturn(new int[]{1, 0, 0, 1});
+
+        Ticket a = ticket(1, postFree, user, "A1");
+        a.setStatus(TicketStatus.USED);
+        Ticket b = ticket(2, postFree, user, "B1");
+        b.setStatus(TicketStatus.USED);
+        when(ticketRepository.findAllByCodeIn(anyCollection())).thenReturn(List.of(a, b));
+
+        List<TicketVerifyResponse> out = ticketService.consumeBatch(1, List.of(late, early, dup, missing), owner.getId());
+
+        assertEquals(List.of("CONSUMED", "CONSUMED", "TICKET_NOT_ACTIVE", "TICKET_NOT_FOUND"),
+                out.stream().map(TicketVerifyResponse::getMessage).toList());
+        assertEquals("B1", out.get(0).getCode());
+        verify(ticketRepository, never()).markUsed(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void consumeBatch_whenForbidden_rejectsAll_withoutUpdating() {
+        when(postService.getById(1)).thenReturn(postFree);
+        when(eventCheckerRepository.existsByPost_IdAndUser_Id(1, 999)).thenReturn(false);
+
+        List<TicketVerifyResponse> out = ticketService.consumeBatch(1,
+                List.of(scan("A1", null), scan("B1", null)), 999);
+
+        assertTrue(out.stream().allMatch(r -> !r.isValid() && "FORBIDDEN".equals(r.getMessage())));
+        verify(ticketRepository, never()).markUsedByCodes(anyInt(), anyList(), anyList());
+    }
+
+    @Test
+    void consumeBatch_whenTooLarge_throws() {
+        List<TicketBatchScanRequest.Scan> scans = new java.util.ArrayList<>();
+        for (int i = 0; i < 501; i++) scans.add(scan("C" + i, null));
+
+        assertThrows(IllegalArgumentException.class, () -> ticketService.consumeBatch(1, scans, owner.getId()));
+        verifyNoInteractions(ticketRepository);
     }
 
     // ----------------------------------------------------------------------
@@ -516,6 +771,7 @@ class TicketServiceTest {
         Ticket t = ticket(9, postFree, user, "V1");
         t.setStatus(TicketStatus.ACTIVE);
 
+        when(ticketRepository.markUsed(eq("V1"), eq(1), any(LocalDateTime.class))).thenReturn(1);
         when(ticketRepository.findByCode("V1")).thenReturn(Optional.of(t));
 
         TicketResponse mapped = mock(TicketResponse.class);
@@ -524,8 +780,23 @@ class TicketServiceTest {
         TicketResponse out = ticketService.verifyAndUse(1, "v1", owner.getId());
 
         assertSame(mapped, out);
-        assertEquals(TicketStatus.USED, t.getStatus());
         verify(ticketMapper).toResponse(t);
+        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyAndUse_whenAnotherGateWonTheUpdate_throwsUsed() {
+        when(postService.getById(1)).thenReturn(postFree);
+
+        Ticket t = ticket(9, postFree, user, "V1");
+        t.setStatus(TicketStatus.ACTIVE);
+
+        when(ticketRepository.markUsed(eq("V1"), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(ticketRepository.findByCode("V1")).thenReturn(Optional.of(t));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> ticketService.verifyAndUse(1, "V1", owner.getId()));
+        assertEquals("Ticket already used", ex.getMessage());
     }
 
 
@@ -564,5 +835,12 @@ class TicketServiceTest {
         t.setStatus(TicketStatus.ACTIVE);
         return t;
     }
-}
 
+    private static TicketBatchScanRequest.Scan scan(String code, LocalDateTime scannedAt) {
+        TicketBatchScanRequest.Scan s = new TicketBatchScanRequest.Scan();
+        s.setCode(code);
+        s.setScannedAt(scannedAt);
+        s.setDeviceId("gate-1");
+        return s;
+    }
+}